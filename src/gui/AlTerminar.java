@@ -0,0 +1,47 @@
+package gui;
+
+import excepciones.EventoException;
+import javax.swing.*;
+import java.awt.Component;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Entrega en el hilo de Swing el resultado de una operación de
+ * {@link servicio.GestorEventosAsync}. La operación, con su escritura en disco, corre en otro
+ * hilo, así que la ventana sigue respondiendo mientras tanto.
+ */
+final class AlTerminar {
+
+    private AlTerminar() {
+    }
+
+    /**
+     * @param operacion Operación ya pedida a la fachada asincrónica
+     * @param exito Recibe el resultado, en el hilo de Swing
+     * @param error Recibe la excepción que lanzó el gestor, en el hilo de Swing
+     */
+    static <T> void entregar(CompletableFuture<T> operacion, Consumer<T> exito, Consumer<Throwable> error) {
+        operacion.whenComplete((resultado, excepcion) -> SwingUtilities.invokeLater(() -> {
+            if (excepcion == null) {
+                exito.accept(resultado);
+            } else {
+                // Las operaciones encadenadas envuelven la excepción original
+                error.accept(excepcion instanceof CompletionException && excepcion.getCause() != null
+                    ? excepcion.getCause() : excepcion);
+            }
+        }));
+    }
+
+    /**
+     * Muestra el error de una operación: el mensaje de una {@link EventoException} tal cual,
+     * cualquier otro como error inesperado
+     */
+    static void mostrarError(Component padre, Throwable error) {
+        JOptionPane.showMessageDialog(padre,
+            error instanceof EventoException ? error.getMessage() : "Error inesperado: " + error.getMessage(),
+            "Error",
+            JOptionPane.ERROR_MESSAGE);
+    }
+}
@@ -1,15 +1,17 @@
 package gui;
 
-import excepciones.EventoException;
 import modelo.Evento;
 import modelo.Asistente;
+import modelo.ResultadoInscripcion;
 import servicio.GestorEventos;
+import servicio.GestorEventosAsync;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Diálogo para mostrar detalles del evento y gestionar asistentes
@@ -18,6 +20,7 @@ public class DialogoDetallesEvento extends JDialog {
     
     private Evento evento;
     private GestorEventos gestorEventos;
+    private GestorEventosAsync gestorAsync;
     private JList<Asistente> listaAsistentes;
     private DefaultListModel<Asistente> modeloLista;
     private JTextField txtNombreAsistente;
@@ -39,12 +42,13 @@ public class DialogoDetallesEvento extends JDialog {
      * Constructor del diálogo de detalles
      * @param parent Ventana padre
      * @param evento Evento a mostrar
-     * @param gestorEventos Gestor de eventos
+     * @param gestorAsync Fachada asincrónica del gestor de eventos
      */
-    public DialogoDetallesEvento(JFrame parent, Evento evento, GestorEventos gestorEventos) {
+    public DialogoDetallesEvento(JFrame parent, Evento evento, GestorEventosAsync gestorAsync) {
         super(parent, true); // Modal
         this.evento = evento;
-        this.gestorEventos = gestorEventos;
+        this.gestorAsync = gestorAsync;
+        this.gestorEventos = gestorAsync.getGestor();
         
         inicializarComponentes();
         configurarLayout();
@@ -264,6 +268,8 @@ public class DialogoDetallesEvento extends JDialog {
      */
     private void cargarAsistentes() {
         modeloLista.clear();
+        // Cada cambio publica una versión nueva del evento: se toma la última del gestor
+        evento = gestorEventos.buscarEventoPorId(evento.getId()).orElse(evento);
         List<Asistente> asistentes = evento.getAsistentes();
         for (Asistente asistente : asistentes) {
             modeloLista.addElement(asistente);
@@ -271,7 +277,8 @@ public class DialogoDetallesEvento extends JDialog {
     }
     
     /**
-     * Agrega un nuevo asistente al evento
+     * Agrega un nuevo asistente al evento. El alta y la inscripción corren fuera del hilo de Swing;
+     * mientras tanto el diálogo no acepta otras acciones.
      */
     private void agregarAsistente() {
         if (!validarCamposAsistente()) {
@@ -282,37 +289,33 @@ public class DialogoDetallesEvento extends JDialog {
             return;
         }
         
-        try {
-            String nombre = txtNombreAsistente.getText().trim();
-            String email = txtEmailAsistente.getText().trim();
-            String telefono = txtTelefonoAsistente.getText().trim();
-            
-            // Crear el asistente
-            Asistente nuevoAsistente = gestorEventos.crearAsistente(nombre, email, telefono);
-            
-            // Agregarlo al evento
-            gestorEventos.agregarAsistenteAEvento(evento.getId(), nuevoAsistente.getId());
-            
+        String nombre = txtNombreAsistente.getText().trim();
+        String email = txtEmailAsistente.getText().trim();
+        String telefono = txtTelefonoAsistente.getText().trim();
+        int idEvento = evento.getId();
+        
+        // Crear el asistente y, ya con su ID, agregarlo al evento
+        CompletableFuture<ResultadoInscripcion> inscripcion = gestorAsync.crearAsistente(nombre, email, telefono)
+            .thenCompose(nuevoAsistente -> gestorAsync.agregarAsistenteAEvento(idEvento, nuevoAsistente.getId()));
+        esperarOperacion();
+        AlTerminar.entregar(inscripcion, resultado -> {
+            terminarOperacion();
             // Actualizar la vista
             cargarAsistentes();
             limpiarCamposAsistente();
             
             JOptionPane.showMessageDialog(this, 
-                "Asistente agregado correctamente", 
+                resultado == ResultadoInscripcion.EN_ESPERA
+                    ? "El evento está completo: el asistente quedó en la lista de espera"
+                    : "Asistente agregado correctamente", 
                 "Éxito", 
                 JOptionPane.INFORMATION_MESSAGE);
-                
-        } catch (EventoException e) {
-            JOptionPane.showMessageDialog(this, 
-                e.getMessage(), 
-                "Error", 
-                JOptionPane.ERROR_MESSAGE);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, 
-                "Error inesperado: " + e.getMessage(), 
-                "Error", 
-                JOptionPane.ERROR_MESSAGE);
-        }
+        }, error -> {
+            terminarOperacion();
+            // Si falló la inscripción, el asistente ya quedó creado
+            cargarAsistentes();
+            AlTerminar.mostrarError(this, error);
+        });
     }
     
     /**
@@ -334,30 +337,36 @@ public class DialogoDetallesEvento extends JDialog {
             JOptionPane.YES_NO_OPTION);
             
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                evento.removerAsistente(asistenteSeleccionado.getId());
-                gestorEventos.guardarDatos();
-                cargarAsistentes();
-                
-                JOptionPane.showMessageDialog(this, 
-                    "Asistente eliminado del evento", 
-                    "Éxito", 
-                    JOptionPane.INFORMATION_MESSAGE);
+            esperarOperacion();
+            AlTerminar.entregar(gestorAsync.removerAsistenteDeEvento(evento.getId(), asistenteSeleccionado.getId()),
+                sinResultado -> {
+                    terminarOperacion();
+                    cargarAsistentes();
                     
-            } catch (EventoException e) {
-                JOptionPane.showMessageDialog(this, 
-                    e.getMessage(), 
-                    "Error", 
-                    JOptionPane.ERROR_MESSAGE);
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, 
-                    "Error inesperado: " + e.getMessage(), 
-                    "Error", 
-                    JOptionPane.ERROR_MESSAGE);
-            }
+                    JOptionPane.showMessageDialog(this, 
+                        "Asistente eliminado del evento", 
+                        "Éxito", 
+                        JOptionPane.INFORMATION_MESSAGE);
+                }, error -> {
+                    terminarOperacion();
+                    AlTerminar.mostrarError(this, error);
+                });
         }
     }
     
+    /**
+     * Bloquea el diálogo mientras una operación se ejecuta en segundo plano
+     */
+    private void esperarOperacion() {
+        setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+    }
+    
+    private void terminarOperacion() {
+        setCursor(Cursor.getDefaultCursor());
+        setEnabled(true);
+    }
+    
     /**
      * Valida los campos del formulario de asistente
      * @return true si todos los campos son válidos
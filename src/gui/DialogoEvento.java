@@ -1,8 +1,8 @@
 package gui;
 
-import excepciones.EventoException;
 import modelo.Evento;
 import servicio.GestorEventos;
+import servicio.GestorEventosAsync;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -11,6 +11,7 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
 import com.toedter.calendar.JDateChooser;
 
 /**
@@ -20,6 +21,7 @@ public class DialogoEvento extends JDialog {
     
     private Evento evento;
     private GestorEventos gestorEventos;
+    private GestorEventosAsync gestorAsync;
     private JTextField txtNombre;
     private JTextField txtUbicacion;
     private JTextArea txtDescripcion;
@@ -32,22 +34,23 @@ public class DialogoEvento extends JDialog {
     /**
      * Constructor para crear un nuevo evento
      * @param parent Ventana padre
-     * @param gestorEventos Gestor de eventos
+     * @param gestorAsync Fachada asincrónica del gestor de eventos
      */
-    public DialogoEvento(JFrame parent, GestorEventos gestorEventos) {
-        this(parent, null, gestorEventos);
+    public DialogoEvento(JFrame parent, GestorEventosAsync gestorAsync) {
+        this(parent, null, gestorAsync);
     }
     
     /**
      * Constructor para crear nuevo evento o editar existente
      * @param parent Ventana padre
      * @param evento Evento a editar (null para nuevo)
-     * @param gestorEventos Gestor de eventos
+     * @param gestorAsync Fachada asincrónica del gestor de eventos
      */
-    public DialogoEvento(JFrame parent, Evento evento, GestorEventos gestorEventos) {
+    public DialogoEvento(JFrame parent, Evento evento, GestorEventosAsync gestorAsync) {
         super(parent, true); // Modal
         this.evento = evento;
-        this.gestorEventos = gestorEventos;
+        this.gestorAsync = gestorAsync;
+        this.gestorEventos = gestorAsync.getGestor();
         this.esNuevoEvento = (evento == null);
         
         inicializarComponentes();
@@ -233,7 +236,7 @@ public class DialogoEvento extends JDialog {
             mensaje += "- Debe seleccionar una fecha\n";
         } else if (esNuevoEvento) {
             LocalDate fecha = fechaDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-            if (fecha.isBefore(LocalDate.now())) {
+            if (fecha.isBefore(gestorEventos.getHoy())) {
                 valido = false;
                 mensaje += "- La fecha no puede ser anterior a hoy\n";
             }
@@ -251,7 +254,8 @@ public class DialogoEvento extends JDialog {
     }
     
     /**
-     * Guarda el evento (crear o modificar)
+     * Guarda el evento (crear o modificar). El guardado corre fuera del hilo de Swing; mientras
+     * tanto el diálogo no acepta cambios y se cierra recién cuando termina bien.
      */
     private void guardarEvento() {
         if (!validarCampos()) {
@@ -262,45 +266,31 @@ public class DialogoEvento extends JDialog {
             return;
         }
         
-        try {
-            String nombre = txtNombre.getText().trim();
-            String ubicacion = txtUbicacion.getText().trim();
-            String descripcion = txtDescripcion.getText().trim();
-            
-            // Convertir Date a LocalDate
-            Date fechaDate = dateChooser.getDate();
-            LocalDate fecha = fechaDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-            
-            if (esNuevoEvento) {
-                // Crear nuevo evento
-                gestorEventos.crearEvento(nombre, fecha, ubicacion, descripcion);
-                JOptionPane.showMessageDialog(this, 
-                    "Evento creado correctamente", 
-                    "Éxito", 
-                    JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                // Modificar evento existente
-                gestorEventos.modificarEvento(evento.getId(), nombre, fecha, ubicacion, descripcion);
-                JOptionPane.showMessageDialog(this, 
-                    "Evento modificado correctamente", 
-                    "Éxito", 
-                    JOptionPane.INFORMATION_MESSAGE);
-            }
-            
+        String nombre = txtNombre.getText().trim();
+        String ubicacion = txtUbicacion.getText().trim();
+        String descripcion = txtDescripcion.getText().trim();
+        
+        // Convertir Date a LocalDate
+        Date fechaDate = dateChooser.getDate();
+        LocalDate fecha = fechaDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        
+        CompletableFuture<?> operacion = esNuevoEvento
+            ? gestorAsync.crearEvento(nombre, fecha, ubicacion, descripcion)
+            : gestorAsync.modificarEvento(evento.getId(), nombre, fecha, ubicacion, descripcion);
+        setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        AlTerminar.entregar(operacion, resultado -> {
+            JOptionPane.showMessageDialog(this, 
+                esNuevoEvento ? "Evento creado correctamente" : "Evento modificado correctamente", 
+                "Éxito", 
+                JOptionPane.INFORMATION_MESSAGE);
             guardado = true;
             dispose();
-            
-        } catch (EventoException e) {
-            JOptionPane.showMessageDialog(this, 
-                e.getMessage(), 
-                "Error", 
-                JOptionPane.ERROR_MESSAGE);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, 
-                "Error inesperado: " + e.getMessage(), 
-                "Error", 
-                JOptionPane.ERROR_MESSAGE);
-        }
+        }, error -> {
+            setCursor(Cursor.getDefaultCursor());
+            setEnabled(true);
+            AlTerminar.mostrarError(this, error);
+        });
     }
     
     /**
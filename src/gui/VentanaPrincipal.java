@@ -1,8 +1,8 @@
 package gui;
 
-import excepciones.EventoException;
 import modelo.Evento;
 import servicio.GestorEventos;
+import servicio.GestorEventosAsync;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
@@ -16,6 +16,8 @@ import java.util.List;
 public class VentanaPrincipal extends JFrame {
     
     private GestorEventos gestorEventos;
+    // Los cambios y el guardado pasan por la fachada, para no trabar la ventana mientras se escribe en disco
+    private GestorEventosAsync gestorAsync;
     private JTable tablaEventos;
     private DefaultTableModel modeloTabla;
     private JButton btnAgregar;
@@ -31,6 +33,7 @@ public class VentanaPrincipal extends JFrame {
     
     public VentanaPrincipal() {
         this.gestorEventos = new GestorEventos();
+        this.gestorAsync = new GestorEventosAsync(gestorEventos);
         inicializarComponentes();
         configurarLayout();
         configurarEventos();
@@ -208,7 +211,7 @@ public class VentanaPrincipal extends JFrame {
     }
     
     private void mostrarDialogoEvento(Evento evento) {
-        DialogoEvento dialogo = new DialogoEvento(this, evento, gestorEventos);
+        DialogoEvento dialogo = new DialogoEvento(this, evento, gestorAsync);
         dialogo.setVisible(true);
         // Actualizar tabla después de cerrar el diálogo
         actualizarTablaEventos();
@@ -226,7 +229,7 @@ public class VentanaPrincipal extends JFrame {
         
         int id = (Integer) modeloTabla.getValueAt(filaSeleccionada, 0);
         gestorEventos.buscarEventoPorId(id).ifPresent(evento -> {
-            if (evento.esPasado()) {
+            if (evento.esPasado(gestorEventos.getHoy())) {
                 JOptionPane.showMessageDialog(this, 
                     "No se puede editar un evento que ya pasó", 
                     "Error", 
@@ -254,20 +257,18 @@ public class VentanaPrincipal extends JFrame {
             JOptionPane.QUESTION_MESSAGE);
             
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                int id = (Integer) modeloTabla.getValueAt(filaSeleccionada, 0);
-                gestorEventos.eliminarEvento(id);
+            int id = (Integer) modeloTabla.getValueAt(filaSeleccionada, 0);
+            btnEliminar.setEnabled(false);
+            AlTerminar.entregar(gestorAsync.eliminarEvento(id), sinResultado -> {
                 actualizarTablaEventos();
                 JOptionPane.showMessageDialog(this, 
                     "Evento eliminado correctamente", 
                     "Éxito", 
                     JOptionPane.INFORMATION_MESSAGE);
-            } catch (EventoException e) {
-                JOptionPane.showMessageDialog(this, 
-                    e.getMessage(), 
-                    "Error", 
-                    JOptionPane.ERROR_MESSAGE);
-            }
+            }, error -> {
+                actualizarEstadoBotones();
+                AlTerminar.mostrarError(this, error);
+            });
         }
     }
     
@@ -283,7 +284,7 @@ public class VentanaPrincipal extends JFrame {
         
         int id = (Integer) modeloTabla.getValueAt(filaSeleccionada, 0);
         gestorEventos.buscarEventoPorId(id).ifPresent(evento -> {
-            DialogoDetallesEvento dialogo = new DialogoDetallesEvento(this, evento, gestorEventos);
+            DialogoDetallesEvento dialogo = new DialogoDetallesEvento(this, evento, gestorAsync);
             dialogo.setVisible(true);
             actualizarTablaEventos(); // Actualizar por si cambió algo
         });
@@ -296,16 +297,28 @@ public class VentanaPrincipal extends JFrame {
             JOptionPane.YES_NO_OPTION);
             
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                gestorEventos.guardarDatos();
-                dispose();
-                System.exit(0);
-            } catch (Exception e) {
+            // Sin aceptar otras acciones mientras se guarda
+            setEnabled(false);
+            AlTerminar.entregar(gestorAsync.guardarDatos(), bytes -> {
+                try {
+                    gestorAsync.cerrar();
+                    gestorEventos.cerrar();
+                    dispose();
+                    System.exit(0);
+                } catch (Exception e) {
+                    setEnabled(true);
+                    JOptionPane.showMessageDialog(this, 
+                        "Error al cerrar: " + e.getMessage(), 
+                        "Error", 
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }, error -> {
+                setEnabled(true);
                 JOptionPane.showMessageDialog(this, 
-                    "Error al guardar datos: " + e.getMessage(), 
+                    "Error al guardar datos: " + error.getMessage(), 
                     "Error", 
                     JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
 } 
@@ -1,12 +1,85 @@
 package main;
 
+import excepciones.EventoException;
+import excepciones.PersistenciaException;
 import gui.VentanaPrincipal;
+import persistencia.ComparacionFsync;
+import persistencia.ConfiguracionPersistencia;
+import persistencia.FormatoAlmacenamiento;
+import persistencia.PersistenciaArchivos;
+import servicio.GestorEventos;
+import servicio.MedicionBusquedas;
+import servicio.MedicionContencion;
+import servicio.MedicionInscripciones;
+import servicio.PruebaEstres;
+import servicio.PruebaMotor;
+import servidor.GeneradorCarga;
+import servidor.ServidorHttp;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 public class Main {
     
     public static void main(String[] args) {
+        // Conversión de archivos sin abrir la interfaz: --convertir <origen> <destino>
+        if (args.length > 0 && args[0].equals("--convertir")) {
+            convertirArchivos(args);
+            return;
+        }
+        
+        // API HTTP sin interfaz gráfica: --servidor [puerto]
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            iniciarServidor(args);
+            return;
+        }
+        
+        // Prueba de carga contra una URL: --carga <url> <peticiones por segundo> <segundos>
+        if (args.length > 0 && args[0].equals("--carga")) {
+            generarCarga(args);
+            return;
+        }
+        
+        // Costo de cada política de fsync: --fsync [repeticiones]
+        if (args.length > 0 && args[0].equals("--fsync")) {
+            compararFsync(args);
+            return;
+        }
+        
+        // Búsqueda por ID en los índices contra el recorrido lineal: --busquedas [cantidad]
+        if (args.length > 0 && args[0].equals("--busquedas")) {
+            medirBusquedas(args);
+            return;
+        }
+        
+        // Inscripciones en un solo evento a medida que se llena: --inscripciones [cantidad]
+        if (args.length > 0 && args[0].equals("--inscripciones")) {
+            medirInscripciones(args);
+            return;
+        }
+        
+        // Inscripciones por segundo según la cantidad de hilos: --contencion [máximo de hilos] [inscripciones por hilo]
+        if (args.length > 0 && args[0].equals("--contencion")) {
+            medirContencion(args);
+            return;
+        }
+        
+        // Varios hilos sobre un mismo gestor y verificación del estado: --estres [hilos] [operaciones por hilo]
+        if (args.length > 0 && args[0].equals("--estres")) {
+            probarEstres(args);
+            return;
+        }
+        
+        // Cambios encolados en el motor desde varios hilos, con lotes y rechazos: --motor [hilos] [altas por hilo]
+        if (args.length > 0 && args[0].equals("--motor")) {
+            probarMotor(args);
+            return;
+        }
+        
         // Ejecutar la interfaz gráfica en el Event Dispatch Thread
         SwingUtilities.invokeLater(new Runnable() {
             @Override
@@ -28,4 +101,217 @@ public class Main {
             }
         });
     }
-} 
\ No newline at end of file
+    
+    private static void convertirArchivos(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Uso: --convertir <csv|binario|comprimido> <csv|binario|comprimido>");
+            System.exit(1);
+        }
+        
+        try {
+            FormatoAlmacenamiento origen = FormatoAlmacenamiento.desdeNombre(args[1]);
+            FormatoAlmacenamiento destino = FormatoAlmacenamiento.desdeNombre(args[2]);
+            // La misma configuración que usa la aplicación, para convertir los archivos del directorio que carga
+            PersistenciaArchivos persistencia =
+                new PersistenciaArchivos(ConfiguracionPersistencia.desdePropiedadesSistema());
+            try {
+                persistencia.convertirFormato(origen, destino);
+            } finally {
+                persistencia.cerrar();
+            }
+            System.out.println("Archivos convertidos de " + origen + " a " + destino);
+        } catch (IllegalArgumentException | PersistenciaException e) {
+            System.err.println("Error al convertir archivos: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    private static void iniciarServidor(String[] args) {
+        if (args.length > 2) {
+            System.err.println("Uso: --servidor [puerto]");
+            System.exit(1);
+        }
+        
+        try {
+            int puerto = args.length == 2 ? Integer.parseInt(args[1]) : ServidorHttp.PUERTO_POR_DEFECTO;
+            GestorEventos gestor = new GestorEventos();
+            ServidorHttp servidor = new ServidorHttp(gestor, puerto);
+            // Al terminar el proceso se atienden las peticiones en curso y se guardan los cambios
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                servidor.detener(2);
+                try {
+                    gestor.guardarDatos();
+                    gestor.cerrar();
+                } catch (PersistenciaException e) {
+                    System.err.println("Error al guardar los datos: " + e.getMessage());
+                }
+            }, "cierre-servidor"));
+            servidor.iniciar();
+            System.out.println("Servidor HTTP escuchando en el puerto " + servidor.getPuerto());
+        } catch (NumberFormatException e) {
+            System.err.println("Puerto inválido: " + args[1]);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error al iniciar el servidor: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    private static void generarCarga(String[] args) {
+        if (args.length != 4) {
+            System.err.println("Uso: --carga <url> <peticiones por segundo> <segundos>");
+            System.exit(1);
+        }
+        
+        try {
+            GeneradorCarga generador = new GeneradorCarga(URI.create(args[1]),
+                Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            System.out.println(generador.ejecutar());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Argumentos inválidos: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Prueba de carga interrumpida");
+            System.exit(1);
+        }
+    }
+    
+    private static void compararFsync(String[] args) {
+        if (args.length > 2) {
+            System.err.println("Uso: --fsync [repeticiones]");
+            System.exit(1);
+        }
+        
+        try {
+            int repeticiones = args.length == 2 ? Integer.parseInt(args[1]) : 200;
+            // En el directorio de trabajo y no en el temporal del sistema, que puede estar en memoria
+            Path directorio = Files.createTempDirectory(Paths.get(""), "comparacion-fsync");
+            try {
+                for (ComparacionFsync.Resultado resultado : new ComparacionFsync(directorio, repeticiones).ejecutar()) {
+                    System.out.println(resultado);
+                }
+            } finally {
+                Files.delete(directorio);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Argumentos inválidos: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException | PersistenciaException e) {
+            System.err.println("Error al comparar las políticas de fsync: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    private static void medirBusquedas(String[] args) {
+        if (args.length > 2) {
+            System.err.println("Uso: --busquedas [cantidad]");
+            System.exit(1);
+        }
+        
+        try {
+            int cantidad = args.length == 2 ? Integer.parseInt(args[1]) : 1_000_000;
+            System.out.println(new MedicionBusquedas(cantidad).ejecutar());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Argumentos inválidos: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    private static void medirInscripciones(String[] args) {
+        if (args.length > 2) {
+            System.err.println("Uso: --inscripciones [cantidad]");
+            System.exit(1);
+        }
+        
+        try {
+            int cantidad = args.length == 2 ? Integer.parseInt(args[1]) : 50_000;
+            System.out.println(new MedicionInscripciones(cantidad).ejecutar());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Argumentos inválidos: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException | PersistenciaException | EventoException e) {
+            System.err.println("Error al medir las inscripciones: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    private static void medirContencion(String[] args) {
+        if (args.length > 3) {
+            System.err.println("Uso: --contencion [máximo de hilos] [inscripciones por hilo]");
+            System.exit(1);
+        }
+        
+        try {
+            int hilos = args.length >= 2 ? Integer.parseInt(args[1]) : 8;
+            int inscripciones = args.length == 3 ? Integer.parseInt(args[2]) : 20_000;
+            for (MedicionContencion.Resultado resultado : new MedicionContencion(hilos, inscripciones).ejecutar()) {
+                System.out.println(resultado);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Argumentos inválidos: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException | PersistenciaException | EventoException e) {
+            System.err.println("Error al medir la contención: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Medición interrumpida");
+            System.exit(1);
+        }
+    }
+    
+    private static void probarEstres(String[] args) {
+        if (args.length > 3) {
+            System.err.println("Uso: --estres [hilos] [operaciones por hilo]");
+            System.exit(1);
+        }
+        
+        try {
+            int hilos = args.length >= 2 ? Integer.parseInt(args[1]) : 8;
+            int operaciones = args.length == 3 ? Integer.parseInt(args[2]) : 5000;
+            PruebaEstres.Resultado resultado = new PruebaEstres(hilos, operaciones).ejecutar();
+            System.out.println(resultado);
+            if (!resultado.esConsistente()) {
+                System.exit(1);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Argumentos inválidos: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException | PersistenciaException e) {
+            System.err.println("Error en la prueba de estrés: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Prueba de estrés interrumpida");
+            System.exit(1);
+        }
+    }
+    
+    private static void probarMotor(String[] args) {
+        if (args.length > 3) {
+            System.err.println("Uso: --motor [hilos] [altas por hilo]");
+            System.exit(1);
+        }
+        
+        try {
+            int hilos = args.length >= 2 ? Integer.parseInt(args[1]) : 8;
+            int altas = args.length == 3 ? Integer.parseInt(args[2]) : 2000;
+            PruebaMotor.Resultado resultado = new PruebaMotor(hilos, altas).ejecutar();
+            System.out.println(resultado);
+            if (!resultado.esConsistente()) {
+                System.exit(1);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Argumentos inválidos: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException | PersistenciaException | EventoException e) {
+            System.err.println("Error en la prueba del motor: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Prueba del motor interrumpida");
+            System.exit(1);
+        }
+    }
+}
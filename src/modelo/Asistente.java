@@ -20,13 +20,13 @@ public class Asistente {
         setTelefono(telefono);
     }
     
-    // Getters y Setters con validaciones
+    // Getters y validaciones; los datos no cambian después de crear el asistente
     
     public int getId() {
         return id;
     }
     
-    public void setId(int id) {
+    private void setId(int id) {
         if (id <= 0) {
             throw new IllegalArgumentException("El ID debe ser mayor a 0");
         }
@@ -37,7 +37,7 @@ public class Asistente {
         return nombre;
     }
     
-    public void setNombre(String nombre) {
+    private void setNombre(String nombre) {
         if (nombre == null || nombre.trim().isEmpty()) {
             throw new IllegalArgumentException("El nombre no puede estar vacío");
         }
@@ -48,43 +48,52 @@ public class Asistente {
         return email;
     }
     
-    public void setEmail(String email) {
+    private void setEmail(String email) {
         if (email == null || email.trim().isEmpty()) {
             throw new IllegalArgumentException("El email no puede estar vacío");
         }
         if (!validarEmail(email.trim())) {
             throw new IllegalArgumentException("El formato del email no es válido");
         }
-        this.email = email.trim().toLowerCase();
+        this.email = normalizarEmail(email);
     }
     
     public String getTelefono() {
         return telefono;
     }
     
-    public void setTelefono(String telefono) {
+    private void setTelefono(String telefono) {
         if (telefono == null || telefono.trim().isEmpty()) {
             throw new IllegalArgumentException("El teléfono no puede estar vacío");
         }
         this.telefono = telefono.trim();
     }
     
+    /**
+     * Forma en que se guardan y se comparan los emails: sin espacios en los extremos y en minúsculas
+     * @param email Email tal como se ingresó
+     * @return Email normalizado, o null si es null
+     */
+    public static String normalizarEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase();
+    }
+    
     private boolean validarEmail(String email) {
         return EMAIL_PATTERN.matcher(email).matches();
     }
     
+    // La identidad es el ID, igual que en Evento; la unicidad del email la controla el gestor
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Asistente asistente = (Asistente) obj;
-        return id == asistente.id || 
-               Objects.equals(email, asistente.email);
+        return id == asistente.id;
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(id, email);
+        return Objects.hash(id);
     }
     
     @Override
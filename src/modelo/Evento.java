@@ -1,129 +1,255 @@
 package modelo;
 
 import excepciones.EventoException;
+import util.MapaEnterosOrdenadoPersistente;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.function.IntConsumer;
 
 /**
- * Clase que representa un evento individual
+ * Clase que representa un evento individual. Es inmutable: cada cambio devuelve un evento nuevo
+ * con el mismo ID, que reemplaza al anterior, así que los eventos que entrega el gestor se pueden
+ * leer desde cualquier hilo. Para armar un evento con sus asistentes, por ejemplo al cargarlo,
+ * se usa {@link Constructor}.
  */
 public class Evento {
-    private int id;
-    private String nombre;
-    private LocalDate fecha;
-    private String ubicacion;
-    private String descripcion;
-    private List<Asistente> asistentes;
+    private final int id;
+    private final String nombre;
+    private final LocalDate fecha;
+    private final String ubicacion;
+    private final String descripcion;
+    // Por ID, en el orden en que se inscribieron. Son persistentes: cada cambio arma uno nuevo que
+    // comparte con el anterior lo que no cambió, así que un evento nuevo no copia a los asistentes
+    private final MapaEnterosOrdenadoPersistente<Asistente> asistentes;
+    private final int capacidad; // Cantidad máxima de asistentes; 0 si no tiene límite
+    private final MapaEnterosOrdenadoPersistente<Asistente> listaEspera; // Por ID, en orden de llegada
     
     public Evento(int id, String nombre, LocalDate fecha, String ubicacion, String descripcion) {
-        setId(id);
-        setNombre(nombre);
-        setFecha(fecha);
-        setUbicacion(ubicacion);
-        setDescripcion(descripcion);
-        this.asistentes = new ArrayList<>();
+        this(validarId(id), validarNombre(nombre), validarFecha(fecha), validarUbicacion(ubicacion),
+            validarDescripcion(descripcion), MapaEnterosOrdenadoPersistente.vacio(), 0,
+            MapaEnterosOrdenadoPersistente.vacio());
     }
     
-    // Getters y Setters con validaciones
+    private Evento(int id, String nombre, LocalDate fecha, String ubicacion, String descripcion,
+                   MapaEnterosOrdenadoPersistente<Asistente> asistentes, int capacidad,
+                   MapaEnterosOrdenadoPersistente<Asistente> listaEspera) {
+        this.id = id;
+        this.nombre = nombre;
+        this.fecha = fecha;
+        this.ubicacion = ubicacion;
+        this.descripcion = descripcion;
+        this.asistentes = asistentes;
+        this.capacidad = capacidad;
+        this.listaEspera = listaEspera;
+    }
+    
+    // Getters y validaciones
     
     public int getId() {
         return id;
     }
     
-    public void setId(int id) {
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public LocalDate getFecha() {
+        return fecha;
+    }
+    
+    public String getUbicacion() {
+        return ubicacion;
+    }
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+    
+    /**
+     * @return Evento con los datos indicados y los mismos asistentes, capacidad y lista de espera
+     * @throws IllegalArgumentException si algún dato es inválido
+     */
+    public Evento conDatos(String nombre, LocalDate fecha, String ubicacion, String descripcion) {
+        return new Evento(id, validarNombre(nombre), validarFecha(fecha), validarUbicacion(ubicacion),
+            validarDescripcion(descripcion), asistentes, capacidad, listaEspera);
+    }
+    
+    private static int validarId(int id) {
         if (id <= 0) {
             throw new IllegalArgumentException("El ID debe ser mayor a 0");
         }
-        this.id = id;
-    }
-    
-    public String getNombre() {
-        return nombre;
+        return id;
     }
     
-    public void setNombre(String nombre) {
+    private static String validarNombre(String nombre) {
         if (nombre == null || nombre.trim().isEmpty()) {
             throw new IllegalArgumentException("El nombre del evento no puede estar vacío");
         }
-        this.nombre = nombre.trim();
+        return nombre.trim();
     }
     
-    public LocalDate getFecha() {
-        return fecha;
-    }
-    
-    public void setFecha(LocalDate fecha) {
+    private static LocalDate validarFecha(LocalDate fecha) {
         if (fecha == null) {
             throw new IllegalArgumentException("La fecha no puede ser nula");
         }
-        this.fecha = fecha;
-    }
-    
-    public String getUbicacion() {
-        return ubicacion;
+        return fecha;
     }
     
-    public void setUbicacion(String ubicacion) {
+    private static String validarUbicacion(String ubicacion) {
         if (ubicacion == null || ubicacion.trim().isEmpty()) {
             throw new IllegalArgumentException("La ubicación no puede estar vacía");
         }
-        this.ubicacion = ubicacion.trim();
+        return ubicacion.trim();
     }
     
-    public String getDescripcion() {
-        return descripcion;
-    }
-    
-    public void setDescripcion(String descripcion) {
+    private static String validarDescripcion(String descripcion) {
         if (descripcion == null || descripcion.trim().isEmpty()) {
             throw new IllegalArgumentException("La descripción no puede estar vacía");
         }
-        this.descripcion = descripcion.trim();
+        return descripcion.trim();
+    }
+    
+    private static int validarCapacidad(int capacidad) {
+        if (capacidad < 0) {
+            throw new IllegalArgumentException("La capacidad no puede ser negativa");
+        }
+        return capacidad;
     }
     
     public List<Asistente> getAsistentes() {
-        return new ArrayList<>(asistentes); // Retorna copia para evitar modificaciones externas
+        return asistentes.comoLista(); // Vista de solo lectura en orden de inscripción, sin copiar
     }
     
-    // Agregar asistente
-    public void agregarAsistente(Asistente asistente) throws EventoException {
+    public boolean tieneAsistente(int idAsistente) {
+        return asistentes.contiene(idAsistente);
+    }
+    
+    public int getCapacidad() {
+        return capacidad;
+    }
+    
+    /**
+     * @return true si se puede inscribir a alguien más sin pasar por la lista de espera
+     */
+    public boolean hayLugar() {
+        return hayLugar(asistentes, capacidad);
+    }
+    
+    private static boolean hayLugar(MapaEnterosOrdenadoPersistente<Asistente> asistentes, int capacidad) {
+        return capacidad == 0 || asistentes.tamanio() < capacidad;
+    }
+    
+    public List<Asistente> getListaEspera() {
+        return listaEspera.comoLista(); // Vista de solo lectura en orden de llegada, sin copiar
+    }
+    
+    public boolean estaEnEspera(int idAsistente) {
+        return listaEspera.contiene(idAsistente);
+    }
+    
+    /**
+     * Inscribe al asistente si hay lugar; si el evento está completo lo deja al final de la lista de espera
+     * @return Evento con el asistente inscripto o en espera
+     * @throws EventoException si ya estaba inscripto o en espera
+     */
+    public Evento inscribir(Asistente asistente) throws EventoException {
+        verificarNuevo(asistente, asistentes, listaEspera);
+        if (hayLugar()) {
+            return new Evento(id, nombre, fecha, ubicacion, descripcion,
+                asistentes.poner(asistente.getId(), asistente), capacidad, listaEspera);
+        }
+        return new Evento(id, nombre, fecha, ubicacion, descripcion, asistentes, capacidad,
+            listaEspera.poner(asistente.getId(), asistente));
+    }
+    
+    /**
+     * Quita al asistente del evento o de la lista de espera. Si deja un lugar libre, lo ocupa
+     * el primero de la lista de espera.
+     * @return Evento sin el asistente
+     * @throws EventoException si no estaba inscripto ni en espera
+     */
+    public Evento desinscribir(int idAsistente) throws EventoException {
+        if (listaEspera.contiene(idAsistente)) {
+            return new Evento(id, nombre, fecha, ubicacion, descripcion, asistentes, capacidad,
+                listaEspera.quitar(idAsistente));
+        }
+        if (!asistentes.contiene(idAsistente)) {
+            throw new EventoException("No se encontró el asistente con ID: " + idAsistente);
+        }
+        return promoverDesdeEspera(asistentes.quitar(idAsistente), capacidad);
+    }
+    
+    /**
+     * Cambia la capacidad y, si aumentó, pasa al evento a los primeros de la lista de espera que
+     * entren. Si queda por debajo de los inscriptos no se quita a nadie: solo se deja de inscribir.
+     * @param capacidad Cantidad máxima de asistentes; 0 para no tener límite
+     * @return Evento con la nueva capacidad
+     * @throws IllegalArgumentException si la capacidad es negativa
+     */
+    public Evento cambiarCapacidad(int capacidad) {
+        return promoverDesdeEspera(asistentes, validarCapacidad(capacidad));
+    }
+    
+    private Evento promoverDesdeEspera(MapaEnterosOrdenadoPersistente<Asistente> inscriptos, int capacidad) {
+        MapaEnterosOrdenadoPersistente<Asistente> espera = listaEspera;
+        for (Asistente asistente : listaEspera) {
+            if (!hayLugar(inscriptos, capacidad)) {
+                break;
+            }
+            inscriptos = inscriptos.poner(asistente.getId(), asistente);
+            espera = espera.quitar(asistente.getId());
+        }
+        return new Evento(id, nombre, fecha, ubicacion, descripcion, inscriptos, capacidad, espera);
+    }
+    
+    private static void verificarNuevo(Asistente asistente, MapaEnterosOrdenadoPersistente<Asistente> asistentes,
+            MapaEnterosOrdenadoPersistente<Asistente> listaEspera) throws EventoException {
         if (asistente == null) {
             throw new EventoException("El asistente no puede ser nulo");
         }
-        
-        if (asistentes.contains(asistente)) {
-            throw new EventoException("El asistente ya está registrado en este evento");
+        if (listaEspera.contiene(asistente.getId())) {
+            throw new EventoException("El asistente ya está en la lista de espera de este evento");
         }
-        
-        asistentes.add(asistente);
-    }
-    
-    // Remover asistente
-    public void removerAsistente(int idAsistente) throws EventoException {
-        Optional<Asistente> asistenteARemover = asistentes.stream()
-            .filter(a -> a.getId() == idAsistente)
-            .findFirst();
-            
-        if (asistenteARemover.isPresent()) {
-            asistentes.remove(asistenteARemover.get());
-        } else {
-            throw new EventoException("No se encontró el asistente con ID: " + idAsistente);
+        if (asistentes.contiene(asistente.getId())) {
+            throw new EventoException("El asistente ya está registrado en este evento");
         }
     }
     
-    public boolean esFuturo() {
-        return fecha.isAfter(LocalDate.now()) || fecha.isEqual(LocalDate.now());
+    /**
+     * Informa qué asistentes inscriptos cambiaron entre dos versiones de un evento. Solo se
+     * recorre lo que las versiones no comparten, así que tras una inscripción cuesta O(log n)
+     * y si los inscriptos son los mismos, como al cambiar los datos o la lista de espera, O(1).
+     * @param anterior Versión anterior, o null si el evento es nuevo
+     * @param evento Versión nueva
+     * @param quitados Recibe los IDs de los inscriptos en la anterior que ya no están
+     * @param agregados Recibe los IDs de los inscriptos en la nueva que no estaban
+     */
+    public static void diferenciasDeAsistentes(Evento anterior, Evento evento, IntConsumer quitados,
+                                               IntConsumer agregados) {
+        MapaEnterosOrdenadoPersistente<Asistente> antes =
+            anterior == null ? MapaEnterosOrdenadoPersistente.vacio() : anterior.asistentes;
+        MapaEnterosOrdenadoPersistente.diferenciasDeClaves(antes, evento.asistentes, quitados, agregados);
     }
     
-    public boolean esPasado() {
-        return fecha.isBefore(LocalDate.now());
+    /**
+     * @param hoy Fecha actual, la que da el reloj del gestor ({@code GestorEventos#getHoy()})
+     * @return true si el evento es hoy o más adelante
+     */
+    public boolean esFuturo(LocalDate hoy) {
+        return !fecha.isBefore(hoy);
+    }
+    
+    /**
+     * @param hoy Fecha actual, la que da el reloj del gestor ({@code GestorEventos#getHoy()})
+     * @return true si el evento fue antes de hoy
+     */
+    public boolean esPasado(LocalDate hoy) {
+        return fecha.isBefore(hoy);
     }
     
     public int getCantidadAsistentes() {
-        return asistentes.size();
+        return asistentes.tamanio();
     }
     
     @Override
@@ -142,6 +268,59 @@ public class Evento {
     @Override
     public String toString() {
         return String.format("Evento{id=%d, nombre='%s', fecha=%s, ubicacion='%s', asistentes=%d}",
-                           id, nombre, fecha, ubicacion, asistentes.size());
+                           id, nombre, fecha, ubicacion, asistentes.tamanio());
+    }
+    
+    /**
+     * Arma un evento agregando sus asistentes de a uno, sin crear un evento por cada agregado.
+     * No se debe seguir usando después de {@link #construir()}.
+     */
+    public static final class Constructor {
+        private final Evento datos;
+        private MapaEnterosOrdenadoPersistente<Asistente> asistentes = MapaEnterosOrdenadoPersistente.vacio();
+        private MapaEnterosOrdenadoPersistente<Asistente> listaEspera = MapaEnterosOrdenadoPersistente.vacio();
+        private int capacidad;
+        
+        /**
+         * @throws IllegalArgumentException si algún dato es inválido
+         */
+        public Constructor(int id, String nombre, LocalDate fecha, String ubicacion, String descripcion) {
+            this.datos = new Evento(id, nombre, fecha, ubicacion, descripcion);
+        }
+        
+        /**
+         * Agrega el asistente al evento sin mirar la capacidad
+         * @throws EventoException si ya estaba inscripto o en espera
+         */
+        public Constructor agregarAsistente(Asistente asistente) throws EventoException {
+            verificarNuevo(asistente, asistentes, listaEspera);
+            asistentes = asistentes.poner(asistente.getId(), asistente);
+            return this;
+        }
+        
+        /**
+         * Fija la capacidad sin mover a nadie de la lista de espera
+         * @param capacidad Cantidad máxima de asistentes; 0 para no tener límite
+         * @throws IllegalArgumentException si la capacidad es negativa
+         */
+        public Constructor capacidad(int capacidad) {
+            this.capacidad = validarCapacidad(capacidad);
+            return this;
+        }
+        
+        /**
+         * Agrega el asistente al final de la lista de espera, sin mirar la capacidad
+         * @throws EventoException si ya estaba inscripto o en espera
+         */
+        public Constructor agregarAEspera(Asistente asistente) throws EventoException {
+            verificarNuevo(asistente, asistentes, listaEspera);
+            listaEspera = listaEspera.poner(asistente.getId(), asistente);
+            return this;
+        }
+        
+        public Evento construir() {
+            return new Evento(datos.id, datos.nombre, datos.fecha, datos.ubicacion, datos.descripcion,
+                asistentes, capacidad, listaEspera);
+        }
     }
-} 
\ No newline at end of file
+}
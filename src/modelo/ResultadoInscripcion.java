@@ -0,0 +1,11 @@
+package modelo;
+
+/**
+ * Resultado de inscribir un asistente en un evento que puede tener capacidad limitada
+ */
+public enum ResultadoInscripcion {
+    /** El asistente quedó inscripto */
+    INSCRIPTO,
+    /** El evento estaba completo: el asistente quedó al final de la lista de espera */
+    EN_ESPERA
+}
@@ -0,0 +1,178 @@
+package persistencia;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Archivo CSV comprimido por bloques. Después del identificador del formato cada bloque guarda
+ * su largo comprimido, su largo original y los datos comprimidos con Deflater (formato zlib,
+ * que incluye su propia suma de control). Los bloques terminan siempre en un fin de registro,
+ * así que cada uno se puede descomprimir y parsear por separado y en paralelo.
+ */
+class CSVComprimido {
+
+    static final int MAGICO = 0x43535A31; // "CSZ1"
+
+    /** Tamaño sin comprimir a partir del cual se cierra un bloque */
+    static final int TAMANIO_BLOQUE = 1 << 18;
+
+    private CSVComprimido() {
+    }
+
+    /**
+     * Escribe registros CSV agrupándolos en bloques comprimidos
+     */
+    static class Escritor {
+        private final DataOutputStream salida;
+        private final ByteArrayOutputStream bloque;
+        private final Deflater deflater;
+        private final Charset charset;
+        private final byte[] finDeLinea;
+        private byte[] comprimido;
+
+        /**
+         * @param destino Flujo donde escribir; queda vaciado pero abierto al terminar
+         */
+        Escritor(OutputStream destino) throws IOException {
+            this.salida = new DataOutputStream(destino);
+            this.bloque = new ByteArrayOutputStream(TAMANIO_BLOQUE + (TAMANIO_BLOQUE >> 2));
+            this.deflater = new Deflater();
+            this.charset = Charset.defaultCharset();
+            this.finDeLinea = System.lineSeparator().getBytes(charset);
+            this.comprimido = new byte[TAMANIO_BLOQUE];
+            salida.writeInt(MAGICO);
+        }
+
+        void escribirRegistro(String registro) throws IOException {
+            bloque.write(registro.getBytes(charset));
+            bloque.write(finDeLinea);
+            if (bloque.size() >= TAMANIO_BLOQUE) {
+                volcarBloque();
+            }
+        }
+
+        /**
+         * Escribe el último bloque y libera el compresor
+         */
+        void terminar() throws IOException {
+            try {
+                volcarBloque();
+                salida.flush();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void volcarBloque() throws IOException {
+            if (bloque.size() == 0) {
+                return;
+            }
+            byte[] datos = bloque.toByteArray();
+            deflater.reset();
+            deflater.setInput(datos);
+            deflater.finish();
+            int largo = 0;
+            while (!deflater.finished()) {
+                if (largo == comprimido.length) {
+                    byte[] ampliado = new byte[comprimido.length * 2];
+                    System.arraycopy(comprimido, 0, ampliado, 0, largo);
+                    comprimido = ampliado;
+                }
+                largo += deflater.deflate(comprimido, largo, comprimido.length - largo);
+            }
+            salida.writeInt(largo);
+            salida.writeInt(datos.length);
+            salida.write(comprimido, 0, largo);
+            bloque.reset();
+        }
+    }
+
+    /**
+     * Ubicación de un bloque dentro del archivo
+     */
+    static class Bloque {
+        final int posicion;
+        final int largoComprimido;
+        final int largoOriginal;
+
+        Bloque(int posicion, int largoComprimido, int largoOriginal) {
+            this.posicion = posicion;
+            this.largoComprimido = largoComprimido;
+            this.largoOriginal = largoOriginal;
+        }
+    }
+
+    /**
+     * Recorre los encabezados de los bloques sin descomprimirlos
+     * @return Bloques en el orden del archivo; vacío si el archivo está vacío
+     * @throws IOException si el archivo no tiene el formato esperado o está truncado
+     */
+    static List<Bloque> indexar(ByteBuffer contenido) throws IOException {
+        List<Bloque> bloques = new ArrayList<>();
+        if (contenido.limit() == 0) {
+            return bloques;
+        }
+        if (contenido.limit() < Integer.BYTES || contenido.getInt(0) != MAGICO) {
+            throw new IOException("El archivo no tiene el formato comprimido esperado");
+        }
+
+        int posicion = Integer.BYTES;
+        while (posicion < contenido.limit()) {
+            if (contenido.limit() - posicion < 2 * Integer.BYTES) {
+                throw new IOException("Bloque comprimido truncado");
+            }
+            int largoComprimido = contenido.getInt(posicion);
+            int largoOriginal = contenido.getInt(posicion + Integer.BYTES);
+            int datos = posicion + 2 * Integer.BYTES;
+            if (largoComprimido < 0 || largoOriginal < 0 || contenido.limit() - datos < largoComprimido) {
+                throw new IOException("Bloque comprimido truncado");
+            }
+            bloques.add(new Bloque(datos, largoComprimido, largoOriginal));
+            posicion = datos + largoComprimido;
+        }
+        return bloques;
+    }
+
+    /**
+     * Descomprime un bloque
+     * @return Bytes CSV del bloque
+     * @throws IOException si los datos comprimidos están dañados
+     */
+    static byte[] descomprimir(ByteBuffer contenido, Bloque bloque) throws IOException {
+        ByteBuffer vista = contenido.duplicate();
+        vista.limit(bloque.posicion + bloque.largoComprimido).position(bloque.posicion);
+        byte[] entrada = new byte[bloque.largoComprimido];
+        vista.get(entrada);
+
+        byte[] datos = new byte[bloque.largoOriginal];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(entrada);
+            int largo = 0;
+            while (!inflater.finished() && largo < datos.length) {
+                int leidos = inflater.inflate(datos, largo, datos.length - largo);
+                if (leidos == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                largo += leidos;
+            }
+            if (largo != datos.length || !inflater.finished()) {
+                throw new IOException("Bloque comprimido dañado");
+            }
+            return datos;
+        } catch (DataFormatException e) {
+            throw new IOException("Bloque comprimido dañado: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
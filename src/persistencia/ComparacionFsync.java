@@ -0,0 +1,152 @@
+package persistencia;
+
+import excepciones.PersistenciaException;
+import modelo.Asistente;
+import modelo.Evento;
+import util.Archivos;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Mide lo que cuesta cada {@link PoliticaFsync} en las tres escrituras que hace la persistencia:
+ * un registro suelto del diario, una transacción escrita como un lote y un guardado completo de
+ * los archivos de datos. Cada política se prueba en su propio subdirectorio, que se borra al terminar.
+ */
+public class ComparacionFsync {
+
+    private static final int REGISTROS_POR_LOTE = 10;
+    private static final int ASISTENTES_POR_GUARDADO = 1000;
+    private static final int EVENTOS_POR_GUARDADO = 100;
+
+    private final Path directorio;
+    private final int repeticiones;
+
+    /**
+     * @param directorio Directorio existente donde se crean los archivos de prueba
+     * @param repeticiones Veces que se repite cada escritura, mayor a 0
+     */
+    public ComparacionFsync(Path directorio, int repeticiones) {
+        if (repeticiones <= 0) {
+            throw new IllegalArgumentException("Las repeticiones deben ser mayores a 0");
+        }
+        this.directorio = directorio;
+        this.repeticiones = repeticiones;
+    }
+
+    /**
+     * Prueba todas las políticas, de la más durable a la menos durable
+     * @return Un resultado por política
+     * @throws PersistenciaException si falló alguna escritura
+     * @throws IOException si no se pudo crear o borrar un directorio de prueba
+     */
+    public List<Resultado> ejecutar() throws PersistenciaException, IOException {
+        List<Asistente> asistentes = new ArrayList<>(ASISTENTES_POR_GUARDADO);
+        for (int i = 1; i <= ASISTENTES_POR_GUARDADO; i++) {
+            asistentes.add(new Asistente(i, "Asistente " + i, "asistente" + i + "@mail.com", "1155550000"));
+        }
+        List<Evento> eventos = new ArrayList<>(EVENTOS_POR_GUARDADO);
+        for (int i = 1; i <= EVENTOS_POR_GUARDADO; i++) {
+            eventos.add(new Evento(i, "Evento " + i, LocalDate.now().plusDays(i), "Sala " + i, "Descripción"));
+        }
+
+        List<Resultado> resultados = new ArrayList<>();
+        for (PoliticaFsync politica : PoliticaFsync.values()) {
+            Path subdirectorio = Files.createDirectory(directorio.resolve(politica.name().toLowerCase(Locale.ROOT)));
+            try {
+                resultados.add(medir(politica, subdirectorio, eventos, asistentes));
+            } finally {
+                Archivos.borrarDirectorio(subdirectorio);
+            }
+        }
+        return resultados;
+    }
+
+    private Resultado medir(PoliticaFsync politica, Path subdirectorio, List<Evento> eventos,
+            List<Asistente> asistentes) throws PersistenciaException {
+        ConfiguracionPersistencia configuracion = new ConfiguracionPersistencia();
+        configuracion.setDiarioActivo(true);
+        configuracion.setPoliticaFsync(politica);
+        configuracion.setDirectorio(subdirectorio);
+        PersistenciaArchivos persistencia = new PersistenciaArchivos(configuracion);
+        try {
+            long inicio = System.nanoTime();
+            for (int i = 0; i < repeticiones; i++) {
+                persistencia.registrarInscripcion(1 + i % EVENTOS_POR_GUARDADO, 1 + i % ASISTENTES_POR_GUARDADO);
+            }
+            long registros = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            for (int i = 0; i < repeticiones; i++) {
+                LoteDiario lote = persistencia.nuevoLote();
+                for (int j = 0; j < REGISTROS_POR_LOTE; j++) {
+                    lote.registrarInscripcion(1 + j, 1 + i % ASISTENTES_POR_GUARDADO);
+                }
+                persistencia.registrarLote(lote);
+            }
+            long lotes = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            for (int i = 0; i < repeticiones; i++) {
+                persistencia.guardarDatos(eventos, asistentes);
+            }
+            long guardados = System.nanoTime() - inicio;
+
+            return new Resultado(politica, registros / repeticiones, lotes / repeticiones, guardados / repeticiones);
+        } finally {
+            persistencia.cerrar();
+        }
+    }
+
+    /**
+     * Tiempo promedio de cada tipo de escritura con una política
+     */
+    public static final class Resultado {
+        private final PoliticaFsync politica;
+        private final long registroNanos;
+        private final long loteNanos;
+        private final long guardadoNanos;
+
+        Resultado(PoliticaFsync politica, long registroNanos, long loteNanos, long guardadoNanos) {
+            this.politica = politica;
+            this.registroNanos = registroNanos;
+            this.loteNanos = loteNanos;
+            this.guardadoNanos = guardadoNanos;
+        }
+
+        public PoliticaFsync getPolitica() {
+            return politica;
+        }
+
+        /**
+         * @return Milisegundos por registro suelto del diario
+         */
+        public double getRegistroMs() {
+            return registroNanos / 1_000_000.0;
+        }
+
+        /**
+         * @return Milisegundos por transacción de varios registros escrita como un lote
+         */
+        public double getLoteMs() {
+            return loteNanos / 1_000_000.0;
+        }
+
+        /**
+         * @return Milisegundos por guardado completo de eventos y asistentes
+         */
+        public double getGuardadoMs() {
+            return guardadoNanos / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-9s registro: %.3f ms, lote de %d: %.3f ms, guardado completo: %.3f ms",
+                politica, getRegistroMs(), REGISTROS_POR_LOTE, getLoteMs(), getGuardadoMs());
+        }
+    }
+}
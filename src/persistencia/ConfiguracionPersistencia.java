@@ -0,0 +1,213 @@
+package persistencia;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Opciones que controlan cómo se almacenan los datos en disco
+ */
+public class ConfiguracionPersistencia {
+
+    public static final int UMBRAL_COMPACTACION_POR_DEFECTO = 10000;
+    public static final long INTERVALO_ESCRITURA_POR_DEFECTO_MS = 200;
+    public static final int UMBRAL_ESCRITURA_POR_DEFECTO = 500;
+
+    private boolean diarioActivo;
+    private int umbralCompactacion;
+    private FormatoAlmacenamiento formato;
+    private int paralelismoCarga;
+    private boolean escrituraDiferida;
+    private long intervaloEscrituraMs;
+    private int umbralEscritura;
+    private ConfirmacionEscritura confirmacion;
+    private PoliticaFsync politicaFsync;
+    private Path directorio;
+
+    public ConfiguracionPersistencia() {
+        this.diarioActivo = false;
+        this.umbralCompactacion = UMBRAL_COMPACTACION_POR_DEFECTO;
+        this.formato = FormatoAlmacenamiento.CSV;
+        this.paralelismoCarga = Runtime.getRuntime().availableProcessors();
+        this.escrituraDiferida = false;
+        this.intervaloEscrituraMs = INTERVALO_ESCRITURA_POR_DEFECTO_MS;
+        this.umbralEscritura = UMBRAL_ESCRITURA_POR_DEFECTO;
+        this.confirmacion = ConfirmacionEscritura.EN_MEMORIA;
+        this.politicaFsync = PoliticaFsync.POR_LOTES;
+        this.directorio = Paths.get("");
+    }
+
+    /**
+     * Crea una configuración a partir de las propiedades del sistema
+     * (por ejemplo: -Deventos.diario=true -Deventos.diario.umbral=5000 -Deventos.formato=binario
+     * -Deventos.carga.paralelismo=4 -Deventos.diferida=true -Deventos.diferida.intervalo=200
+     * -Deventos.diferida.umbral=500 -Deventos.diferida.confirmacion=tras_commit
+     * -Deventos.fsync=siempre -Deventos.directorio=datos)
+     * @return Configuración con los valores indicados o los valores por defecto
+     */
+    public static ConfiguracionPersistencia desdePropiedadesSistema() {
+        ConfiguracionPersistencia configuracion = new ConfiguracionPersistencia();
+        configuracion.setDiarioActivo(Boolean.getBoolean("eventos.diario"));
+        configuracion.setUmbralCompactacion(
+            Integer.getInteger("eventos.diario.umbral", UMBRAL_COMPACTACION_POR_DEFECTO));
+        configuracion.setFormato(FormatoAlmacenamiento.desdeNombre(
+            System.getProperty("eventos.formato", FormatoAlmacenamiento.CSV.name())));
+        configuracion.setParalelismoCarga(
+            Integer.getInteger("eventos.carga.paralelismo", configuracion.getParalelismoCarga()));
+        configuracion.setEscrituraDiferida(Boolean.getBoolean("eventos.diferida"));
+        configuracion.setIntervaloEscrituraMs(
+            Long.getLong("eventos.diferida.intervalo", INTERVALO_ESCRITURA_POR_DEFECTO_MS));
+        configuracion.setUmbralEscritura(
+            Integer.getInteger("eventos.diferida.umbral", UMBRAL_ESCRITURA_POR_DEFECTO));
+        configuracion.setConfirmacion(ConfirmacionEscritura.desdeNombre(
+            System.getProperty("eventos.diferida.confirmacion", ConfirmacionEscritura.EN_MEMORIA.name())));
+        configuracion.setPoliticaFsync(PoliticaFsync.desdeNombre(
+            System.getProperty("eventos.fsync", PoliticaFsync.POR_LOTES.name())));
+        configuracion.setDirectorio(Paths.get(System.getProperty("eventos.directorio", "")));
+        return configuracion;
+    }
+
+    public boolean isDiarioActivo() {
+        return diarioActivo;
+    }
+
+    /**
+     * Activa el modo diario: cada cambio se agrega al archivo de diario en lugar
+     * de reescribir los archivos CSV completos
+     * @param diarioActivo true para activar el diario
+     */
+    public void setDiarioActivo(boolean diarioActivo) {
+        this.diarioActivo = diarioActivo;
+    }
+
+    public int getUmbralCompactacion() {
+        return umbralCompactacion;
+    }
+
+    /**
+     * Cantidad de registros en el diario a partir de la cual se reescriben
+     * los archivos CSV y se vacía el diario
+     * @param umbralCompactacion Cantidad de registros, mayor a 0
+     */
+    public void setUmbralCompactacion(int umbralCompactacion) {
+        if (umbralCompactacion <= 0) {
+            throw new IllegalArgumentException("El umbral de compactación debe ser mayor a 0");
+        }
+        this.umbralCompactacion = umbralCompactacion;
+    }
+
+    public FormatoAlmacenamiento getFormato() {
+        return formato;
+    }
+
+    public void setFormato(FormatoAlmacenamiento formato) {
+        if (formato == null) {
+            throw new IllegalArgumentException("El formato no puede ser nulo");
+        }
+        this.formato = formato;
+    }
+
+    public int getParalelismoCarga() {
+        return paralelismoCarga;
+    }
+
+    /**
+     * Cantidad de hilos con que se leen los archivos CSV. Con 1 la lectura es secuencial;
+     * los archivos de menos de 1 MB por hilo se leen igual en un solo rango.
+     * @param paralelismoCarga Cantidad de hilos, mayor a 0
+     */
+    public void setParalelismoCarga(int paralelismoCarga) {
+        if (paralelismoCarga <= 0) {
+            throw new IllegalArgumentException("El paralelismo de carga debe ser mayor a 0");
+        }
+        this.paralelismoCarga = paralelismoCarga;
+    }
+
+    public boolean isEscrituraDiferida() {
+        return escrituraDiferida;
+    }
+
+    /**
+     * Activa la escritura diferida: los registros del diario se acumulan en memoria y un hilo
+     * propio los escribe por lotes. Implica el modo diario.
+     * @param escrituraDiferida true para activar la escritura diferida
+     */
+    public void setEscrituraDiferida(boolean escrituraDiferida) {
+        this.escrituraDiferida = escrituraDiferida;
+    }
+
+    public long getIntervaloEscrituraMs() {
+        return intervaloEscrituraMs;
+    }
+
+    /**
+     * Tiempo máximo que un cambio espera en memoria antes de escribirse en el diario
+     * @param intervaloEscrituraMs Milisegundos, mayor a 0
+     */
+    public void setIntervaloEscrituraMs(long intervaloEscrituraMs) {
+        if (intervaloEscrituraMs <= 0) {
+            throw new IllegalArgumentException("El intervalo de escritura debe ser mayor a 0");
+        }
+        this.intervaloEscrituraMs = intervaloEscrituraMs;
+    }
+
+    public int getUmbralEscritura() {
+        return umbralEscritura;
+    }
+
+    /**
+     * Cantidad de cambios pendientes a partir de la cual se escribe el lote sin esperar el intervalo
+     * @param umbralEscritura Cantidad de registros, mayor a 0
+     */
+    public void setUmbralEscritura(int umbralEscritura) {
+        if (umbralEscritura <= 0) {
+            throw new IllegalArgumentException("El umbral de escritura debe ser mayor a 0");
+        }
+        this.umbralEscritura = umbralEscritura;
+    }
+
+    public ConfirmacionEscritura getConfirmacion() {
+        return confirmacion;
+    }
+
+    /**
+     * Define si un cambio se confirma al quedar en memoria (menor latencia) o recién cuando
+     * su lote se escribió en el diario (mayor durabilidad)
+     */
+    public void setConfirmacion(ConfirmacionEscritura confirmacion) {
+        if (confirmacion == null) {
+            throw new IllegalArgumentException("La confirmación no puede ser nula");
+        }
+        this.confirmacion = confirmacion;
+    }
+
+    public PoliticaFsync getPoliticaFsync() {
+        return politicaFsync;
+    }
+
+    /**
+     * Define cuándo se fuerza a disco lo escrito: a más escrituras forzadas, mayor
+     * durabilidad frente a cortes de energía y mayor latencia
+     */
+    public void setPoliticaFsync(PoliticaFsync politicaFsync) {
+        if (politicaFsync == null) {
+            throw new IllegalArgumentException("La política de fsync no puede ser nula");
+        }
+        this.politicaFsync = politicaFsync;
+    }
+
+    public Path getDirectorio() {
+        return directorio;
+    }
+
+    /**
+     * Directorio donde se guardan los archivos de datos, el diario y el manifiesto.
+     * Por defecto es el directorio de trabajo.
+     * @param directorio Directorio existente
+     */
+    public void setDirectorio(Path directorio) {
+        if (directorio == null) {
+            throw new IllegalArgumentException("El directorio no puede ser nulo");
+        }
+        this.directorio = directorio;
+    }
+}
@@ -0,0 +1,25 @@
+package persistencia;
+
+/**
+ * Momento en que se considera confirmado un cambio cuando la escritura es diferida
+ */
+public enum ConfirmacionEscritura {
+    /** El cambio se confirma apenas queda en memoria; un corte puede perder el último lote */
+    EN_MEMORIA,
+    /** El cambio se confirma luego de que el lote que lo contiene se escribió en el diario */
+    TRAS_COMMIT;
+
+    /**
+     * Obtiene la confirmación a partir de su nombre, sin distinguir mayúsculas
+     * @param nombre Nombre de la confirmación (por ejemplo "en_memoria" o "tras_commit")
+     * @return Confirmación correspondiente
+     */
+    public static ConfirmacionEscritura desdeNombre(String nombre) {
+        for (ConfirmacionEscritura confirmacion : values()) {
+            if (confirmacion.name().equalsIgnoreCase(nombre.trim())) {
+                return confirmacion;
+            }
+        }
+        throw new IllegalArgumentException("Confirmación de escritura desconocida: " + nombre);
+    }
+}
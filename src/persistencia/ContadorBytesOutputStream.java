@@ -0,0 +1,33 @@
+package persistencia;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Flujo de salida que cuenta los bytes que se escriben a través de él
+ */
+class ContadorBytesOutputStream extends FilterOutputStream {
+
+    private long bytesEscritos;
+
+    ContadorBytesOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        bytesEscritos++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        bytesEscritos += len;
+    }
+
+    long getBytesEscritos() {
+        return bytesEscritos;
+    }
+}
@@ -0,0 +1,48 @@
+package persistencia;
+
+import modelo.Asistente;
+import modelo.Evento;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resultado de la carga de los archivos: eventos y asistentes ya vinculados entre sí, y los IDs
+ * de los que difieren de los archivos de datos del formato configurado
+ */
+public class DatosCargados {
+    private final List<Evento> eventos;
+    private final List<Asistente> asistentes;
+    private final Set<Integer> eventosModificados;
+    private final Set<Integer> asistentesModificados;
+
+    public DatosCargados(List<Evento> eventos, List<Asistente> asistentes,
+                         Set<Integer> eventosModificados, Set<Integer> asistentesModificados) {
+        this.eventos = eventos;
+        this.asistentes = asistentes;
+        this.eventosModificados = eventosModificados;
+        this.asistentesModificados = asistentesModificados;
+    }
+
+    public List<Evento> getEventos() {
+        return eventos;
+    }
+
+    public List<Asistente> getAsistentes() {
+        return asistentes;
+    }
+
+    /**
+     * @return IDs de los eventos cambiados o eliminados por el diario, o de todos si se leyeron de
+     * otro formato: hasta el próximo guardado, el archivo de eventos no los refleja
+     */
+    public Set<Integer> getEventosModificados() {
+        return eventosModificados;
+    }
+
+    /**
+     * @return IDs de los asistentes que el archivo de asistentes todavía no refleja
+     */
+    public Set<Integer> getAsistentesModificados() {
+        return asistentesModificados;
+    }
+}
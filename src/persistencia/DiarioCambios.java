@@ -0,0 +1,176 @@
+package persistencia;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Archivo de diario donde cada cambio se agrega al final como un registro CSV.
+ * Los registros se leen respetando los campos entre comillas que contienen saltos de línea.
+ * Admite que varios hilos agreguen registros a la vez: cada llamada escribe los suyos sin mezclarlos.
+ */
+class DiarioCambios {
+
+    private Path archivo;
+    private BufferedWriter writer;
+    private FileOutputStream salida;
+    private ContadorBytesOutputStream contador;
+    private volatile int cantidadRegistros; // Se consulta sin bloquear mientras se escribe un lote
+
+    DiarioCambios(Path archivo) {
+        this.archivo = archivo;
+        this.cantidadRegistros = 0;
+    }
+
+    /**
+     * Agrega un registro al final del diario y lo vuelca al archivo
+     * @param registro Línea CSV ya formateada
+     * @param forzar true para forzar la escritura física a disco luego de volcar
+     * @return Cantidad de bytes escritos en el archivo
+     * @throws IOException si no se pudo escribir
+     */
+    long agregar(String registro, boolean forzar) throws IOException {
+        return agregarTodos(Collections.singletonList(registro), forzar);
+    }
+
+    /**
+     * Agrega varios registros al final del diario con un único volcado al archivo. Si la
+     * escritura falla, el archivo se recorta al largo que tenía, para que reintentar los mismos
+     * registros no deje repetidos los que llegaron a escribirse.
+     * @param registros Líneas CSV ya formateadas
+     * @param forzar true para forzar la escritura física a disco luego de volcar
+     * @return Cantidad de bytes escritos en el archivo
+     * @throws IOException si no se pudo escribir
+     */
+    synchronized long agregarTodos(List<String> registros, boolean forzar) throws IOException {
+        if (writer == null) {
+            salida = new FileOutputStream(archivo.toFile(), true);
+            contador = new ContadorBytesOutputStream(salida);
+            writer = new BufferedWriter(new OutputStreamWriter(contador, Charset.defaultCharset()));
+        }
+        long largoAntes = salida.getChannel().size();
+        long bytesAntes = contador.getBytesEscritos();
+        try {
+            for (String registro : registros) {
+                writer.write(registro);
+                writer.newLine();
+            }
+            writer.flush();
+            if (forzar) {
+                salida.getFD().sync();
+            }
+        } catch (IOException e) {
+            descartarEscrituraParcial(largoAntes, e);
+            throw e;
+        }
+        cantidadRegistros += registros.size();
+        return contador.getBytesEscritos() - bytesAntes;
+    }
+
+    /**
+     * Descarta el writer, con lo que haya quedado en su buffer, y recorta el archivo
+     * @param error Error de la escritura, al que se agregan los de esta limpieza
+     */
+    private void descartarEscrituraParcial(long largo, IOException error) {
+        try {
+            salida.close();
+        } catch (IOException e) {
+            error.addSuppressed(e);
+        }
+        writer = null;
+        salida = null;
+        contador = null;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            if (canal.size() > largo) {
+                canal.truncate(largo);
+            }
+        } catch (IOException e) {
+            error.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Lee todos los registros del diario en el orden en que fueron agregados. Cada registro
+     * termina en un salto de línea fuera de comillas: si el último no lo tiene, su escritura se
+     * interrumpió y se descarta, recortándolo del archivo para que los registros que se agreguen
+     * después no queden pegados a él.
+     * @return Lista de registros; vacía si el diario no existe
+     * @throws IOException si no se pudo leer o recortar
+     */
+    synchronized List<String> leer() throws IOException {
+        List<String> registros = new ArrayList<>();
+        if (!Files.exists(archivo)) {
+            return registros;
+        }
+
+        byte[] contenido = Files.readAllBytes(archivo);
+        Charset charset = Charset.defaultCharset();
+        int inicio = 0; // Comienzo del registro actual
+        boolean dentroComillas = false;
+        for (int i = 0; i < contenido.length; i++) {
+            if (contenido[i] == '"') {
+                dentroComillas = !dentroComillas;
+            } else if (contenido[i] == '\n' && !dentroComillas) {
+                // Un salto de línea dentro de comillas es parte del campo y se conserva tal cual;
+                // solo se quita el \r del fin de registro que agrega newLine() en Windows
+                int fin = i > inicio && contenido[i - 1] == '\r' ? i - 1 : i;
+                String registro = new String(contenido, inicio, fin - inicio, charset);
+                if (!registro.trim().isEmpty()) {
+                    registros.add(registro);
+                }
+                inicio = i + 1;
+            }
+        }
+
+        if (inicio < contenido.length) {
+            System.err.println("Registro incompleto al final del diario descartado ("
+                + (contenido.length - inicio) + " bytes)");
+            cerrar();
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+                canal.truncate(inicio);
+            }
+        }
+
+        cantidadRegistros = registros.size();
+        return registros;
+    }
+
+    /**
+     * Pasa a agregar los registros en otro archivo, el del diario de la generación siguiente,
+     * que empieza vacío. El archivo anterior queda como estaba.
+     * @param nuevo Archivo del nuevo diario
+     * @throws IOException si no se pudo cerrar el archivo anterior
+     */
+    synchronized void cambiarArchivo(Path nuevo) throws IOException {
+        cerrar();
+        Files.deleteIfExists(nuevo);
+        archivo = nuevo;
+        cantidadRegistros = 0;
+    }
+
+    synchronized Path getArchivo() {
+        return archivo;
+    }
+
+    synchronized void cerrar() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            salida = null;
+            contador = null;
+        }
+    }
+
+    int getCantidadRegistros() {
+        return cantidadRegistros;
+    }
+}
@@ -0,0 +1,180 @@
+package persistencia;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acumula los registros del diario en memoria y los escribe por lotes desde un hilo propio,
+ * cada cierto intervalo o cuando se juntan suficientes registros. Cada lote se agrega al
+ * diario con un único volcado al archivo.
+ * <p>
+ * Si la escritura de un lote falla, el error se informa a quienes esperan ese lote y sus
+ * registros vuelven al principio de la cola: se reintentan con el lote siguiente, antes que los
+ * registros agregados después, así que el diario no queda con huecos ni fuera de orden.
+ */
+class EscritorDiferido {
+
+    private final DiarioCambios diario;
+    private final int umbral;
+    private final boolean forzar;
+    private final ScheduledExecutorService hilo;
+
+    // Protege la cola de pendientes; la escritura del lote se hace fuera de este bloqueo
+    private final Object bloqueoCola = new Object();
+    // Serializa las escrituras en el diario entre el hilo propio y las llamadas a volcar
+    private final Object bloqueoEscritura = new Object();
+
+    private List<String> pendientes = new ArrayList<>();
+    private CompletableFuture<Void> loteActual = new CompletableFuture<>();
+
+    /**
+     * @param diario Diario donde se escriben los lotes
+     * @param intervaloMs Tiempo máximo que un registro espera en memoria
+     * @param umbral Cantidad de registros pendientes que adelanta la escritura del lote
+     * @param forzar true para forzar cada lote a disco
+     */
+    EscritorDiferido(DiarioCambios diario, long intervaloMs, int umbral, boolean forzar) {
+        this.diario = diario;
+        this.umbral = umbral;
+        this.forzar = forzar;
+        this.hilo = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread t = new Thread(tarea, "escritura-diario");
+            t.setDaemon(true);
+            return t;
+        });
+        hilo.scheduleWithFixedDelay(this::volcarEnSegundoPlano, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deja el registro en la cola del próximo lote
+     * @return Futuro que se completa cuando se escribió el lote que contiene el registro
+     * @throws IOException si la escritura diferida ya está cerrada
+     */
+    CompletableFuture<Void> agregar(String registro) throws IOException {
+        return agregarTodos(Collections.singletonList(registro));
+    }
+
+    /**
+     * Deja los registros en la cola, seguidos y en el mismo lote
+     * @return Futuro que se completa cuando se escribió el lote que contiene los registros, o
+     * con el error si esa escritura falló
+     * @throws IOException si la escritura diferida ya está cerrada
+     */
+    CompletableFuture<Void> agregarTodos(List<String> registros) throws IOException {
+        boolean loteCompleto;
+        CompletableFuture<Void> lote;
+        synchronized (bloqueoCola) {
+            int anteriores = pendientes.size();
+            pendientes.addAll(registros);
+            lote = loteActual;
+            loteCompleto = anteriores < umbral && pendientes.size() >= umbral;
+        }
+        if (loteCompleto) {
+            try {
+                hilo.execute(this::volcarEnSegundoPlano);
+            } catch (RejectedExecutionException e) {
+                throw new IOException("La escritura diferida está cerrada", e);
+            }
+        }
+        return lote;
+    }
+
+    /**
+     * Escribe los registros pendientes, incluidos los de lotes que fallaron, y espera a que
+     * terminen las escrituras en curso
+     * @throws IOException si falló esta escritura; los registros siguen en la cola
+     */
+    void volcar() throws IOException {
+        escribirLote();
+    }
+
+    /**
+     * Pasa el diario al nuevo archivo, sin que otro lote se escriba en el medio. Se llama después de
+     * confirmar un guardado que ya incluye los cambios que esperan en la cola: no se escriben en
+     * ninguno de los dos diarios y quienes los esperan los reciben como confirmados.
+     * @see DiarioCambios#cambiarArchivo(Path)
+     */
+    void cambiarArchivo(Path nuevo) throws IOException {
+        synchronized (bloqueoEscritura) {
+            CompletableFuture<Void> guardados;
+            synchronized (bloqueoCola) {
+                guardados = loteActual;
+                pendientes = new ArrayList<>();
+                loteActual = new CompletableFuture<>();
+            }
+            guardados.complete(null);
+            diario.cambiarArchivo(nuevo);
+        }
+    }
+
+    /**
+     * Escribe los registros pendientes y detiene el hilo de escritura
+     */
+    void cerrar() throws IOException {
+        hilo.shutdown();
+        try {
+            hilo.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (bloqueoEscritura) {
+            volcar();
+            diario.cerrar();
+        }
+    }
+
+    /**
+     * @return Registros escritos en el diario más los que esperan en la cola
+     */
+    int getCantidadRegistros() {
+        synchronized (bloqueoCola) {
+            return diario.getCantidadRegistros() + pendientes.size();
+        }
+    }
+
+    private void volcarEnSegundoPlano() {
+        try {
+            escribirLote();
+        } catch (IOException e) {
+            // Quienes esperaban el lote ya recibieron el error; sus registros se reintentan en la próxima vuelta
+            System.err.println("No se pudo escribir un lote del diario, se reintentará: " + e.getMessage());
+        }
+    }
+
+    private void escribirLote() throws IOException {
+        synchronized (bloqueoEscritura) {
+            List<String> lote;
+            CompletableFuture<Void> confirmacion;
+            synchronized (bloqueoCola) {
+                if (pendientes.isEmpty()) {
+                    return;
+                }
+                lote = pendientes;
+                confirmacion = loteActual;
+                pendientes = new ArrayList<>();
+                loteActual = new CompletableFuture<>();
+            }
+
+            try {
+                diario.agregarTodos(lote, forzar);
+            } catch (IOException e) {
+                synchronized (bloqueoCola) {
+                    // Mientras se escribía pudieron agregarse registros: van después de los del lote fallido
+                    lote.addAll(pendientes);
+                    pendientes = lote;
+                }
+                confirmacion.completeExceptionally(e);
+                throw e;
+            }
+            confirmacion.complete(null);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package persistencia;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Escribe un archivo en un temporal al lado del destino y lo reemplaza con un renombrado
+ * atómico, de modo que el destino siempre tiene la versión anterior completa o la nueva completa.
+ * Mientras se escribe se calculan el tamaño y el CRC32 del contenido para el manifiesto.
+ */
+class EscrituraAtomica implements Closeable {
+
+    static final String SUFIJO_TEMPORAL = ".tmp";
+
+    private final Path destino;
+    private final Path temporal;
+    private final FileOutputStream archivo;
+    private final CRC32 crc;
+    private final ContadorBytesOutputStream salida;
+    private boolean cerrado;
+
+    EscrituraAtomica(Path destino) throws IOException {
+        this.destino = destino;
+        this.temporal = temporalDe(destino);
+        this.archivo = new FileOutputStream(temporal.toFile());
+        this.crc = new CRC32();
+        this.salida = new ContadorBytesOutputStream(new CheckedOutputStream(archivo, crc));
+    }
+
+    static Path temporalDe(Path destino) {
+        return destino.resolveSibling(destino.getFileName() + SUFIJO_TEMPORAL);
+    }
+
+    /**
+     * Flujo donde escribir el contenido. Quien escribe debe vaciar sus buffers pero no cerrarlo.
+     */
+    OutputStream getSalida() {
+        return salida;
+    }
+
+    /**
+     * Termina de escribir el temporal, forzándolo a disco si se pide
+     * @return Tamaño y CRC del contenido escrito
+     * @throws IOException si no se pudo completar la escritura
+     */
+    Manifiesto.Entrada terminar(boolean forzar) throws IOException {
+        salida.flush();
+        if (forzar) {
+            archivo.getFD().sync();
+        }
+        archivo.close();
+        cerrado = true;
+        return new Manifiesto.Entrada(salida.getBytesEscritos(), crc.getValue());
+    }
+
+    /**
+     * Reemplaza el destino por el temporal ya terminado
+     * @throws IOException si no se pudo renombrar
+     */
+    void reemplazar() throws IOException {
+        reemplazar(temporal, destino);
+    }
+
+    /**
+     * Cierra el temporal si quedó abierto y lo borra si no reemplazó al destino
+     */
+    @Override
+    public void close() throws IOException {
+        if (!cerrado) {
+            archivo.close();
+            cerrado = true;
+        }
+        Files.deleteIfExists(temporal);
+    }
+
+    static void reemplazar(Path origen, Path destino) throws IOException {
+        try {
+            Files.move(origen, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(origen, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Fuerza a disco las entradas del directorio, para que los renombrados sobrevivan a un corte.
+     * En los sistemas que no permiten abrir un directorio no hace nada.
+     */
+    static void sincronizarDirectorio(Path directorio) {
+        try (FileChannel canal = FileChannel.open(directorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // No soportado en este sistema: los renombrados quedan a cargo del sistema operativo
+        }
+    }
+}
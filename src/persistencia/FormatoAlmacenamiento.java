@@ -0,0 +1,25 @@
+package persistencia;
+
+/**
+ * Formatos disponibles para los archivos de datos
+ */
+public enum FormatoAlmacenamiento {
+    CSV,
+    BINARIO,
+    /** CSV comprimido por bloques que se pueden leer en paralelo */
+    COMPRIMIDO;
+
+    /**
+     * Obtiene el formato a partir de su nombre, sin distinguir mayúsculas
+     * @param nombre Nombre del formato (por ejemplo "csv", "binario" o "comprimido")
+     * @return Formato correspondiente
+     */
+    public static FormatoAlmacenamiento desdeNombre(String nombre) {
+        for (FormatoAlmacenamiento formato : values()) {
+            if (formato.name().equalsIgnoreCase(nombre.trim())) {
+                return formato;
+            }
+        }
+        throw new IllegalArgumentException("Formato de almacenamiento desconocido: " + nombre);
+    }
+}
@@ -0,0 +1,269 @@
+package persistencia;
+
+import util.Archivos;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Lee un archivo CSV dividiéndolo en rangos de bytes que se procesan en paralelo.
+ * <p>
+ * Los rangos se alinean a límites de registro teniendo en cuenta los campos entre comillas
+ * que contienen saltos de línea: en una primera pasada cada rango cuenta sus comillas y
+ * ubica su primer salto de línea para cada paridad posible de comillas; con la paridad
+ * acumulada de los rangos anteriores se elige el salto que queda fuera de comillas.
+ * En la segunda pasada cada rango se parsea en su propio worker y los resultados se unen
+ * en el orden del archivo.
+ */
+class LectorCSVParalelo {
+
+    /** Tamaño mínimo de un rango; los archivos chicos se leen en un solo rango */
+    static final int TAMANIO_MINIMO_RANGO = 1 << 20;
+
+    /**
+     * Convierte el registro actual del tokenizador en un objeto del modelo
+     */
+    @FunctionalInterface
+    interface ParserRegistro<T> {
+        T parsear(TokenizadorCSV registro) throws Exception;
+    }
+
+    private final int paralelismo;
+
+    LectorCSVParalelo(int paralelismo) {
+        this.paralelismo = paralelismo;
+    }
+
+    /**
+     * Lee todos los registros del archivo
+     * @param archivo Archivo CSV
+     * @param parser Conversión de cada registro
+     * @param tipoRegistro Nombre del tipo de registro para los mensajes de error
+     * @return Registros parseados en el orden del archivo; los que tienen errores se informan y se omiten
+     * @throws IOException si no se pudo leer el archivo
+     */
+    <T> List<T> leer(Path archivo, ParserRegistro<T> parser, String tipoRegistro) throws IOException {
+        ByteBuffer contenido = Archivos.leerCompleto(archivo);
+        int cantidadRangos = (int) Math.max(1, Math.min(paralelismo,
+            (long) contenido.limit() / TAMANIO_MINIMO_RANGO));
+
+        if (cantidadRangos == 1) {
+            ResultadoRango<T> resultado = new TareaParseo<>(contenido, 0, contenido.limit(), parser).call();
+            return unir(List.of(resultado), tipoRegistro);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(cantidadRangos);
+        try {
+            int[] limites = calcularLimites(contenido, cantidadRangos, pool);
+            List<Callable<ResultadoRango<T>>> tareas = new ArrayList<>();
+            for (int i = 0; i + 1 < limites.length; i++) {
+                if (limites[i] < limites[i + 1]) {
+                    tareas.add(new TareaParseo<>(contenido, limites[i], limites[i + 1], parser));
+                }
+            }
+
+            List<ResultadoRango<T>> resultados = new ArrayList<>();
+            for (Future<ResultadoRango<T>> futuro : pool.invokeAll(tareas)) {
+                resultados.add(obtener(futuro));
+            }
+            return unir(resultados, tipoRegistro);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Lee todos los registros de un archivo CSV comprimido por bloques. Cada bloque se
+     * descomprime y se parsea en su propio worker, ya que todos terminan en un fin de registro.
+     * @param archivo Archivo comprimido
+     * @param parser Conversión de cada registro
+     * @param tipoRegistro Nombre del tipo de registro para los mensajes de error
+     * @return Registros parseados en el orden del archivo; los que tienen errores se informan y se omiten
+     * @throws IOException si no se pudo leer el archivo o está dañado
+     */
+    <T> List<T> leerComprimido(Path archivo, ParserRegistro<T> parser, String tipoRegistro) throws IOException {
+        ByteBuffer contenido = Archivos.leerCompleto(archivo);
+        List<CSVComprimido.Bloque> bloques = CSVComprimido.indexar(contenido);
+        List<Callable<ResultadoRango<T>>> tareas = new ArrayList<>();
+        for (CSVComprimido.Bloque bloque : bloques) {
+            tareas.add(() -> {
+                byte[] datos = CSVComprimido.descomprimir(contenido, bloque);
+                return new TareaParseo<>(ByteBuffer.wrap(datos), 0, datos.length, parser).call();
+            });
+        }
+
+        List<ResultadoRango<T>> resultados = new ArrayList<>();
+        if (paralelismo == 1 || tareas.size() <= 1) {
+            for (Callable<ResultadoRango<T>> tarea : tareas) {
+                try {
+                    resultados.add(tarea.call());
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Error al leer el archivo: " + e.getMessage(), e);
+                }
+            }
+            return unir(resultados, tipoRegistro);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.min(paralelismo, tareas.size()));
+        try {
+            for (Future<ResultadoRango<T>> futuro : pool.invokeAll(tareas)) {
+                resultados.add(obtener(futuro));
+            }
+            return unir(resultados, tipoRegistro);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Primera pasada: busca en paralelo, para cada rango crudo, el inicio del primer registro
+     * @return Posiciones de inicio de cada rango alineadas a registros, más el fin del archivo
+     */
+    private int[] calcularLimites(ByteBuffer contenido, int cantidadRangos, ForkJoinPool pool) throws IOException {
+        int tamanio = contenido.limit();
+        List<Callable<EscaneoRango>> escaneos = new ArrayList<>();
+        for (int i = 0; i < cantidadRangos; i++) {
+            int desde = (int) ((long) tamanio * i / cantidadRangos);
+            int hasta = (int) ((long) tamanio * (i + 1) / cantidadRangos);
+            escaneos.add(() -> EscaneoRango.escanear(contenido, desde, hasta));
+        }
+
+        int[] limites = new int[cantidadRangos + 1];
+        limites[cantidadRangos] = tamanio;
+        boolean dentroComillas = false;
+        int i = 0;
+        for (Future<EscaneoRango> futuro : pool.invokeAll(escaneos)) {
+            EscaneoRango escaneo = obtener(futuro);
+            if (i > 0) {
+                int salto = dentroComillas ? escaneo.primerSaltoImpar : escaneo.primerSaltoPar;
+                // Sin salto de línea fuera de comillas el rango se une al siguiente
+                limites[i] = salto >= 0 ? salto + 1 : limites[cantidadRangos];
+            }
+            dentroComillas ^= escaneo.comillasImpares;
+            i++;
+        }
+
+        // Un rango sin inicio propio empieza donde empieza el siguiente
+        for (int j = cantidadRangos - 1; j > 0; j--) {
+            limites[j] = Math.min(limites[j], limites[j + 1]);
+        }
+        return limites;
+    }
+
+    private <T> List<T> unir(List<ResultadoRango<T>> resultados, String tipoRegistro) {
+        int total = 0;
+        for (ResultadoRango<T> resultado : resultados) {
+            total += resultado.registros.size();
+        }
+
+        List<T> registros = new ArrayList<>(total);
+        int lineaInicial = 1;
+        for (ResultadoRango<T> resultado : resultados) {
+            registros.addAll(resultado.registros);
+            for (ErrorRegistro error : resultado.errores) {
+                System.err.println("Error al parsear " + tipoRegistro + " (línea " + (lineaInicial + error.linea)
+                    + "): " + error.registro + " - " + error.mensaje);
+            }
+            lineaInicial += resultado.lineas;
+        }
+        return registros;
+    }
+
+    private static <R> R obtener(Future<R> futuro) throws IOException {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Lectura interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error al leer el archivo: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Resultado de la primera pasada sobre un rango crudo de bytes
+     */
+    private static class EscaneoRango {
+        boolean comillasImpares;
+        int primerSaltoPar = -1;   // primer salto con cantidad par de comillas desde el inicio del rango
+        int primerSaltoImpar = -1; // primer salto con cantidad impar de comillas desde el inicio del rango
+
+        static EscaneoRango escanear(ByteBuffer contenido, int desde, int hasta) {
+            EscaneoRango escaneo = new EscaneoRango();
+            boolean impar = false;
+            for (int i = desde; i < hasta; i++) {
+                byte b = contenido.get(i);
+                if (b == '"') {
+                    impar = !impar;
+                } else if (b == '\n') {
+                    if (!impar && escaneo.primerSaltoPar < 0) {
+                        escaneo.primerSaltoPar = i;
+                    } else if (impar && escaneo.primerSaltoImpar < 0) {
+                        escaneo.primerSaltoImpar = i;
+                    }
+                }
+            }
+            escaneo.comillasImpares = impar;
+            return escaneo;
+        }
+    }
+
+    /**
+     * Segunda pasada: parsea los registros de un rango alineado
+     */
+    private static class TareaParseo<T> implements Callable<ResultadoRango<T>> {
+        private final ByteBuffer contenido;
+        private final int desde;
+        private final int hasta;
+        private final ParserRegistro<T> parser;
+
+        TareaParseo(ByteBuffer contenido, int desde, int hasta, ParserRegistro<T> parser) {
+            this.contenido = contenido;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.parser = parser;
+        }
+
+        @Override
+        public ResultadoRango<T> call() {
+            ResultadoRango<T> resultado = new ResultadoRango<>();
+            TokenizadorCSV tokenizador = new TokenizadorCSV(contenido, desde, hasta);
+            while (tokenizador.siguienteRegistro()) {
+                try {
+                    resultado.registros.add(parser.parsear(tokenizador));
+                } catch (Exception e) {
+                    resultado.errores.add(new ErrorRegistro(tokenizador.getLineaRegistro(),
+                        tokenizador.registroComoTexto(), e.getMessage()));
+                }
+            }
+            resultado.lineas = tokenizador.getLineas();
+            return resultado;
+        }
+    }
+
+    private static class ResultadoRango<T> {
+        final List<T> registros = new ArrayList<>();
+        final List<ErrorRegistro> errores = new ArrayList<>();
+        int lineas;
+    }
+
+    private static class ErrorRegistro {
+        final int linea;
+        final String registro;
+        final String mensaje;
+
+        ErrorRegistro(int linea, String registro, String mensaje) {
+            this.linea = linea;
+            this.registro = registro;
+            this.mensaje = mensaje;
+        }
+    }
+}
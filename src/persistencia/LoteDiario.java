@@ -0,0 +1,56 @@
+package persistencia;
+
+import modelo.Asistente;
+import modelo.Evento;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registros del diario que pertenecen a una misma transacción. Se arma a medida que se aplican
+ * los cambios y se escribe de una sola vez con {@link PersistenciaArchivos#registrarLote(LoteDiario)}.
+ */
+public class LoteDiario {
+
+    private final PersistenciaArchivos persistencia;
+    private final List<String> registros = new ArrayList<>();
+
+    LoteDiario(PersistenciaArchivos persistencia) {
+        this.persistencia = persistencia;
+    }
+
+    /**
+     * Agrega el alta o modificación de los datos de un evento, sin sus asistentes
+     */
+    public void registrarEvento(Evento evento) {
+        registros.add(persistencia.registroEvento(evento));
+    }
+
+    public void registrarBajaEvento(int idEvento) {
+        registros.add(persistencia.registroBajaEvento(idEvento));
+    }
+
+    public void registrarAsistente(Asistente asistente) {
+        registros.add(persistencia.registroAsistente(asistente));
+    }
+
+    public void registrarInscripcion(int idEvento, int idAsistente) {
+        registros.add(persistencia.registroInscripcion(idEvento, idAsistente));
+    }
+
+    public void registrarDesinscripcion(int idEvento, int idAsistente) {
+        registros.add(persistencia.registroDesinscripcion(idEvento, idAsistente));
+    }
+
+    public void registrarCapacidad(int idEvento, int capacidad) {
+        registros.add(persistencia.registroCapacidad(idEvento, capacidad));
+    }
+
+    public int getCantidadRegistros() {
+        return registros.size();
+    }
+
+    List<String> getRegistros() {
+        return Collections.unmodifiableList(registros);
+    }
+}
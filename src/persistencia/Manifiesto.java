@@ -0,0 +1,165 @@
+package persistencia;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Archivo que liga los archivos de datos a una misma generación de guardado. Para cada archivo
+ * guarda su tamaño y su CRC32; el reemplazo atómico del manifiesto es el punto en que un
+ * guardado queda confirmado. También indica la generación del diario que sigue a esos datos:
+ * los diarios de generaciones anteriores ya están incluidos en los archivos.
+ * <pre>
+ * generacion,12
+ * diario,7
+ * eventos.csv,5321,2874219931
+ * asistentes.csv,880,1003822354
+ * </pre>
+ */
+class Manifiesto {
+
+    private static final String CLAVE_GENERACION = "generacion";
+    private static final String CLAVE_DIARIO = "diario";
+
+    private long generacion;
+    private long diario; // 0 en los manifiestos escritos antes de numerar los diarios
+    private final Map<String, Entrada> entradas = new LinkedHashMap<>();
+
+    /**
+     * @return Manifiesto leído, o uno vacío de generación 0 si el archivo no existe
+     * @throws IOException si el archivo existe pero no se puede leer o está dañado
+     */
+    static Manifiesto leer(Path archivo) throws IOException {
+        Manifiesto manifiesto = new Manifiesto();
+        if (!Files.exists(archivo)) {
+            return manifiesto;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                if (linea.trim().isEmpty()) {
+                    continue;
+                }
+                String[] campos = linea.split(",");
+                try {
+                    if (campos.length == 2 && campos[0].equals(CLAVE_GENERACION)) {
+                        manifiesto.generacion = Long.parseLong(campos[1].trim());
+                    } else if (campos.length == 2 && campos[0].equals(CLAVE_DIARIO)) {
+                        manifiesto.diario = Long.parseLong(campos[1].trim());
+                    } else if (campos.length == 3) {
+                        manifiesto.entradas.put(campos[0],
+                            new Entrada(Long.parseLong(campos[1].trim()), Long.parseLong(campos[2].trim())));
+                    } else {
+                        throw new IOException("Línea inválida en el manifiesto: " + linea);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IOException("Línea inválida en el manifiesto: " + linea, e);
+                }
+            }
+        }
+        return manifiesto;
+    }
+
+    /**
+     * Escribe el manifiesto con un reemplazo atómico
+     * @return Cantidad de bytes escritos
+     * @throws IOException si no se pudo escribir
+     */
+    long escribir(Path archivo, boolean forzar) throws IOException {
+        try (EscrituraAtomica escritura = new EscrituraAtomica(archivo)) {
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(escritura.getSalida(), StandardCharsets.UTF_8));
+            writer.println(CLAVE_GENERACION + "," + generacion);
+            writer.println(CLAVE_DIARIO + "," + diario);
+            for (Map.Entry<String, Entrada> entrada : entradas.entrySet()) {
+                writer.println(entrada.getKey() + "," + entrada.getValue().tamanio + "," + entrada.getValue().crc);
+            }
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("No se pudo escribir el manifiesto");
+            }
+            long bytes = escritura.terminar(forzar).tamanio;
+            escritura.reemplazar();
+            return bytes;
+        }
+    }
+
+    long getGeneracion() {
+        return generacion;
+    }
+
+    void setGeneracion(long generacion) {
+        this.generacion = generacion;
+    }
+
+    /**
+     * @return Generación del diario que se aplica sobre los archivos de este manifiesto
+     */
+    long getDiario() {
+        return diario;
+    }
+
+    void setDiario(long diario) {
+        this.diario = diario;
+    }
+
+    Entrada getEntrada(String archivo) {
+        return entradas.get(archivo);
+    }
+
+    void setEntrada(String archivo, Entrada entrada) {
+        entradas.put(archivo, entrada);
+    }
+
+    /**
+     * Tamaño y CRC32 esperados de un archivo de datos
+     */
+    static class Entrada {
+        final long tamanio;
+        final long crc;
+
+        Entrada(long tamanio, long crc) {
+            this.tamanio = tamanio;
+            this.crc = crc;
+        }
+
+        /**
+         * @return true si el archivo tiene exactamente el contenido registrado
+         */
+        boolean coincideCon(Path archivo) throws IOException {
+            if (!Files.exists(archivo) || Files.size(archivo) != tamanio) {
+                return false;
+            }
+            CRC32 calculado = new CRC32();
+            byte[] buffer = new byte[1 << 16];
+            try (InputStream in = Files.newInputStream(archivo)) {
+                int leidos;
+                while ((leidos = in.read(buffer)) > 0) {
+                    calculado.update(buffer, 0, leidos);
+                }
+            }
+            return calculado.getValue() == crc;
+        }
+
+        /**
+         * @return true si el contenido, desde su posición hasta su límite, es exactamente el registrado
+         */
+        boolean coincideCon(ByteBuffer contenido) {
+            if (contenido.remaining() != tamanio) {
+                return false;
+            }
+            CRC32 calculado = new CRC32();
+            calculado.update(contenido.duplicate());
+            return calculado.getValue() == crc;
+        }
+    }
+}
@@ -3,14 +3,20 @@ package persistencia;
 import excepciones.PersistenciaException;
 import modelo.Evento;
 import modelo.Asistente;
+import util.MapaEnteros;
+import util.MapaEnterosOrdenado;
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class PersistenciaArchivos {
@@ -18,11 +24,64 @@ public class PersistenciaArchivos {
     // Constantes para archivos y formato
     public static final String ARCHIVO_EVENTOS = "eventos.csv";
     public static final String ARCHIVO_ASISTENTES = "asistentes.csv";
+    public static final String ARCHIVO_EVENTOS_BINARIO = "eventos.bin";
+    public static final String ARCHIVO_ASISTENTES_BINARIO = "asistentes.bin";
+    public static final String ARCHIVO_EVENTOS_COMPRIMIDO = "eventos.csvz";
+    public static final String ARCHIVO_ASISTENTES_COMPRIMIDO = "asistentes.csvz";
+    // Diario de la generación 0; los de las siguientes llevan el número: cambios-1.log, ...
+    public static final String ARCHIVO_DIARIO = "cambios.log";
+    public static final String ARCHIVO_MANIFIESTO = "datos.manifest";
     public static final String SEPARADOR = ",";
     
     private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final Pattern ARCHIVO_DIARIO_NUMERADO = Pattern.compile("cambios-(\\d{1,18})\\.log");
+    
+    // Tipos de registro del diario de cambios
+    private static final String REGISTRO_EVENTO = "EV";
+    private static final String REGISTRO_BAJA_EVENTO = "EB";
+    private static final String REGISTRO_ASISTENTE = "AS";
+    private static final String REGISTRO_INSCRIPCION = "IN";
+    private static final String REGISTRO_DESINSCRIPCION = "DI";
+    private static final String REGISTRO_CAPACIDAD = "CA";
+    // Encierran los registros de una transacción, que se aplican todos o ninguno
+    private static final String REGISTRO_INICIO_TRANSACCION = "TI";
+    private static final String REGISTRO_FIN_TRANSACCION = "TF";
+    
+    private final ConfiguracionPersistencia configuracion;
+    private final DiarioCambios diario;
+    private final EscritorDiferido escritorDiferido;
+    // Con escritura diferida confirmada tras el commit, el lote donde quedó el último registro de cada hilo
+    private final ThreadLocal<CompletableFuture<Void>> loteDelHilo = new ThreadLocal<>();
+    private final LectorCSVParalelo lectorCSV;
+    // Generación del diario en uso, la que indica el manifiesto
+    private long generacionDiario;
     
     public PersistenciaArchivos() {
+        this(new ConfiguracionPersistencia());
+    }
+    
+    public PersistenciaArchivos(ConfiguracionPersistencia configuracion) {
+        this.configuracion = configuracion;
+        try {
+            recuperarGuardadoInterrumpido();
+        } catch (IOException e) {
+            System.err.println("Advertencia: No se pudo recuperar un guardado interrumpido: " + e.getMessage());
+        }
+        boolean conDiario = configuracion.isDiarioActivo() || configuracion.isEscrituraDiferida();
+        this.generacionDiario = leerGeneracionDiario();
+        this.diario = conDiario ? new DiarioCambios(ruta(archivoDiario(generacionDiario))) : null;
+        this.escritorDiferido = configuracion.isEscrituraDiferida()
+            ? new EscritorDiferido(diario, configuracion.getIntervaloEscrituraMs(), configuracion.getUmbralEscritura(),
+                configuracion.getPoliticaFsync() != PoliticaFsync.NUNCA)
+            : null;
+        this.lectorCSV = new LectorCSVParalelo(configuracion.getParalelismoCarga());
+        if (conDiario) {
+            try {
+                descartarDiariosAnteriores();
+            } catch (IOException e) {
+                System.err.println("Advertencia: No se pudieron borrar diarios ya guardados: " + e.getMessage());
+            }
+        }
         try {
             crearArchivosIniciales();
         } catch (Exception e) {
@@ -30,85 +89,836 @@ public class PersistenciaArchivos {
         }
     }
     
-    public void guardarEventos(List<Evento> eventos) throws PersistenciaException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(ARCHIVO_EVENTOS))) {
+    /**
+     * Reescribe el archivo de eventos
+     * @return Cantidad de bytes escritos
+     * @throws PersistenciaException si hay error en el guardado
+     */
+    public long guardarEventos(List<Evento> eventos) throws PersistenciaException {
+        return guardarDatos(eventos, null);
+    }
+    
+    /**
+     * Reescribe los archivos de datos indicados como un único guardado: cada archivo se escribe
+     * en un temporal, luego se reemplaza el manifiesto con la nueva generación y recién entonces
+     * se renombran los temporales sobre los archivos. Un corte antes del manifiesto deja la
+     * generación anterior; uno posterior se completa al iniciar.
+     * <p>
+     * Los archivos pasan a reflejar todos los cambios del diario, así que en modo diario el mismo
+     * manifiesto confirma una generación nueva del diario, que empieza vacía, y el diario anterior
+     * se borra. Si ese borrado no llega a hacerse, al iniciar se lo descarta sin aplicarlo.
+     * @param eventos Eventos a guardar, o null si su archivo no cambió
+     * @param asistentes Asistentes a guardar, o null si su archivo no cambió
+     * @return Cantidad de bytes escritos, incluido el manifiesto
+     * @throws PersistenciaException si hay error en el guardado
+     */
+    public long guardarDatos(List<Evento> eventos, List<Asistente> asistentes) throws PersistenciaException {
+        return guardarDatos(eventos, asistentes, configuracion.getFormato(), true);
+    }
+    
+    /**
+     * Carga asistentes y eventos en una sola pasada por cada archivo: los asistentes se leen
+     * una vez y se indexan por ID para vincularlos a los eventos, y luego se aplica el diario.
+     * Se informan como modificados los datos que difieren de los archivos del formato
+     * configurado: los cambiados por el diario y los leídos del CSV en lugar del formato configurado.
+     * Si el diario termina con una transacción incompleta, se descarta y se compactan los datos.
+     * @return Eventos y asistentes cargados
+     * @throws PersistenciaException si hay error en la carga
+     */
+    public DatosCargados cargarDatos() throws PersistenciaException {
+        FormatoAlmacenamiento formatoAsistentes = formatoDeLectura(archivoAsistentes(configuracion.getFormato()));
+        List<Asistente> asistentes = cargarAsistentes(formatoAsistentes);
+        MapaEnteros<Asistente> asistentesPorId = indexarAsistentes(asistentes);
+        FormatoAlmacenamiento formatoEventos = formatoDeLectura(archivoEventos(configuracion.getFormato()));
+        List<Evento> eventos = cargarEventos(formatoEventos, asistentesPorId);
+        
+        Set<Integer> asistentesModificados = new HashSet<>();
+        if (formatoAsistentes != configuracion.getFormato()) {
+            asistentes.forEach(asistente -> asistentesModificados.add(asistente.getId()));
+        }
+        Set<Integer> eventosModificados = new HashSet<>();
+        if (formatoEventos != configuracion.getFormato()) {
+            eventos.forEach(evento -> eventosModificados.add(evento.getId()));
+        }
+        if (reproducirDiario(eventos, asistentes, eventosModificados, asistentesModificados)) {
+            // Los registros que siguieran en el diario quedarían dentro de la transacción descartada:
+            // se compacta para empezar con un diario vacío
+            guardarDatos(eventos, asistentes);
+            eventosModificados.clear();
+            asistentesModificados.clear();
+        }
+        return new DatosCargados(eventos, asistentes, eventosModificados, asistentesModificados);
+    }
+    
+    /**
+     * Reescribe el archivo de asistentes
+     * @return Cantidad de bytes escritos
+     * @throws PersistenciaException si hay error en el guardado
+     */
+    public long guardarAsistentes(List<Asistente> asistentes) throws PersistenciaException {
+        return guardarDatos(null, asistentes);
+    }
+    
+    public List<Asistente> cargarAsistentes() throws PersistenciaException {
+        return cargarAsistentes(formatoDeLectura(archivoAsistentes(configuracion.getFormato())));
+    }
+    
+    /**
+     * Convierte los archivos de datos de un formato a otro. Se convierten solo los archivos: el
+     * diario sigue siendo el mismo y se aplica sobre los archivos convertidos.
+     * @param origen Formato de los archivos a leer
+     * @param destino Formato de los archivos a escribir
+     * @throws PersistenciaException si hay error al leer o escribir
+     */
+    public void convertirFormato(FormatoAlmacenamiento origen, FormatoAlmacenamiento destino) 
+            throws PersistenciaException {
+        List<Asistente> asistentes = cargarAsistentes(origen);
+        List<Evento> eventos = cargarEventos(origen, indexarAsistentes(asistentes));
+        guardarDatos(eventos, asistentes, destino, false);
+    }
+    
+    /**
+     * Si se pidió un formato distinto de CSV pero todavía no existe su archivo,
+     * se leen los datos del CSV; el próximo guardado los escribirá en el formato pedido
+     */
+    private FormatoAlmacenamiento formatoDeLectura(String archivoFormato) {
+        if (configuracion.getFormato() != FormatoAlmacenamiento.CSV 
+                && !Files.exists(ruta(archivoFormato))) {
+            return FormatoAlmacenamiento.CSV;
+        }
+        return configuracion.getFormato();
+    }
+    
+    /**
+     * @param incluyeDiario true si los datos incluyen los cambios del diario, que entonces pasa a
+     * la generación siguiente
+     */
+    private long guardarDatos(List<Evento> eventos, List<Asistente> asistentes, FormatoAlmacenamiento formato,
+            boolean incluyeDiario) throws PersistenciaException {
+        boolean forzar = configuracion.getPoliticaFsync() != PoliticaFsync.NUNCA;
+        boolean cambiarDiario = incluyeDiario && diario != null;
+        Manifiesto manifiesto;
+        try {
+            manifiesto = Manifiesto.leer(ruta(ARCHIVO_MANIFIESTO));
+        } catch (IOException e) {
+            System.err.println("Advertencia: manifiesto ilegible, se crea uno nuevo: " + e.getMessage());
+            manifiesto = new Manifiesto();
+        }
+        
+        List<EscrituraAtomica> escrituras = new ArrayList<>();
+        boolean confirmado = false;
+        try {
+            long bytes = 0;
+            if (eventos != null) {
+                String archivo = archivoEventos(formato);
+                EscrituraAtomica escritura = abrirEscritura(archivo, escrituras, "eventos");
+                escribirEventos(eventos, formato, escritura.getSalida());
+                bytes += registrarEnManifiesto(manifiesto, archivo, escritura, forzar, "eventos");
+            }
+            if (asistentes != null) {
+                String archivo = archivoAsistentes(formato);
+                EscrituraAtomica escritura = abrirEscritura(archivo, escrituras, "asistentes");
+                escribirAsistentes(asistentes, formato, escritura.getSalida());
+                bytes += registrarEnManifiesto(manifiesto, archivo, escritura, forzar, "asistentes");
+            }
+            if (escrituras.isEmpty() && !(cambiarDiario && registrosEnDiario() > 0)) {
+                return 0;
+            }
+            
+            manifiesto.setGeneracion(manifiesto.getGeneracion() + 1);
+            manifiesto.setDiario(cambiarDiario ? generacionDiario + 1 : generacionDiario);
+            bytes += manifiesto.escribir(ruta(ARCHIVO_MANIFIESTO), forzar);
+            if (forzar) {
+                // El renombrado del manifiesto confirma el guardado: tiene que llegar a disco antes
+                // que los de los archivos, o un corte podría dejarlos sin la generación que los describe
+                EscrituraAtomica.sincronizarDirectorio(directorioDeDatos());
+            }
+            confirmado = true;
+            
+            for (EscrituraAtomica escritura : escrituras) {
+                escritura.reemplazar();
+            }
+            if (forzar) {
+                EscrituraAtomica.sincronizarDirectorio(directorioDeDatos());
+            }
+            if (cambiarDiario) {
+                pasarAlDiarioSiguiente();
+            }
+            return bytes;
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al guardar datos: " + e.getMessage(), e);
+        } finally {
+            // Sin manifiesto nuevo los temporales se descartan; con él se completan al iniciar
+            if (!confirmado) {
+                for (EscrituraAtomica escritura : escrituras) {
+                    try {
+                        escritura.close();
+                    } catch (IOException e) {
+                        System.err.println("No se pudo descartar un archivo temporal: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * @param archivo Nombre de uno de los archivos de datos
+     * @return Ruta del archivo dentro del directorio de datos configurado
+     */
+    private Path ruta(String archivo) {
+        return configuracion.getDirectorio().resolve(archivo);
+    }
+    
+    private Path directorioDeDatos() {
+        return configuracion.getDirectorio().toAbsolutePath();
+    }
+    
+    private EscrituraAtomica abrirEscritura(String archivo, List<EscrituraAtomica> escrituras, String tipo) 
+            throws PersistenciaException {
+        try {
+            EscrituraAtomica escritura = new EscrituraAtomica(ruta(archivo));
+            escrituras.add(escritura);
+            return escritura;
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al guardar " + tipo + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private long registrarEnManifiesto(Manifiesto manifiesto, String archivo, EscrituraAtomica escritura, 
+            boolean forzar, String tipo) throws PersistenciaException {
+        try {
+            Manifiesto.Entrada entrada = escritura.terminar(forzar);
+            manifiesto.setEntrada(archivo, entrada);
+            return entrada.tamanio;
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al guardar " + tipo + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private void escribirEventos(List<Evento> eventos, FormatoAlmacenamiento formato, OutputStream salida) 
+            throws PersistenciaException {
+        try {
+            if (formato == FormatoAlmacenamiento.BINARIO) {
+                SnapshotBinario.escribirEventos(eventos, salida);
+                return;
+            }
+            if (formato == FormatoAlmacenamiento.COMPRIMIDO) {
+                CSVComprimido.Escritor escritor = new CSVComprimido.Escritor(salida);
+                for (Evento evento : eventos) {
+                    escritor.escribirRegistro(formatearEvento(evento));
+                }
+                escritor.terminar();
+                return;
+            }
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(salida));
             for (Evento evento : eventos) {
                 String linea = formatearEvento(evento);
                 writer.println(linea);
             }
-        } catch (IOException e) {
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("No se pudo escribir " + ARCHIVO_EVENTOS);
+            }
+        } catch (IOException | ArithmeticException e) {
             throw new PersistenciaException("Error al guardar eventos: " + e.getMessage(), e);
         }
     }
     
-    public List<Evento> cargarEventos() throws PersistenciaException {
-        List<Evento> eventos = new ArrayList<>();
-        List<Asistente> asistentes = cargarAsistentes();
+    private void escribirAsistentes(List<Asistente> asistentes, FormatoAlmacenamiento formato, OutputStream salida) 
+            throws PersistenciaException {
+        try {
+            if (formato == FormatoAlmacenamiento.BINARIO) {
+                SnapshotBinario.escribirAsistentes(asistentes, salida);
+                return;
+            }
+            if (formato == FormatoAlmacenamiento.COMPRIMIDO) {
+                CSVComprimido.Escritor escritor = new CSVComprimido.Escritor(salida);
+                for (Asistente asistente : asistentes) {
+                    escritor.escribirRegistro(formatearAsistente(asistente));
+                }
+                escritor.terminar();
+                return;
+            }
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(salida));
+            for (Asistente asistente : asistentes) {
+                String linea = formatearAsistente(asistente);
+                writer.println(linea);
+            }
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("No se pudo escribir " + ARCHIVO_ASISTENTES);
+            }
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al guardar asistentes: " + e.getMessage(), e);
+        }
+    }
+    
+    private static String archivoEventos(FormatoAlmacenamiento formato) {
+        switch (formato) {
+            case BINARIO:
+                return ARCHIVO_EVENTOS_BINARIO;
+            case COMPRIMIDO:
+                return ARCHIVO_EVENTOS_COMPRIMIDO;
+            default:
+                return ARCHIVO_EVENTOS;
+        }
+    }
+    
+    private static String archivoAsistentes(FormatoAlmacenamiento formato) {
+        switch (formato) {
+            case BINARIO:
+                return ARCHIVO_ASISTENTES_BINARIO;
+            case COMPRIMIDO:
+                return ARCHIVO_ASISTENTES_COMPRIMIDO;
+            default:
+                return ARCHIVO_ASISTENTES;
+        }
+    }
+    
+    private List<Evento> cargarEventos(FormatoAlmacenamiento formato, MapaEnteros<Asistente> asistentesPorId) 
+            throws PersistenciaException {
+        if (formato == FormatoAlmacenamiento.BINARIO) {
+            try {
+                return SnapshotBinario.leerEventos(ruta(ARCHIVO_EVENTOS_BINARIO), asistentesPorId,
+                    entradaEnManifiesto(ARCHIVO_EVENTOS_BINARIO));
+            } catch (IOException e) {
+                throw new PersistenciaException("Error al cargar eventos: " + e.getMessage(), e);
+            }
+        }
         
-        if (!Files.exists(Paths.get(ARCHIVO_EVENTOS))) {
-            return eventos; // Retorna lista vacía si no existe el archivo
+        Path archivo = ruta(archivoEventos(formato));
+        if (!Files.exists(archivo)) {
+            return new ArrayList<>(); // Retorna lista vacía si no existe el archivo
         }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(ARCHIVO_EVENTOS))) {
-            String linea;
-            while ((linea = reader.readLine()) != null) {
-                if (!linea.trim().isEmpty()) {
-                    try {
-                        Evento evento = parsearEvento(linea, asistentes);
-                        eventos.add(evento);
-                    } catch (Exception e) {
-                        System.err.println("Error al parsear línea: " + linea + " - " + e.getMessage());
-                    }
-                }
+        LectorCSVParalelo.ParserRegistro<Evento> parser = registro -> parsearEvento(registro, 0, asistentesPorId);
+        try {
+            if (formato == FormatoAlmacenamiento.COMPRIMIDO) {
+                return lectorCSV.leerComprimido(archivo, parser, "evento");
             }
+            return lectorCSV.leer(archivo, parser, "evento");
         } catch (IOException e) {
             throw new PersistenciaException("Error al cargar eventos: " + e.getMessage(), e);
         }
+    }
+    
+    private List<Asistente> cargarAsistentes(FormatoAlmacenamiento formato) throws PersistenciaException {
+        if (formato == FormatoAlmacenamiento.BINARIO) {
+            try {
+                return SnapshotBinario.leerAsistentes(ruta(ARCHIVO_ASISTENTES_BINARIO),
+                    entradaEnManifiesto(ARCHIVO_ASISTENTES_BINARIO));
+            } catch (IOException e) {
+                throw new PersistenciaException("Error al cargar asistentes: " + e.getMessage(), e);
+            }
+        }
+        
+        Path archivo = ruta(archivoAsistentes(formato));
+        if (!Files.exists(archivo)) {
+            return new ArrayList<>(); // Retorna lista vacía si no existe el archivo
+        }
         
-        return eventos;
+        LectorCSVParalelo.ParserRegistro<Asistente> parser = registro -> parsearAsistente(registro, 0);
+        try {
+            if (formato == FormatoAlmacenamiento.COMPRIMIDO) {
+                return lectorCSV.leerComprimido(archivo, parser, "asistente");
+            }
+            return lectorCSV.leer(archivo, parser, "asistente");
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al cargar asistentes: " + e.getMessage(), e);
+        }
     }
     
-    public void guardarAsistentes(List<Asistente> asistentes) throws PersistenciaException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(ARCHIVO_ASISTENTES))) {
-            for (Asistente asistente : asistentes) {
-                String linea = formatearAsistente(asistente);
-                writer.println(linea);
+    /**
+     * @return Tamaño y CRC32 que registró el manifiesto para el archivo, o null si no lo registró
+     * o el manifiesto no se puede leer
+     */
+    private Manifiesto.Entrada entradaEnManifiesto(String archivo) {
+        try {
+            return Manifiesto.leer(ruta(ARCHIVO_MANIFIESTO)).getEntrada(archivo);
+        } catch (IOException e) {
+            System.err.println("Advertencia: manifiesto ilegible, no se verifica " + archivo + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    public boolean isDiarioActivo() {
+        return diario != null;
+    }
+    
+    /**
+     * Registra en el diario el alta o modificación de los datos de un evento.
+     * No incluye los asistentes, que se registran con inscripciones individuales.
+     * @param evento Evento creado o modificado
+     * @return Cantidad de bytes escritos en el diario
+     * @throws PersistenciaException si no se pudo escribir el diario
+     */
+    public long registrarEvento(Evento evento) throws PersistenciaException {
+        return agregarAlDiario(registroEvento(evento));
+    }
+    
+    public long registrarBajaEvento(int idEvento) throws PersistenciaException {
+        return agregarAlDiario(registroBajaEvento(idEvento));
+    }
+    
+    public long registrarAsistente(Asistente asistente) throws PersistenciaException {
+        return agregarAlDiario(registroAsistente(asistente));
+    }
+    
+    public long registrarInscripcion(int idEvento, int idAsistente) throws PersistenciaException {
+        return agregarAlDiario(registroInscripcion(idEvento, idAsistente));
+    }
+    
+    public long registrarDesinscripcion(int idEvento, int idAsistente) throws PersistenciaException {
+        return agregarAlDiario(registroDesinscripcion(idEvento, idAsistente));
+    }
+    
+    public long registrarCapacidad(int idEvento, int capacidad) throws PersistenciaException {
+        return agregarAlDiario(registroCapacidad(idEvento, capacidad));
+    }
+    
+    /**
+     * Crea un lote vacío para juntar los registros de una transacción
+     */
+    public LoteDiario nuevoLote() {
+        return new LoteDiario(this);
+    }
+    
+    /**
+     * Registra en el diario todos los registros del lote con una única escritura. Si son varios
+     * se encierran entre un registro de inicio y uno de fin de transacción: al cargar, una
+     * transacción sin su registro de fin se descarta entera. Salvo con la política NUNCA,
+     * la escritura se fuerza a disco como la de cualquier otro lote.
+     * @param lote Registros de la transacción
+     * @return Cantidad de bytes escritos en el diario
+     * @throws PersistenciaException si no se pudo escribir el diario
+     */
+    public long registrarLote(LoteDiario lote) throws PersistenciaException {
+        List<String> registros = lote.getRegistros();
+        if (registros.isEmpty()) {
+            return 0;
+        }
+        if (registros.size() == 1) {
+            return agregarAlDiario(registros.get(0));
+        }
+        if (diario == null) {
+            throw new PersistenciaException("El diario de cambios no está activo");
+        }
+        
+        List<String> transaccion = new ArrayList<>(registros.size() + 2);
+        transaccion.add(REGISTRO_INICIO_TRANSACCION);
+        transaccion.addAll(registros);
+        transaccion.add(REGISTRO_FIN_TRANSACCION);
+        try {
+            if (escritorDiferido != null) {
+                recordarLote(escritorDiferido.agregarTodos(transaccion));
+                long bytes = 0;
+                for (String registro : transaccion) {
+                    bytes += registro.getBytes(Charset.defaultCharset()).length + System.lineSeparator().length();
+                }
+                return bytes;
             }
+            return diario.agregarTodos(transaccion, configuracion.getPoliticaFsync() != PoliticaFsync.NUNCA);
         } catch (IOException e) {
-            throw new PersistenciaException("Error al guardar asistentes: " + e.getMessage(), e);
+            throw new PersistenciaException("Error al escribir en el diario: " + e.getMessage(), e);
         }
     }
     
-    public List<Asistente> cargarAsistentes() throws PersistenciaException {
-        List<Asistente> asistentes = new ArrayList<>();
+    String registroEvento(Evento evento) {
+        return REGISTRO_EVENTO + SEPARADOR + formatearDatosEvento(evento);
+    }
+    
+    String registroBajaEvento(int idEvento) {
+        return REGISTRO_BAJA_EVENTO + SEPARADOR + idEvento;
+    }
+    
+    String registroAsistente(Asistente asistente) {
+        return REGISTRO_ASISTENTE + SEPARADOR + formatearAsistente(asistente);
+    }
+    
+    String registroInscripcion(int idEvento, int idAsistente) {
+        return REGISTRO_INSCRIPCION + SEPARADOR + idEvento + SEPARADOR + idAsistente;
+    }
+    
+    String registroDesinscripcion(int idEvento, int idAsistente) {
+        return REGISTRO_DESINSCRIPCION + SEPARADOR + idEvento + SEPARADOR + idAsistente;
+    }
+    
+    String registroCapacidad(int idEvento, int capacidad) {
+        return REGISTRO_CAPACIDAD + SEPARADOR + idEvento + SEPARADOR + capacidad;
+    }
+    
+    /**
+     * Indica si el diario acumuló suficientes registros como para reescribir los archivos completos
+     * @return true si conviene compactar
+     */
+    public boolean requiereCompactacion() {
+        if (diario == null) {
+            return false;
+        }
+        return registrosEnDiario() >= configuracion.getUmbralCompactacion();
+    }
+    
+    /**
+     * @return Registros del diario en uso, contando los que esperan la escritura diferida
+     */
+    private int registrosEnDiario() {
+        return escritorDiferido != null ? escritorDiferido.getCantidadRegistros() : diario.getCantidadRegistros();
+    }
+    
+    /**
+     * Aplica sobre los datos cargados de los archivos los cambios registrados en el diario.
+     * Los registros de una transacción se aplican recién al llegar a su registro de fin.
+     * Se aplican sobre mapas por ID, que agregan, reemplazan y quitan en O(1) conservando el
+     * orden, y las listas se rearman una sola vez al final.
+     * @param eventos Eventos cargados; la lista se rearma con los eventos que dejó el diario
+     * @param asistentes Asistentes cargados; la lista se rearma igual que la de eventos
+     * @param eventosModificados Recibe los IDs de los eventos que cambió el diario
+     * @param asistentesModificados Recibe los IDs de los asistentes que cambió el diario
+     * @return true si el diario termina con una transacción incompleta, que se descartó
+     * @throws PersistenciaException si no se pudo leer el diario
+     */
+    private boolean reproducirDiario(List<Evento> eventos, List<Asistente> asistentes,
+            Set<Integer> eventosModificados, Set<Integer> asistentesModificados) throws PersistenciaException {
+        if (diario == null) {
+            return false;
+        }
+        
+        List<String> registros;
+        try {
+            registros = diario.leer();
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al leer el diario: " + e.getMessage(), e);
+        }
+        if (registros.isEmpty()) {
+            return false;
+        }
         
-        if (!Files.exists(Paths.get(ARCHIVO_ASISTENTES))) {
-            return asistentes; // Retorna lista vacía si no existe el archivo
+        MapaEnterosOrdenado<Evento> eventosPorId = new MapaEnterosOrdenado<>();
+        for (Evento evento : eventos) {
+            eventosPorId.poner(evento.getId(), evento);
+        }
+        MapaEnterosOrdenado<Asistente> asistentesPorId = new MapaEnterosOrdenado<>();
+        for (Asistente asistente : asistentes) {
+            asistentesPorId.poner(asistente.getId(), asistente);
         }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(ARCHIVO_ASISTENTES))) {
-            String linea;
-            while ((linea = reader.readLine()) != null) {
-                if (!linea.trim().isEmpty()) {
-                    try {
-                        Asistente asistente = parsearAsistente(linea);
-                        asistentes.add(asistente);
-                    } catch (Exception e) {
-                        System.err.println("Error al parsear asistente: " + linea + " - " + e.getMessage());
+        List<String> transaccion = null; // Registros de la transacción abierta, si hay una
+        for (String registro : registros) {
+            if (registro.equals(REGISTRO_INICIO_TRANSACCION)) {
+                transaccion = new ArrayList<>();
+            } else if (registro.equals(REGISTRO_FIN_TRANSACCION)) {
+                if (transaccion != null) {
+                    for (String registroTransaccion : transaccion) {
+                        aplicarRegistroDelDiario(registroTransaccion, eventosPorId, asistentesPorId,
+                            eventosModificados, asistentesModificados);
                     }
                 }
+                transaccion = null;
+            } else if (transaccion != null) {
+                transaccion.add(registro);
+            } else {
+                aplicarRegistroDelDiario(registro, eventosPorId, asistentesPorId,
+                    eventosModificados, asistentesModificados);
             }
+        }
+        
+        eventos.clear();
+        eventos.addAll(eventosPorId.comoLista());
+        asistentes.clear();
+        asistentes.addAll(asistentesPorId.comoLista());
+        if (transaccion != null) {
+            System.err.println("Transacción incompleta al final del diario: se descartan sus " 
+                + transaccion.size() + " registros");
+            return true;
+        }
+        return false;
+    }
+    
+    private void aplicarRegistroDelDiario(String registro, MapaEnterosOrdenado<Evento> eventosPorId,
+            MapaEnterosOrdenado<Asistente> asistentesPorId, Set<Integer> eventosModificados,
+            Set<Integer> asistentesModificados) {
+        try {
+            aplicarRegistro(registro, eventosPorId, asistentesPorId, eventosModificados, asistentesModificados);
+        } catch (Exception e) {
+            System.err.println("Error al aplicar registro del diario: " + registro + " - " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Escribe en el diario los cambios que esperan en memoria, incluidos los de lotes que no se
+     * pudieron escribir antes. Sin escritura diferida no hace nada.
+     * @throws PersistenciaException si falló la escritura; los cambios siguen esperando
+     */
+    public void flush() throws PersistenciaException {
+        if (escritorDiferido == null) {
+            return;
+        }
+        try {
+            escritorDiferido.volcar();
         } catch (IOException e) {
-            throw new PersistenciaException("Error al cargar asistentes: " + e.getMessage(), e);
+            throw new PersistenciaException("Error al escribir el diario: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Con escritura diferida confirmada tras el commit, espera a que se escriba en el diario el
+     * lote con el último registro que agregó este hilo. Conviene llamarlo sin tener tomado ningún
+     * bloqueo, para que los cambios de otros hilos entren en el mismo lote.
+     * @throws PersistenciaException si falló la escritura de ese lote; sus registros se reintentan
+     * con el lote siguiente
+     */
+    public void esperarEscritura() throws PersistenciaException {
+        CompletableFuture<Void> lote = loteDelHilo.get();
+        if (lote == null) {
+            return;
+        }
+        loteDelHilo.remove();
+        try {
+            lote.get();
+        } catch (ExecutionException e) {
+            throw new PersistenciaException("Error al escribir en el diario: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenciaException("Escritura en el diario interrumpida", e);
+        }
+    }
+    
+    /**
+     * Escribe los cambios pendientes y libera el diario y el hilo de escritura diferida
+     * @throws PersistenciaException si no se pudieron escribir los cambios pendientes
+     */
+    public void cerrar() throws PersistenciaException {
+        try {
+            if (escritorDiferido != null) {
+                escritorDiferido.cerrar();
+            } else if (diario != null) {
+                diario.cerrar();
+            }
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al cerrar el diario: " + e.getMessage(), e);
+        }
+    }
+    
+    private long agregarAlDiario(String registro) throws PersistenciaException {
+        if (diario == null) {
+            throw new PersistenciaException("El diario de cambios no está activo");
+        }
+        if (escritorDiferido != null) {
+            return agregarDiferido(registro);
+        }
+        try {
+            return diario.agregar(registro, configuracion.getPoliticaFsync() == PoliticaFsync.SIEMPRE);
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al escribir en el diario: " + e.getMessage(), e);
+        }
+    }
+    
+    private void recordarLote(CompletableFuture<Void> lote) {
+        if (configuracion.getConfirmacion() == ConfirmacionEscritura.TRAS_COMMIT) {
+            loteDelHilo.set(lote);
+        }
+    }
+    
+    /**
+     * Deja el registro en la cola de escritura diferida
+     * @return Bytes que ocupará el registro en el diario
+     */
+    private long agregarDiferido(String registro) throws PersistenciaException {
+        try {
+            recordarLote(escritorDiferido.agregar(registro));
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al escribir en el diario: " + e.getMessage(), e);
+        }
+        return registro.getBytes(Charset.defaultCharset()).length + System.lineSeparator().length();
+    }
+    
+    private void aplicarRegistro(String registro, MapaEnterosOrdenado<Evento> eventosPorId,
+            MapaEnterosOrdenado<Asistente> asistentesPorId, Set<Integer> eventosModificados,
+            Set<Integer> asistentesModificados) throws Exception {
+        TokenizadorCSV campos = TokenizadorCSV.deTexto(registro);
+        if (!campos.siguienteRegistro() || campos.getCantidadCampos() < 2) {
+            throw new IllegalArgumentException("Registro sin datos");
+        }
+        String tipo = campos.texto(0);
+        
+        switch (tipo) {
+            case REGISTRO_EVENTO: {
+                Evento leido = parsearEvento(campos, 1, new MapaEnteros<>());
+                Evento existente = eventosPorId.obtener(leido.getId());
+                eventosPorId.poner(leido.getId(), existente == null ? leido : existente.conDatos(
+                    leido.getNombre(), leido.getFecha(), leido.getUbicacion(), leido.getDescripcion()));
+                eventosModificados.add(leido.getId());
+                break;
+            }
+            case REGISTRO_BAJA_EVENTO:
+                eventosPorId.quitar(campos.entero(1));
+                eventosModificados.add(campos.entero(1));
+                break;
+            case REGISTRO_ASISTENTE: {
+                Asistente leido = parsearAsistente(campos, 1);
+                asistentesPorId.poner(leido.getId(), leido);
+                asistentesModificados.add(leido.getId());
+                break;
+            }
+            case REGISTRO_INSCRIPCION:
+            case REGISTRO_DESINSCRIPCION: {
+                Evento evento = eventosPorId.obtener(campos.entero(1));
+                int idAsistente = campos.entero(2);
+                Asistente asistente = asistentesPorId.obtener(idAsistente);
+                if (evento == null || asistente == null) {
+                    break; // El evento fue eliminado más adelante en el diario
+                }
+                // Con la misma capacidad y el mismo orden, la lista de espera avanza igual que al registrarse
+                boolean registrado = evento.tieneAsistente(idAsistente) || evento.estaEnEspera(idAsistente);
+                if (tipo.equals(REGISTRO_INSCRIPCION) && !registrado) {
+                    eventosPorId.poner(evento.getId(), evento.inscribir(asistente));
+                    eventosModificados.add(evento.getId());
+                } else if (tipo.equals(REGISTRO_DESINSCRIPCION) && registrado) {
+                    eventosPorId.poner(evento.getId(), evento.desinscribir(idAsistente));
+                    eventosModificados.add(evento.getId());
+                }
+                break;
+            }
+            case REGISTRO_CAPACIDAD: {
+                Evento evento = eventosPorId.obtener(campos.entero(1));
+                if (evento != null) {
+                    eventosPorId.poner(evento.getId(), evento.cambiarCapacidad(campos.entero(2)));
+                    eventosModificados.add(evento.getId());
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Tipo de registro desconocido: " + tipo);
+        }
+    }
+    
+    /**
+     * @return Nombre del archivo del diario de una generación
+     */
+    static String archivoDiario(long generacion) {
+        return generacion == 0 ? ARCHIVO_DIARIO : "cambios-" + generacion + ".log";
+    }
+    
+    /**
+     * Pasa el diario a la generación que acaba de confirmar el manifiesto y borra el anterior
+     */
+    private void pasarAlDiarioSiguiente() throws IOException {
+        Path anterior = diario.getArchivo();
+        generacionDiario++;
+        Path nuevo = ruta(archivoDiario(generacionDiario));
+        if (escritorDiferido != null) {
+            escritorDiferido.cambiarArchivo(nuevo);
+        } else {
+            diario.cambiarArchivo(nuevo);
+        }
+        try {
+            Files.deleteIfExists(anterior);
+        } catch (IOException e) {
+            System.err.println("Advertencia: no se pudo borrar " + anterior.getFileName() 
+                + ", se descartará al iniciar: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * @return Generación del diario que indica el manifiesto. Si el manifiesto no se puede leer,
+     * la más alta de los diarios que haya en el directorio.
+     */
+    private long leerGeneracionDiario() {
+        try {
+            return Manifiesto.leer(ruta(ARCHIVO_MANIFIESTO)).getDiario();
+        } catch (IOException e) {
+            long generacion = 0;
+            try {
+                for (long existente : diariosEnDirectorio().keySet()) {
+                    generacion = Math.max(generacion, existente);
+                }
+            } catch (IOException ignorada) {
+                // Sin poder listar el directorio queda la generación 0
+            }
+            System.err.println("Advertencia: manifiesto ilegible, se usa el diario " + archivoDiario(generacion) 
+                + ": " + e.getMessage());
+            return generacion;
+        }
+    }
+    
+    /**
+     * Borra los diarios de generaciones anteriores a la del manifiesto. Sus cambios ya están en los
+     * archivos de datos, y aplicarlos otra vez no da el mismo resultado: una inscripción repetida
+     * después de una baja, por ejemplo, vuelve a pasar por la lista de espera.
+     */
+    private void descartarDiariosAnteriores() throws IOException {
+        for (Map.Entry<Long, Path> existente : diariosEnDirectorio().entrySet()) {
+            if (existente.getKey() < generacionDiario) {
+                Files.delete(existente.getValue());
+                System.err.println("Se descartó " + existente.getValue().getFileName() 
+                    + ", que ya estaba incluido en los archivos de datos");
+            }
+        }
+    }
+    
+    /**
+     * @return Archivos de diario del directorio de datos, por generación
+     */
+    private Map<Long, Path> diariosEnDirectorio() throws IOException {
+        Map<Long, Path> diarios = new TreeMap<>();
+        Path directorio = directorioDeDatos();
+        if (!Files.isDirectory(directorio)) {
+            return diarios;
+        }
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "cambios*.log")) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                Matcher numerado = ARCHIVO_DIARIO_NUMERADO.matcher(nombre);
+                if (nombre.equals(ARCHIVO_DIARIO)) {
+                    diarios.put(0L, archivo);
+                } else if (numerado.matches()) {
+                    diarios.put(Long.parseLong(numerado.group(1)), archivo);
+                }
+            }
         }
+        return diarios;
+    }
+    
+    /**
+     * Completa o descarta un guardado que se interrumpió. Si quedó el temporal de un archivo
+     * y coincide con lo registrado en el manifiesto, el guardado se había confirmado y se termina
+     * de renombrar; si no, el guardado no llegó a confirmarse y el temporal se descarta.
+     */
+    private void recuperarGuardadoInterrumpido() throws IOException {
+        Files.deleteIfExists(EscrituraAtomica.temporalDe(ruta(ARCHIVO_MANIFIESTO)));
         
-        return asistentes;
+        List<String> archivos = new ArrayList<>();
+        for (FormatoAlmacenamiento formato : FormatoAlmacenamiento.values()) {
+            archivos.add(archivoEventos(formato));
+            archivos.add(archivoAsistentes(formato));
+        }
+        
+        Manifiesto manifiesto = null;
+        for (String archivo : archivos) {
+            Path temporal = EscrituraAtomica.temporalDe(ruta(archivo));
+            if (!Files.exists(temporal)) {
+                continue;
+            }
+            if (manifiesto == null) {
+                manifiesto = Manifiesto.leer(ruta(ARCHIVO_MANIFIESTO));
+            }
+            
+            Manifiesto.Entrada entrada = manifiesto.getEntrada(archivo);
+            if (entrada != null && entrada.coincideCon(temporal)) {
+                EscrituraAtomica.reemplazar(temporal, ruta(archivo));
+                System.err.println("Se completó un guardado interrumpido de " + archivo 
+                    + " (generación " + manifiesto.getGeneracion() + ")");
+            } else {
+                Files.delete(temporal);
+                System.err.println("Se descartó un guardado incompleto de " + archivo);
+            }
+        }
     }
     
     private void crearArchivosIniciales() throws PersistenciaException {
         try {
-            Path archivoEventos = Paths.get(ARCHIVO_EVENTOS);
-            Path archivoAsistentes = Paths.get(ARCHIVO_ASISTENTES);
+            Path archivoEventos = ruta(ARCHIVO_EVENTOS);
+            Path archivoAsistentes = ruta(ARCHIVO_ASISTENTES);
             
             if (!Files.exists(archivoEventos)) {
                 Files.createFile(archivoEventos);
@@ -123,8 +933,8 @@ public class PersistenciaArchivos {
     }
     
     public void validarIntegridad() throws PersistenciaException {
-        Path archivoEventos = Paths.get(ARCHIVO_EVENTOS);
-        Path archivoAsistentes = Paths.get(ARCHIVO_ASISTENTES);
+        Path archivoEventos = ruta(ARCHIVO_EVENTOS);
+        Path archivoAsistentes = ruta(ARCHIVO_ASISTENTES);
         
         if (!Files.exists(archivoEventos) || !Files.exists(archivoAsistentes)) {
             throw new PersistenciaException("Archivos de datos faltantes");
@@ -140,58 +950,81 @@ public class PersistenciaArchivos {
     }
     
     private String formatearEvento(Evento evento) {
-        String idsAsistentes = evento.getAsistentes().stream()
+        String idsAsistentes = formatearIds(evento.getAsistentes());
+        if (evento.getCapacidad() == 0) {
+            return String.join(SEPARADOR, formatearDatosEvento(evento), idsAsistentes);
+        }
+        // Solo los eventos con capacidad llevan los dos campos finales; sin ella no hay lista de espera
+        return String.join(SEPARADOR, formatearDatosEvento(evento), idsAsistentes,
+            String.valueOf(evento.getCapacidad()), formatearIds(evento.getListaEspera()));
+    }
+    
+    private static String formatearIds(List<Asistente> asistentes) {
+        return asistentes.stream()
             .map(a -> String.valueOf(a.getId()))
             .collect(Collectors.joining(";"));
-            
+    }
+    
+    private String formatearDatosEvento(Evento evento) {
         return String.join(SEPARADOR,
             String.valueOf(evento.getId()),
             escaparCampoCSV(evento.getNombre()),
             evento.getFecha().format(FORMATO_FECHA),
             escaparCampoCSV(evento.getUbicacion()),
-            escaparCampoCSV(evento.getDescripcion()),
-            idsAsistentes
+            escaparCampoCSV(evento.getDescripcion())
         );
     }
     
-    private Evento parsearEvento(String linea, List<Asistente> asistentesDisponibles) throws Exception {
-        String[] partes = parsearLineaCSV(linea);
-        if (partes.length < 5) {
+    private MapaEnteros<Asistente> indexarAsistentes(List<Asistente> asistentes) {
+        MapaEnteros<Asistente> asistentesPorId = new MapaEnteros<>(asistentes.size());
+        for (Asistente asistente : asistentes) {
+            asistentesPorId.poner(asistente.getId(), asistente);
+        }
+        return asistentesPorId;
+    }
+    
+    private Evento parsearEvento(TokenizadorCSV registro, int primerCampo, 
+            MapaEnteros<Asistente> asistentesDisponibles) throws Exception {
+        if (registro.getCantidadCampos() - primerCampo < 5) {
             throw new IllegalArgumentException("Formato de evento inválido");
         }
         
-        int id = Integer.parseInt(partes[0]);
-        String nombre = desescaparCampoCSV(partes[1]);
-        LocalDate fecha;
-        try {
-            fecha = LocalDate.parse(partes[2], FORMATO_FECHA);
-        } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Formato de fecha inválido: " + partes[2]);
-        }
-        String ubicacion = desescaparCampoCSV(partes[3]);
-        String descripcion = desescaparCampoCSV(partes[4]);
+        int id = registro.entero(primerCampo);
+        String nombre = registro.texto(primerCampo + 1);
+        LocalDate fecha = registro.fecha(primerCampo + 2);
+        String ubicacion = registro.texto(primerCampo + 3);
+        String descripcion = registro.texto(primerCampo + 4);
         
-        Evento evento = new Evento(id, nombre, fecha, ubicacion, descripcion);
+        Evento.Constructor evento = new Evento.Constructor(id, nombre, fecha, ubicacion, descripcion);
         
         // Agregar asistentes si existen
-        if (partes.length > 5 && !partes[5].trim().isEmpty()) {
-            String[] idsAsistentes = partes[5].split(";");
-            for (String idStr : idsAsistentes) {
-                try {
-                    int idAsistente = Integer.parseInt(idStr.trim());
-                    Optional<Asistente> asistente = asistentesDisponibles.stream()
-                        .filter(a -> a.getId() == idAsistente)
-                        .findFirst();
-                    if (asistente.isPresent()) {
-                        evento.agregarAsistente(asistente.get());
+        if (registro.getCantidadCampos() - primerCampo > 5 && !registro.campoVacio(primerCampo + 5)) {
+            int cantidad = registro.enteros(primerCampo + 5, ';');
+            int[] idsAsistentes = registro.getEnteros();
+            for (int i = 0; i < cantidad; i++) {
+                Asistente asistente = asistentesDisponibles.obtener(idsAsistentes[i]);
+                if (asistente != null) {
+                    evento.agregarAsistente(asistente);
+                }
+            }
+        }
+        
+        // Capacidad y lista de espera, si el evento tiene capacidad limitada
+        if (registro.getCantidadCampos() - primerCampo > 6) {
+            evento.capacidad(registro.entero(primerCampo + 6));
+            if (registro.getCantidadCampos() - primerCampo > 7 && !registro.campoVacio(primerCampo + 7)) {
+                int cantidad = registro.enteros(primerCampo + 7, ';');
+                int[] idsEspera = registro.getEnteros();
+                for (int i = 0; i < cantidad; i++) {
+                    Asistente asistente = asistentesDisponibles.obtener(idsEspera[i]);
+                    if (asistente != null) {
+                        evento.agregarAEspera(asistente);
                     }
-                } catch (NumberFormatException e) {
-                    System.err.println("ID de asistente inválido: " + idStr);
                 }
             }
         }
         
-        return evento;
+        return evento.construir();
     }
     
     private String formatearAsistente(Asistente asistente) {
@@ -203,52 +1036,19 @@ public class PersistenciaArchivos {
         );
     }
     
-    private Asistente parsearAsistente(String linea) throws Exception {
-        String[] partes = parsearLineaCSV(linea);
-        if (partes.length != 4) {
+    private Asistente parsearAsistente(TokenizadorCSV registro, int primerCampo) {
+        if (registro.getCantidadCampos() - primerCampo != 4) {
             throw new IllegalArgumentException("Formato de asistente inválido");
         }
         
-        int id = Integer.parseInt(partes[0]);
-        String nombre = desescaparCampoCSV(partes[1]);
-        String email = desescaparCampoCSV(partes[2]);
-        String telefono = desescaparCampoCSV(partes[3]);
+        int id = registro.entero(primerCampo);
+        String nombre = registro.texto(primerCampo + 1);
+        String email = registro.texto(primerCampo + 2);
+        String telefono = registro.texto(primerCampo + 3);
         
         return new Asistente(id, nombre, email, telefono);
     }
     
-    private String[] parsearLineaCSV(String linea) {
-        List<String> campos = new ArrayList<>();
-        boolean dentroComillas = false;
-        StringBuilder campoActual = new StringBuilder();
-        
-        for (int i = 0; i < linea.length(); i++) {
-            char c = linea.charAt(i);
-            
-            if (c == '"') {
-                // Si la siguiente también es comilla, es una comilla escapada
-                if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
-                    campoActual.append('"');
-                    i++; // Saltar la siguiente comilla
-                } else {
-                    // Cambiar estado de estar dentro de comillas
-                    dentroComillas = !dentroComillas;
-                }
-            } else if (c == ',' && !dentroComillas) {
-                // Fin de campo
-                campos.add(campoActual.toString());
-                campoActual.setLength(0);
-            } else {
-                campoActual.append(c);
-            }
-        }
-        
-        // Agregar el último campo
-        campos.add(campoActual.toString());
-        
-        return campos.toArray(new String[0]);
-    }
-    
     private String escaparCampoCSV(String campo) {
         if (campo == null) {
             return "";
@@ -261,16 +1061,4 @@ public class PersistenciaArchivos {
         }
         return campo;
     }
-    
-    private String desescaparCampoCSV(String campo) {
-        if (campo == null) {
-            return "";
-        }
-        // Si el campo está entre comillas, removerlas y desescapar comillas internas
-        if (campo.startsWith("\"") && campo.endsWith("\"") && campo.length() > 1) {
-            String campoSinComillas = campo.substring(1, campo.length() - 1);
-            return campoSinComillas.replace("\"\"", "\"");
-        }
-        return campo;
-    }
-} 
+}
@@ -0,0 +1,30 @@
+package persistencia;
+
+/**
+ * Cuándo se fuerza la escritura física a disco de lo que se guarda
+ */
+public enum PoliticaFsync {
+    /** Se fuerza cada registro del diario, cada lote y cada guardado completo */
+    SIEMPRE,
+    /**
+     * Se fuerzan los lotes de la escritura diferida, las transacciones y los guardados completos;
+     * los registros sueltos del diario quedan a cargo del sistema operativo
+     */
+    POR_LOTES,
+    /** Nunca se fuerza; un corte de energía puede perder lo escrito recientemente */
+    NUNCA;
+
+    /**
+     * Obtiene la política a partir de su nombre, sin distinguir mayúsculas
+     * @param nombre Nombre de la política (por ejemplo "siempre" o "por_lotes")
+     * @return Política correspondiente
+     */
+    public static PoliticaFsync desdeNombre(String nombre) {
+        for (PoliticaFsync politica : values()) {
+            if (politica.name().equalsIgnoreCase(nombre.trim())) {
+                return politica;
+            }
+        }
+        throw new IllegalArgumentException("Política de fsync desconocida: " + nombre);
+    }
+}
@@ -0,0 +1,260 @@
+package persistencia;
+
+import modelo.Asistente;
+import modelo.Evento;
+import util.Archivos;
+import util.MapaEnteros;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato binario compacto para los archivos de datos. Cada archivo tiene un encabezado
+ * (identificador y cantidad de registros) seguido de los registros:
+ * <ul>
+ *   <li>Asistente: id, nombre, email, teléfono</li>
+ *   <li>Evento: id, nombre, fecha (día epoch), ubicación, descripción, cantidad e IDs de asistentes,
+ *   capacidad (0 si no tiene límite), cantidad e IDs de la lista de espera</li>
+ * </ul>
+ * Los eventos escritos antes de que existiera la capacidad ({@code EVT1}) terminan en los asistentes
+ * y se siguen pudiendo leer.
+ * Los enteros ocupan 4 bytes y los textos se guardan en UTF-8 precedidos por su largo.
+ * La lectura se hace sobre el contenido del archivo en memoria, sin pasar por texto intermedio.
+ */
+class SnapshotBinario {
+
+    private static final int MAGICO_EVENTOS_SIN_CAPACIDAD = 0x45565431; // "EVT1"
+    private static final int MAGICO_EVENTOS = 0x45565432;    // "EVT2"
+    private static final int MAGICO_ASISTENTES = 0x41534931; // "ASI1"
+
+    private SnapshotBinario() {
+    }
+
+    /**
+     * Escribe los eventos en el flujo, que queda vaciado pero abierto
+     */
+    static void escribirEventos(List<Evento> eventos, OutputStream destino) throws IOException {
+        DataOutputStream out = abrirEscritura(destino);
+        out.writeInt(MAGICO_EVENTOS);
+        out.writeInt(eventos.size());
+        for (Evento evento : eventos) {
+            out.writeInt(evento.getId());
+            escribirTexto(out, evento.getNombre());
+            out.writeInt(Math.toIntExact(evento.getFecha().toEpochDay()));
+            escribirTexto(out, evento.getUbicacion());
+            escribirTexto(out, evento.getDescripcion());
+            escribirIds(out, evento.getAsistentes());
+            out.writeInt(evento.getCapacidad());
+            escribirIds(out, evento.getListaEspera());
+        }
+        out.flush();
+    }
+
+    /**
+     * Escribe los asistentes en el flujo, que queda vaciado pero abierto
+     */
+    static void escribirAsistentes(List<Asistente> asistentes, OutputStream destino) throws IOException {
+        DataOutputStream out = abrirEscritura(destino);
+        out.writeInt(MAGICO_ASISTENTES);
+        out.writeInt(asistentes.size());
+        for (Asistente asistente : asistentes) {
+            out.writeInt(asistente.getId());
+            escribirTexto(out, asistente.getNombre());
+            escribirTexto(out, asistente.getEmail());
+            escribirTexto(out, asistente.getTelefono());
+        }
+        out.flush();
+    }
+
+    /**
+     * @param esperada Tamaño y CRC32 que registró el manifiesto, o null si no registró el archivo
+     * @throws IOException si no se pudo leer, no coincide con el manifiesto o está dañado
+     */
+    static List<Asistente> leerAsistentes(Path archivo, Manifiesto.Entrada esperada) throws IOException {
+        ByteBuffer buffer = leer(archivo, esperada);
+        try {
+            return leerAsistentes(buffer);
+        } catch (RuntimeException e) {
+            throw danado(archivo, e);
+        }
+    }
+
+    private static List<Asistente> leerAsistentes(ByteBuffer buffer) throws IOException {
+        List<Asistente> asistentes = new ArrayList<>();
+        if (!buffer.hasRemaining()) {
+            return asistentes;
+        }
+
+        int cantidad = leerEncabezado(buffer, MAGICO_ASISTENTES);
+        byte[] auxiliar = new byte[256];
+        for (int i = 0; i < cantidad; i++) {
+            int id = buffer.getInt();
+            String nombre = leerTexto(buffer, auxiliar);
+            String email = leerTexto(buffer, auxiliar);
+            String telefono = leerTexto(buffer, auxiliar);
+            try {
+                asistentes.add(new Asistente(id, nombre, email, telefono));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error al leer asistente " + id + " - " + e.getMessage());
+            }
+        }
+        return asistentes;
+    }
+
+    /**
+     * @param esperada Tamaño y CRC32 que registró el manifiesto, o null si no registró el archivo
+     * @throws IOException si no se pudo leer, no coincide con el manifiesto o está dañado
+     */
+    static List<Evento> leerEventos(Path archivo, MapaEnteros<Asistente> asistentesPorId,
+                                    Manifiesto.Entrada esperada) throws IOException {
+        ByteBuffer buffer = leer(archivo, esperada);
+        try {
+            return leerEventos(buffer, asistentesPorId);
+        } catch (RuntimeException e) {
+            throw danado(archivo, e);
+        }
+    }
+
+    private static List<Evento> leerEventos(ByteBuffer buffer, MapaEnteros<Asistente> asistentesPorId)
+            throws IOException {
+        List<Evento> eventos = new ArrayList<>();
+        if (!buffer.hasRemaining()) {
+            return eventos;
+        }
+
+        boolean conCapacidad = buffer.remaining() >= Integer.BYTES
+            && buffer.getInt(buffer.position()) == MAGICO_EVENTOS;
+        int cantidad = leerEncabezado(buffer, conCapacidad ? MAGICO_EVENTOS : MAGICO_EVENTOS_SIN_CAPACIDAD);
+        byte[] auxiliar = new byte[1024];
+        for (int i = 0; i < cantidad; i++) {
+            int id = buffer.getInt();
+            String nombre = leerTexto(buffer, auxiliar);
+            LocalDate fecha = LocalDate.ofEpochDay(buffer.getInt());
+            String ubicacion = leerTexto(buffer, auxiliar);
+            String descripcion = leerTexto(buffer, auxiliar);
+            int cantidadAsistentes = leerCantidadIds(buffer);
+
+            Evento.Constructor evento;
+            try {
+                evento = new Evento.Constructor(id, nombre, fecha, ubicacion, descripcion);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error al leer evento " + id + " - " + e.getMessage());
+                buffer.position(buffer.position() + cantidadAsistentes * Integer.BYTES);
+                if (conCapacidad) {
+                    buffer.getInt();
+                    buffer.position(buffer.position() + leerCantidadIds(buffer) * Integer.BYTES);
+                }
+                continue;
+            }
+
+            for (int j = 0; j < cantidadAsistentes; j++) {
+                Asistente asistente = asistentesPorId.obtener(buffer.getInt());
+                if (asistente != null) {
+                    try {
+                        evento.agregarAsistente(asistente);
+                    } catch (Exception e) {
+                        System.err.println("Asistente duplicado en evento " + id + " - " + e.getMessage());
+                    }
+                }
+            }
+            if (conCapacidad) {
+                int capacidad = buffer.getInt();
+                int cantidadEspera = leerCantidadIds(buffer);
+                try {
+                    evento.capacidad(capacidad);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Capacidad inválida en evento " + id + " - " + e.getMessage());
+                }
+                for (int j = 0; j < cantidadEspera; j++) {
+                    Asistente asistente = asistentesPorId.obtener(buffer.getInt());
+                    if (asistente != null) {
+                        try {
+                            evento.agregarAEspera(asistente);
+                        } catch (Exception e) {
+                            System.err.println("Asistente duplicado en evento " + id + " - " + e.getMessage());
+                        }
+                    }
+                }
+            }
+            eventos.add(evento.construir());
+        }
+        return eventos;
+    }
+
+    private static DataOutputStream abrirEscritura(OutputStream destino) {
+        return new DataOutputStream(new BufferedOutputStream(destino, 1 << 16));
+    }
+
+    private static void escribirIds(DataOutputStream out, List<Asistente> asistentes) throws IOException {
+        out.writeInt(asistentes.size());
+        for (Asistente asistente : asistentes) {
+            out.writeInt(asistente.getId());
+        }
+    }
+
+    /**
+     * Lee el archivo y, si el manifiesto lo registró, verifica su tamaño y su CRC32 antes de interpretarlo
+     */
+    private static ByteBuffer leer(Path archivo, Manifiesto.Entrada esperada) throws IOException {
+        ByteBuffer buffer = Archivos.leerCompleto(archivo);
+        if (esperada != null && !esperada.coincideCon(buffer)) {
+            throw new IOException("El archivo " + archivo.getFileName()
+                + " no coincide con el manifiesto: está dañado o incompleto");
+        }
+        return buffer;
+    }
+
+    /**
+     * Un archivo dañado puede dar largos o fechas fuera de rango que se detectan recién al usarlos;
+     * se informan como un error de lectura, igual que los demás
+     */
+    private static IOException danado(Path archivo, RuntimeException causa) {
+        return new IOException("El archivo " + archivo.getFileName() + " está dañado: " + causa, causa);
+    }
+
+    private static int leerEncabezado(ByteBuffer buffer, int magicoEsperado) throws IOException {
+        if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != magicoEsperado) {
+            throw new IOException("El archivo no tiene el formato binario esperado");
+        }
+        int cantidad = buffer.getInt();
+        if (cantidad < 0) {
+            throw new IOException("Cantidad de registros inválida: " + cantidad);
+        }
+        return cantidad;
+    }
+
+    /**
+     * @return Cantidad de una lista de IDs, verificando que los IDs entren en lo que queda del archivo
+     */
+    private static int leerCantidadIds(ByteBuffer buffer) throws IOException {
+        int cantidad = buffer.getInt();
+        if (cantidad < 0 || cantidad > buffer.remaining() / Integer.BYTES) {
+            throw new IOException("Cantidad de IDs inválida: " + cantidad);
+        }
+        return cantidad;
+    }
+
+    private static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String leerTexto(ByteBuffer buffer, byte[] auxiliar) throws IOException {
+        int largo = buffer.getInt();
+        if (largo < 0 || largo > buffer.remaining()) {
+            throw new IOException("Largo de texto inválido: " + largo);
+        }
+        // Se reutiliza el arreglo auxiliar salvo para textos más largos que él
+        byte[] destino = largo <= auxiliar.length ? auxiliar : new byte[largo];
+        buffer.get(destino, 0, largo);
+        return new String(destino, 0, largo, StandardCharsets.UTF_8);
+    }
+}
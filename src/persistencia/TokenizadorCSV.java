@@ -0,0 +1,312 @@
+package persistencia;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Recorre registros CSV directamente sobre los bytes de un buffer, sin crear un String por línea
+ * ni por campo. Para cada registro solo guarda los límites de sus campos en arreglos que se
+ * reutilizan; los textos se crean recién cuando se piden y los números y fechas se leen de los bytes.
+ * <p>
+ * Las comillas siguen las mismas reglas que al escribir: una comilla abre o cierra un tramo
+ * entre comillas, donde las comas y los saltos de línea son parte del campo, y dos comillas
+ * seguidas representan una comilla literal.
+ */
+class TokenizadorCSV {
+
+    private final ByteBuffer contenido;
+    private final ByteBuffer vista;
+    private final int fin;
+    private final Charset charset;
+    private int posicion;
+
+    private int[] inicios = new int[8];
+    private int[] fines = new int[8];
+    private boolean[] conComillas = new boolean[8];
+    private int cantidadCampos;
+
+    private int inicioRegistro;
+    private int finRegistro;
+    private int lineas;
+    private int lineaRegistro;
+
+    private byte[] auxiliar = new byte[256];
+    private int[] enteros = new int[16];
+
+    /**
+     * @param contenido Buffer con los datos
+     * @param desde Posición del primer byte a recorrer
+     * @param hasta Posición siguiente al último byte a recorrer
+     */
+    TokenizadorCSV(ByteBuffer contenido, int desde, int hasta) {
+        this.contenido = contenido;
+        this.vista = contenido.duplicate();
+        this.posicion = desde;
+        this.fin = hasta;
+        this.charset = Charset.defaultCharset();
+    }
+
+    /**
+     * Crea un tokenizador para un texto ya leído, como los registros del diario
+     */
+    static TokenizadorCSV deTexto(String texto) {
+        byte[] bytes = texto.getBytes(Charset.defaultCharset());
+        return new TokenizadorCSV(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    /**
+     * Avanza al siguiente registro no vacío
+     * @return false si no quedan registros
+     */
+    boolean siguienteRegistro() {
+        while (posicion < fin) {
+            inicioRegistro = posicion;
+            lineaRegistro = lineas;
+            cantidadCampos = 0;
+
+            int inicioCampo = posicion;
+            boolean comillas = false;
+            boolean dentroComillas = false;
+            int i = posicion;
+            for (; i < fin; i++) {
+                byte b = contenido.get(i);
+                if (b == '"') {
+                    dentroComillas = !dentroComillas;
+                    comillas = true;
+                } else if (b == ',' && !dentroComillas) {
+                    agregarCampo(inicioCampo, i, comillas);
+                    inicioCampo = i + 1;
+                    comillas = false;
+                } else if (b == '\n') {
+                    lineas++;
+                    if (!dentroComillas) {
+                        break;
+                    }
+                }
+            }
+
+            posicion = i < fin ? i + 1 : fin;
+            int finCampo = i;
+            if (finCampo > inicioCampo && contenido.get(finCampo - 1) == '\r') {
+                finCampo--;
+            }
+            agregarCampo(inicioCampo, finCampo, comillas);
+            finRegistro = finCampo;
+
+            if (!enBlanco(inicioRegistro, finRegistro)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getCantidadCampos() {
+        return cantidadCampos;
+    }
+
+    /**
+     * @return Línea donde empieza el registro actual, contando desde 0 al inicio del rango
+     */
+    int getLineaRegistro() {
+        return lineaRegistro;
+    }
+
+    /**
+     * @return Cantidad de saltos de línea recorridos hasta el momento
+     */
+    int getLineas() {
+        return lineas;
+    }
+
+    boolean campoVacio(int campo) {
+        return enBlanco(inicios[campo], fines[campo]);
+    }
+
+    /**
+     * Crea el texto del campo, quitando las comillas de escape si las tiene
+     */
+    String texto(int campo) {
+        int inicio = inicios[campo];
+        int largo = fines[campo] - inicio;
+        byte[] destino = auxiliar(largo);
+        if (!conComillas[campo]) {
+            vista.limit(inicio + largo).position(inicio);
+            vista.get(destino, 0, largo);
+            return new String(destino, 0, largo, charset);
+        }
+
+        int escritos = 0;
+        for (int i = inicio; i < inicio + largo; i++) {
+            byte b = contenido.get(i);
+            if (b != '"') {
+                destino[escritos++] = b;
+            } else if (i + 1 < inicio + largo && contenido.get(i + 1) == '"') {
+                destino[escritos++] = '"';
+                i++;
+            }
+        }
+        return new String(destino, 0, escritos, charset);
+    }
+
+    /**
+     * Lee un entero del campo sin crear un texto intermedio
+     * @throws NumberFormatException si el campo no es un entero válido
+     */
+    int entero(int campo) {
+        return leerEntero(inicios[campo], fines[campo]);
+    }
+
+    /**
+     * Lee una fecha con formato yyyy-MM-dd sin crear un texto intermedio
+     * @throws IllegalArgumentException si el campo no es una fecha válida
+     */
+    LocalDate fecha(int campo) {
+        int inicio = inicios[campo];
+        int finCampo = fines[campo];
+        if (finCampo - inicio == 10 && contenido.get(inicio + 4) == '-' && contenido.get(inicio + 7) == '-') {
+            int anio = digitos(inicio, 4);
+            int mes = digitos(inicio + 5, 2);
+            int dia = digitos(inicio + 8, 2);
+            if (anio >= 0 && mes >= 0 && dia >= 0) {
+                try {
+                    return LocalDate.of(anio, mes, dia);
+                } catch (DateTimeException e) {
+                    // Se informa abajo con el texto del campo
+                }
+            }
+        }
+        throw new IllegalArgumentException("Formato de fecha inválido: " + texto(campo));
+    }
+
+    /**
+     * Lee una lista de enteros separados por el separador indicado. Los valores inválidos
+     * se informan y se omiten.
+     * @return Cantidad de enteros leídos, disponibles en {@link #getEnteros()}
+     */
+    int enteros(int campo, char separador) {
+        int cantidad = 0;
+        int inicio = inicios[campo];
+        int finCampo = fines[campo];
+        while (inicio < finCampo) {
+            int finValor = inicio;
+            while (finValor < finCampo && contenido.get(finValor) != separador) {
+                finValor++;
+            }
+            if (enBlanco(inicio, finValor)) {
+                inicio = finValor + 1;
+                continue;
+            }
+            try {
+                int valor = leerEntero(inicio, finValor);
+                if (cantidad == enteros.length) {
+                    int[] ampliado = new int[cantidad * 2];
+                    System.arraycopy(enteros, 0, ampliado, 0, cantidad);
+                    enteros = ampliado;
+                }
+                enteros[cantidad++] = valor;
+            } catch (NumberFormatException e) {
+                System.err.println("Valor inválido en la lista: " + textoCrudo(inicio, finValor));
+            }
+            inicio = finValor + 1;
+        }
+        return cantidad;
+    }
+
+    /**
+     * @return Arreglo reutilizado con los enteros leídos por la última llamada a {@link #enteros(int, char)}
+     */
+    int[] getEnteros() {
+        return enteros;
+    }
+
+    /**
+     * Texto completo del registro actual, solo para mensajes de error
+     */
+    String registroComoTexto() {
+        return textoCrudo(inicioRegistro, finRegistro);
+    }
+
+    private int leerEntero(int inicio, int finValor) {
+        while (inicio < finValor && esEspacio(contenido.get(inicio))) {
+            inicio++;
+        }
+        while (finValor > inicio && esEspacio(contenido.get(finValor - 1))) {
+            finValor--;
+        }
+        boolean negativo = inicio < finValor && contenido.get(inicio) == '-';
+        int i = negativo ? inicio + 1 : inicio;
+        long valor = 0;
+        boolean valido = i < finValor && finValor - i <= 10;
+        for (; valido && i < finValor; i++) {
+            int digito = contenido.get(i) - '0';
+            valido = digito >= 0 && digito <= 9;
+            valor = valor * 10 + digito;
+        }
+        valor = negativo ? -valor : valor;
+        if (!valido || valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + textoCrudo(inicio, finValor) + "\"");
+        }
+        return (int) valor;
+    }
+
+    private int digitos(int inicio, int cantidad) {
+        int valor = 0;
+        for (int i = inicio; i < inicio + cantidad; i++) {
+            int digito = contenido.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return -1;
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    private void agregarCampo(int inicio, int finCampo, boolean comillas) {
+        if (cantidadCampos == inicios.length) {
+            int capacidad = cantidadCampos * 2;
+            int[] nuevosInicios = new int[capacidad];
+            int[] nuevosFines = new int[capacidad];
+            boolean[] nuevasComillas = new boolean[capacidad];
+            System.arraycopy(inicios, 0, nuevosInicios, 0, cantidadCampos);
+            System.arraycopy(fines, 0, nuevosFines, 0, cantidadCampos);
+            System.arraycopy(conComillas, 0, nuevasComillas, 0, cantidadCampos);
+            inicios = nuevosInicios;
+            fines = nuevosFines;
+            conComillas = nuevasComillas;
+        }
+        inicios[cantidadCampos] = inicio;
+        fines[cantidadCampos] = finCampo;
+        conComillas[cantidadCampos] = comillas;
+        cantidadCampos++;
+    }
+
+    private boolean enBlanco(int inicio, int finTexto) {
+        for (int i = inicio; i < finTexto; i++) {
+            if (!esEspacio(contenido.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String textoCrudo(int inicio, int finTexto) {
+        int largo = finTexto - inicio;
+        byte[] destino = new byte[largo];
+        vista.limit(finTexto).position(inicio);
+        vista.get(destino, 0, largo);
+        return new String(destino, charset);
+    }
+
+    private byte[] auxiliar(int largo) {
+        if (auxiliar.length < largo) {
+            auxiliar = new byte[Math.max(largo, auxiliar.length * 2)];
+        }
+        return auxiliar;
+    }
+
+    private static boolean esEspacio(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
@@ -0,0 +1,34 @@
+package servicio;
+
+import modelo.Evento;
+import java.time.LocalDate;
+
+/**
+ * Clave del índice de eventos por nombre (sin distinguir mayúsculas) y fecha
+ */
+final class ClaveNombreFecha {
+    private final String nombre;
+    private final long dia;
+
+    ClaveNombreFecha(String nombre, LocalDate fecha) {
+        this.nombre = nombre == null ? "" : nombre.trim().toLowerCase();
+        this.dia = fecha.toEpochDay();
+    }
+
+    ClaveNombreFecha(Evento evento) {
+        this(evento.getNombre(), evento.getFecha());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof ClaveNombreFecha)) return false;
+        ClaveNombreFecha otra = (ClaveNombreFecha) obj;
+        return dia == otra.dia && nombre.equals(otra.nombre);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * nombre.hashCode() + Long.hashCode(dia);
+    }
+}
@@ -0,0 +1,453 @@
+package servicio;
+
+import modelo.Asistente;
+import modelo.Evento;
+import util.MapaEnteros;
+import util.MapaEnterosPersistente;
+import util.MapaPersistente;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Estado inmutable del gestor: eventos y asistentes junto con todos sus índices. Cada cambio
+ * crea un estado nuevo que comparte con el anterior todo lo que no cambió, y el gestor lo publica
+ * reemplazando una referencia. Quien obtiene un estado ve siempre los datos de un mismo momento,
+ * sin bloqueos ni copias, aunque mientras tanto se publiquen otros.
+ * <p>
+ * Los eventos son inmutables: un cambio crea un evento nuevo que reemplaza al anterior en el
+ * estado siguiente, y el índice inverso se actualiza con las diferencias entre ambos, que se
+ * obtienen sin recorrer los asistentes que comparten.
+ */
+public final class EstadoEventos {
+
+    static final EstadoEventos VACIO = new EstadoEventos(MapaEnterosPersistente.vacio(),
+        MapaEnterosPersistente.vacio(), MapaPersistente.vacio(), MapaPersistente.vacio(),
+        MapaEnterosPersistente.vacio(), MapaEnterosPersistente.vacio(), IndiceTexto.VACIO);
+
+    private static final Comparator<Evento> POR_FECHA =
+        Comparator.comparing(Evento::getFecha).thenComparingInt(Evento::getId);
+
+    private final MapaEnterosPersistente<Evento> eventosPorId;
+    private final MapaEnterosPersistente<Asistente> asistentesPorId;
+    private final MapaPersistente<String, Asistente> asistentesPorEmail; // Clave: email normalizado, único
+    private final MapaPersistente<ClaveNombreFecha, Evento> eventosPorNombreFecha;
+    // Eventos por día epoch y, dentro de cada día, por ID
+    private final MapaEnterosPersistente<MapaEnterosPersistente<Evento>> eventosPorFecha;
+    // Índice inverso: por ID de asistente, los IDs de los eventos en que está inscripto, ordenados.
+    // Los arreglos no se modifican: cada cambio arma uno nuevo
+    private final MapaEnterosPersistente<int[]> eventosPorAsistente;
+    // Términos del nombre, la ubicación y la descripción. Los estados armados con desde() no lo
+    // tienen (null), para no demorar la carga: el gestor lo arma con conIndiceTexto() en la
+    // primera búsqueda. VACIO ya tiene uno vacío. Una vez presente, cada estado derivado lo actualiza
+    private final IndiceTexto indiceTexto;
+
+    private EstadoEventos(MapaEnterosPersistente<Evento> eventosPorId,
+                          MapaEnterosPersistente<Asistente> asistentesPorId,
+                          MapaPersistente<String, Asistente> asistentesPorEmail,
+                          MapaPersistente<ClaveNombreFecha, Evento> eventosPorNombreFecha,
+                          MapaEnterosPersistente<MapaEnterosPersistente<Evento>> eventosPorFecha,
+                          MapaEnterosPersistente<int[]> eventosPorAsistente,
+                          IndiceTexto indiceTexto) {
+        this.eventosPorId = eventosPorId;
+        this.asistentesPorId = asistentesPorId;
+        this.asistentesPorEmail = asistentesPorEmail;
+        this.eventosPorNombreFecha = eventosPorNombreFecha;
+        this.eventosPorFecha = eventosPorFecha;
+        this.eventosPorAsistente = eventosPorAsistente;
+        this.indiceTexto = indiceTexto;
+    }
+
+    /**
+     * Arma el estado con los datos cargados de una sola vez, informando los duplicados que no
+     * entran en los índices únicos. Si un ID se repite queda el último registro con ese ID.
+     */
+    static EstadoEventos desde(List<Evento> eventos, List<Asistente> asistentes) {
+        MapaEnteros<Asistente> ultimosAsistentes = new MapaEnteros<>(asistentes.size());
+        asistentes.forEach(asistente -> ultimosAsistentes.poner(asistente.getId(), asistente));
+        MapaEnterosPersistente.Constructor<Asistente> asistentesPorId = new MapaEnterosPersistente.Constructor<>();
+        Map<String, Asistente> asistentesPorEmail = new HashMap<>(asistentes.size() * 4 / 3 + 1);
+        for (Asistente asistente : asistentes) {
+            if (ultimosAsistentes.obtener(asistente.getId()) != asistente) {
+                continue;
+            }
+            asistentesPorId.agregar(asistente.getId(), asistente);
+            Asistente existente = asistentesPorEmail.putIfAbsent(asistente.getEmail(), asistente);
+            if (existente != null) {
+                System.err.println("Email duplicado en los datos cargados: " + asistente.getEmail()
+                    + " (asistentes " + existente.getId() + " y " + asistente.getId() + ")");
+            }
+        }
+
+        MapaEnteros<Evento> ultimosEventos = new MapaEnteros<>(eventos.size());
+        eventos.forEach(evento -> ultimosEventos.poner(evento.getId(), evento));
+        MapaEnterosPersistente.Constructor<Evento> eventosPorId = new MapaEnterosPersistente.Constructor<>();
+        Map<ClaveNombreFecha, Evento> eventosPorNombreFecha = new HashMap<>(eventos.size() * 4 / 3 + 1);
+        MapaEnteros<MapaEnterosPersistente.Constructor<Evento>> dias = new MapaEnteros<>();
+        // Inscripciones como (ID de asistente, ID de evento) empaquetadas en un long, para ordenarlas juntas
+        long[] inscripciones = new long[16];
+        int cantidadInscripciones = 0;
+        for (Evento evento : eventos) {
+            if (ultimosEventos.obtener(evento.getId()) != evento) {
+                continue;
+            }
+            for (Asistente asistente : evento.getAsistentes()) {
+                if (cantidadInscripciones == inscripciones.length) {
+                    inscripciones = Arrays.copyOf(inscripciones, cantidadInscripciones * 2);
+                }
+                inscripciones[cantidadInscripciones++] = (long) asistente.getId() << 32 | evento.getId();
+            }
+            int dia = dia(evento.getFecha());
+            eventosPorId.agregar(evento.getId(), evento);
+            MapaEnterosPersistente.Constructor<Evento> delDia = dias.obtener(dia);
+            if (delDia == null) {
+                delDia = new MapaEnterosPersistente.Constructor<>();
+                dias.poner(dia, delDia);
+            }
+            delDia.agregar(evento.getId(), evento);
+            Evento existente = eventosPorNombreFecha.putIfAbsent(new ClaveNombreFecha(evento), evento);
+            if (existente != null) {
+                System.err.println("Evento duplicado en los datos cargados: " + evento.getNombre() + " el "
+                    + evento.getFecha() + " (eventos " + existente.getId() + " y " + evento.getId() + ")");
+            }
+        }
+        MapaEnterosPersistente.Constructor<MapaEnterosPersistente<Evento>> eventosPorFecha =
+            new MapaEnterosPersistente.Constructor<>();
+        dias.paraCadaValor(delDia -> {
+            MapaEnterosPersistente<Evento> construido = delDia.construir();
+            eventosPorFecha.agregar(dia(construido.iterator().next().getFecha()), construido);
+        });
+
+        Arrays.parallelSort(inscripciones, 0, cantidadInscripciones);
+        MapaEnterosPersistente.Constructor<int[]> eventosPorAsistente = new MapaEnterosPersistente.Constructor<>();
+        for (int i = 0; i < cantidadInscripciones; ) {
+            int idAsistente = (int) (inscripciones[i] >>> 32);
+            int fin = i;
+            while (fin < cantidadInscripciones && (int) (inscripciones[fin] >>> 32) == idAsistente) {
+                fin++;
+            }
+            int[] ids = new int[fin - i];
+            int distintos = 0;
+            for (; i < fin; i++) {
+                // Un asistente repetido en un evento queda una sola vez
+                if (distintos == 0 || ids[distintos - 1] != (int) inscripciones[i]) {
+                    ids[distintos++] = (int) inscripciones[i];
+                }
+            }
+            eventosPorAsistente.agregar(idAsistente, distintos == ids.length ? ids : Arrays.copyOf(ids, distintos));
+        }
+
+        return new EstadoEventos(eventosPorId.construir(), asistentesPorId.construir(),
+            MapaPersistente.desde(asistentesPorEmail), MapaPersistente.desde(eventosPorNombreFecha),
+            eventosPorFecha.construir(), eventosPorAsistente.construir(), null);
+    }
+
+    public Optional<Evento> buscarEvento(int id) {
+        return Optional.ofNullable(eventosPorId.obtener(id));
+    }
+
+    public Optional<Asistente> buscarAsistente(int id) {
+        return Optional.ofNullable(asistentesPorId.obtener(id));
+    }
+
+    /**
+     * Busca un asistente por email, sin distinguir mayúsculas ni espacios en los extremos
+     */
+    public Optional<Asistente> buscarAsistentePorEmail(String email) {
+        String clave = Asistente.normalizarEmail(email);
+        return clave == null ? Optional.empty() : Optional.ofNullable(asistentesPorEmail.obtener(clave));
+    }
+
+    public int getCantidadEventos() {
+        return eventosPorId.tamanio();
+    }
+
+    public int getCantidadAsistentes() {
+        return asistentesPorId.tamanio();
+    }
+
+    /**
+     * @return Eventos ordenados por fecha y, dentro de cada día, por ID
+     */
+    public Iterable<Evento> eventos() {
+        return () -> recorrerPorFecha(false);
+    }
+
+    /**
+     * @return Asistentes ordenados por ID
+     */
+    public Iterable<Asistente> asistentes() {
+        return asistentesPorId;
+    }
+
+    /**
+     * Busca eventos por palabras de su nombre, ubicación o descripción, sin distinguir mayúsculas
+     * ni acentos. Los términos separados por espacios deben estar todos; {@code OR} separa
+     * alternativas, como en {@code "rock palermo OR jazz"}. Los estados que publica el gestor
+     * luego de la primera búsqueda ya tienen el índice de texto; en uno que no lo tenga, se arma
+     * para esta consulta recorriendo todos los eventos.
+     * @return Eventos de mayor a menor relevancia; vacía si la consulta no tiene términos
+     */
+    public List<Evento> buscarEventos(String consulta) {
+        return conIndiceTexto().indiceTexto.buscar(consulta, eventosPorId);
+    }
+
+    boolean tieneIndiceTexto() {
+        return indiceTexto != null;
+    }
+
+    /**
+     * @return Estado con el índice de texto armado; este mismo si ya lo tenía
+     */
+    EstadoEventos conIndiceTexto() {
+        if (indiceTexto != null) {
+            return this;
+        }
+        IndiceTexto.Constructor constructor = new IndiceTexto.Constructor();
+        eventosPorId.forEach(constructor::agregar);
+        return new EstadoEventos(eventosPorId, asistentesPorId, asistentesPorEmail, eventosPorNombreFecha,
+            eventosPorFecha, eventosPorAsistente, constructor.construir());
+    }
+
+    /**
+     * @return Eventos en que está inscripto el asistente, ordenados por fecha y, dentro de cada día, por ID
+     */
+    public List<Evento> listarEventosDeAsistente(int idAsistente) {
+        int[] ids = eventosPorAsistente.obtener(idAsistente);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<Evento> lista = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            lista.add(eventosPorId.obtener(id));
+        }
+        lista.sort(POR_FECHA);
+        return lista;
+    }
+
+    Evento buscarEventoPorNombreFecha(String nombre, LocalDate fecha) {
+        return eventosPorNombreFecha.obtener(new ClaveNombreFecha(nombre, fecha));
+    }
+
+    List<Evento> listarEventosPorId() {
+        List<Evento> lista = new ArrayList<>(eventosPorId.tamanio());
+        eventosPorId.forEach(lista::add);
+        return lista;
+    }
+
+    List<Asistente> listarAsistentesPorId() {
+        List<Asistente> lista = new ArrayList<>(asistentesPorId.tamanio());
+        asistentesPorId.forEach(lista::add);
+        return lista;
+    }
+
+    /**
+     * Recorre todos los eventos por fecha y, dentro de cada día, por ID
+     */
+    Iterator<Evento> recorrerPorFecha(boolean descendente) {
+        return new RecorridoPorFecha(eventosPorFecha.recorrer(descendente), descendente);
+    }
+
+    /**
+     * Recorre los eventos desde una fecha: los posteriores en orden ascendente, o los
+     * anteriores en orden descendente
+     */
+    Iterator<Evento> recorrerPorFechaDesde(LocalDate fecha, boolean incluida, boolean descendente) {
+        return new RecorridoPorFecha(eventosPorFecha.recorrerDesde(diaConsulta(fecha), incluida, descendente),
+            descendente);
+    }
+
+    /**
+     * Recorre los eventos que siguen a la posición (fecha, ID) en el sentido indicado
+     */
+    Iterator<Evento> recorrerPorFechaDespuesDe(LocalDate fecha, int id, boolean descendente) {
+        int dia = diaConsulta(fecha);
+        RecorridoPorFecha recorrido = new RecorridoPorFecha(eventosPorFecha.recorrerDesde(dia, true, descendente),
+            descendente);
+        recorrido.continuarDespuesDe(dia, id);
+        return recorrido;
+    }
+
+    /**
+     * @return Estado con el evento agregado, o reemplazando al que tenga su mismo ID
+     * @throws IllegalArgumentException si la fecha del evento está fuera del rango admitido
+     */
+    EstadoEventos conEvento(Evento evento) {
+        int dia = dia(evento.getFecha());
+        Evento anterior = eventosPorId.obtener(evento.getId());
+        EstadoEventos base = anterior == null ? this : quitarDeIndices(anterior, eventosPorAsistente, indiceTexto);
+
+        ClaveNombreFecha clave = new ClaveNombreFecha(evento);
+        MapaPersistente<ClaveNombreFecha, Evento> porNombreFecha = base.eventosPorNombreFecha;
+        // Si se cargaron duplicados, el índice conserva el primero
+        if (!porNombreFecha.contiene(clave)) {
+            porNombreFecha = porNombreFecha.poner(clave, evento);
+        }
+        MapaEnterosPersistente<Evento> delDia = base.eventosPorFecha.obtener(dia);
+        if (delDia == null) {
+            delDia = MapaEnterosPersistente.vacio();
+        }
+
+        return new EstadoEventos(base.eventosPorId.poner(evento.getId(), evento), asistentesPorId,
+            asistentesPorEmail, porNombreFecha, base.eventosPorFecha.poner(dia, delDia.poner(evento.getId(), evento)),
+            reemplazarInscripciones(anterior, evento),
+            indiceTexto == null ? null : indiceTexto.reemplazar(anterior, evento));
+    }
+
+    /**
+     * @return Estado sin el evento con ese ID; este mismo si no estaba
+     */
+    EstadoEventos sinEvento(int id) {
+        Evento evento = eventosPorId.obtener(id);
+        if (evento == null) {
+            return this;
+        }
+
+        MapaEnterosPersistente<int[]> porAsistente = eventosPorAsistente;
+        for (Asistente asistente : evento.getAsistentes()) {
+            porAsistente = quitarInscripcion(porAsistente, asistente.getId(), id);
+        }
+        return quitarDeIndices(evento, porAsistente, indiceTexto == null ? null : indiceTexto.quitar(evento));
+    }
+
+    /**
+     * @return Estado con el asistente agregado; si se repite el email, el índice conserva el primero
+     */
+    EstadoEventos conAsistente(Asistente asistente) {
+        MapaPersistente<String, Asistente> porEmail = asistentesPorEmail;
+        if (!porEmail.contiene(asistente.getEmail())) {
+            porEmail = porEmail.poner(asistente.getEmail(), asistente);
+        }
+        return new EstadoEventos(eventosPorId, asistentesPorId.poner(asistente.getId(), asistente), porEmail,
+            eventosPorNombreFecha, eventosPorFecha, eventosPorAsistente, indiceTexto);
+    }
+
+    /**
+     * @return Estado sin el evento en los índices por ID, por nombre y fecha y por fecha,
+     * con el índice inverso y el de texto indicados
+     */
+    private EstadoEventos quitarDeIndices(Evento evento, MapaEnterosPersistente<int[]> porAsistente,
+                                          IndiceTexto texto) {
+        int id = evento.getId();
+        int dia = dia(evento.getFecha());
+        MapaEnterosPersistente<MapaEnterosPersistente<Evento>> porFecha = eventosPorFecha;
+        MapaEnterosPersistente<Evento> delDia = porFecha.obtener(dia).quitar(id);
+        porFecha = delDia.estaVacio() ? porFecha.quitar(dia) : porFecha.poner(dia, delDia);
+
+        return new EstadoEventos(eventosPorId.quitar(id), asistentesPorId, asistentesPorEmail,
+            eventosPorNombreFecha.quitar(new ClaveNombreFecha(evento), evento), porFecha, porAsistente, texto);
+    }
+
+    /**
+     * @return Índice inverso actualizado con las diferencias de asistentes entre el evento anterior
+     * (null si es nuevo) y el que lo reemplaza. Solo se recorren los inscriptos que cambiaron.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private MapaEnterosPersistente<int[]> reemplazarInscripciones(Evento anterior, Evento evento) {
+        int idEvento = evento.getId();
+        // En un arreglo para poder reemplazarlo desde las lambdas
+        MapaEnterosPersistente<int[]>[] porAsistente = new MapaEnterosPersistente[] {eventosPorAsistente};
+        Evento.diferenciasDeAsistentes(anterior, evento,
+            idAsistente -> porAsistente[0] = quitarInscripcion(porAsistente[0], idAsistente, idEvento),
+            idAsistente -> porAsistente[0] = ponerInscripcion(porAsistente[0], idAsistente, idEvento));
+        return porAsistente[0];
+    }
+
+    private static MapaEnterosPersistente<int[]> ponerInscripcion(
+            MapaEnterosPersistente<int[]> porAsistente, int idAsistente, int idEvento) {
+        int[] ids = porAsistente.obtener(idAsistente);
+        if (ids == null) {
+            return porAsistente.poner(idAsistente, new int[] {idEvento});
+        }
+        int posicion = Arrays.binarySearch(ids, idEvento);
+        if (posicion >= 0) {
+            return porAsistente;
+        }
+        posicion = -posicion - 1;
+        int[] nuevos = new int[ids.length + 1];
+        System.arraycopy(ids, 0, nuevos, 0, posicion);
+        nuevos[posicion] = idEvento;
+        System.arraycopy(ids, posicion, nuevos, posicion + 1, ids.length - posicion);
+        return porAsistente.poner(idAsistente, nuevos);
+    }
+
+    private static MapaEnterosPersistente<int[]> quitarInscripcion(
+            MapaEnterosPersistente<int[]> porAsistente, int idAsistente, int idEvento) {
+        int[] ids = porAsistente.obtener(idAsistente);
+        int posicion = ids == null ? -1 : Arrays.binarySearch(ids, idEvento);
+        if (posicion < 0) {
+            return porAsistente;
+        }
+        if (ids.length == 1) {
+            return porAsistente.quitar(idAsistente);
+        }
+        int[] nuevos = new int[ids.length - 1];
+        System.arraycopy(ids, 0, nuevos, 0, posicion);
+        System.arraycopy(ids, posicion + 1, nuevos, posicion, nuevos.length - posicion);
+        return porAsistente.poner(idAsistente, nuevos);
+    }
+
+    private static int dia(LocalDate fecha) {
+        long dia = fecha.toEpochDay();
+        if (dia != (int) dia) {
+            throw new IllegalArgumentException("Fecha fuera del rango admitido: " + fecha);
+        }
+        return (int) dia;
+    }
+
+    /**
+     * Día de una fecha de consulta; las que quedan fuera del rango admitido se acotan a sus extremos
+     */
+    private static int diaConsulta(LocalDate fecha) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, fecha.toEpochDay()));
+    }
+
+    /**
+     * Recorre los días del índice por fecha y, dentro de cada uno, sus eventos por ID
+     */
+    private static final class RecorridoPorFecha implements Iterator<Evento> {
+        private final MapaEnterosPersistente.Recorrido<MapaEnterosPersistente<Evento>> dias;
+        private final boolean descendente;
+        private Iterator<Evento> delDia;
+
+        RecorridoPorFecha(MapaEnterosPersistente.Recorrido<MapaEnterosPersistente<Evento>> dias, boolean descendente) {
+            this.dias = dias;
+            this.descendente = descendente;
+        }
+
+        /**
+         * Si el recorrido empieza en el día indicado, saltea de ese día los eventos hasta el ID inclusive
+         */
+        void continuarDespuesDe(int dia, int id) {
+            if (dias.hasNext()) {
+                MapaEnterosPersistente<Evento> primerDia = dias.next();
+                delDia = dias.getClave() == dia
+                    ? primerDia.recorrerDesde(id, false, descendente)
+                    : primerDia.recorrer(descendente);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ((delDia == null || !delDia.hasNext()) && dias.hasNext()) {
+                delDia = dias.next().recorrer(descendente);
+            }
+            return delDia != null && delDia.hasNext();
+        }
+
+        @Override
+        public Evento next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return delDia.next();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package servicio;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fecha del día según un reloj, leída una vez por día y no en cada consulta. Un hilo propio
+ * vuelve a leerla al llegar la medianoche de la zona del reloj, y con ella cambia qué eventos
+ * son futuros y cuáles pasados.
+ */
+final class FechaActual {
+
+    // Aunque falte más, se vuelve a mirar el reloj cada hora: los temporizadores no
+    // descuentan el tiempo en que el equipo estuvo suspendido
+    private static final long DEMORA_MAXIMA_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final Clock reloj;
+    private final ScheduledExecutorService temporizador;
+    private volatile LocalDate hoy;
+
+    FechaActual(Clock reloj) {
+        this.reloj = reloj;
+        this.hoy = LocalDate.now(reloj);
+        this.temporizador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread t = new Thread(tarea, "cambio-de-dia");
+            t.setDaemon(true);
+            return t;
+        });
+        programarActualizacion();
+    }
+
+    LocalDate hoy() {
+        return hoy;
+    }
+
+    /**
+     * Vuelve a leer la fecha del reloj
+     * @return Fecha actual
+     */
+    LocalDate actualizar() {
+        hoy = LocalDate.now(reloj);
+        return hoy;
+    }
+
+    void cerrar() {
+        temporizador.shutdownNow();
+    }
+
+    private void programarActualizacion() {
+        ZonedDateTime ahora = ZonedDateTime.now(reloj);
+        ZonedDateTime medianoche = ahora.toLocalDate().plusDays(1).atStartOfDay(ahora.getZone());
+        long demora = Math.min(Math.max(Duration.between(ahora, medianoche).toMillis(), 0), DEMORA_MAXIMA_MS);
+        try {
+            temporizador.schedule(() -> {
+                actualizar();
+                programarActualizacion();
+            }, demora, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Se cerró el gestor: no hace falta seguir actualizando la fecha
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package servicio;
+
+/**
+ * Eventos que incluye una consulta paginada
+ */
+public enum FiltroEventos {
+    TODOS,
+    /** Eventos de hoy en adelante */
+    FUTUROS,
+    /** Eventos anteriores a hoy */
+    PASADOS
+}
@@ -4,24 +4,84 @@ import excepciones.EventoException;
 import excepciones.PersistenciaException;
 import modelo.Evento;
 import modelo.Asistente;
+import modelo.ResultadoInscripcion;
+import persistencia.ConfiguracionPersistencia;
+import persistencia.DatosCargados;
 import persistencia.PersistenciaArchivos;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class GestorEventos {
-    private List<Evento> eventos;
-    private int contadorId;
-    private int contadorIdAsistente;
+    // Cantidad de bloqueos entre los que se reparten los eventos; potencia de 2
+    private static final int GRUPOS_DE_EVENTOS = 256;
+    
+    private static final AtomicReferenceFieldUpdater<GestorEventos, EstadoEventos> ESTADO =
+        AtomicReferenceFieldUpdater.newUpdater(GestorEventos.class, EstadoEventos.class, "estado");
+    
+    private final AtomicInteger contadorId;
+    private final AtomicInteger contadorIdAsistente;
     private PersistenciaArchivos persistencia;
-    private List<Asistente> asistentes;
+    
+    // Estado publicado con los datos y sus índices. Las consultas lo leen sin bloqueos;
+    // cada cambio arma un estado nuevo a partir del actual y lo publica reemplazando la referencia
+    // (las inscripciones, que corren en paralelo, con compareAndSet)
+    private volatile EstadoEventos estado;
+    
+    // IDs con cambios que todavía no se escribieron en los archivos de datos. El de eventos
+    // lo actualizan en paralelo las inscripciones
+    private final Set<Integer> eventosModificados;
+    private final Set<Integer> asistentesModificados;
+    private final AtomicLong bytesEscritos = new AtomicLong();
+    
+    // Los cambios, la carga y el guardado toman el bloqueo exclusivo y se ejecutan de a uno.
+    // Los cambios de inscripciones en modo diario toman el compartido y el del grupo de su
+    // evento, así que los de eventos de grupos distintos no se esperan entre sí
+    private final ReentrantReadWriteLock bloqueo = new ReentrantReadWriteLock();
+    private final Lock bloqueoEscritura = bloqueo.writeLock();
+    private final Lock bloqueoInscripciones = bloqueo.readLock();
+    private final ReentrantLock[] bloqueosPorEvento = new ReentrantLock[GRUPOS_DE_EVENTOS];
+    
+    // Día que separa los eventos futuros de los pasados; cambia a medianoche
+    private final FechaActual fechaActual;
     
     public GestorEventos() {
-        this.eventos = new ArrayList<>();
-        this.asistentes = new ArrayList<>();
-        this.persistencia = new PersistenciaArchivos();
-        this.contadorId = 1;
-        this.contadorIdAsistente = 1;
+        this(ConfiguracionPersistencia.desdePropiedadesSistema());
+    }
+    
+    /**
+     * Crea el gestor con una configuración de persistencia particular
+     * @param configuracion Opciones de almacenamiento (por ejemplo, modo diario)
+     */
+    public GestorEventos(ConfiguracionPersistencia configuracion) {
+        this(configuracion, Clock.systemDefaultZone());
+    }
+    
+    /**
+     * Crea el gestor con una configuración de persistencia y un reloj particulares
+     * @param configuracion Opciones de almacenamiento (por ejemplo, modo diario)
+     * @param reloj Reloj del que se toma la fecha actual; permite simular otros días
+     */
+    public GestorEventos(ConfiguracionPersistencia configuracion, Clock reloj) {
+        this.fechaActual = new FechaActual(reloj);
+        this.estado = EstadoEventos.VACIO;
+        this.eventosModificados = ConcurrentHashMap.newKeySet();
+        this.asistentesModificados = new HashSet<>();
+        this.persistencia = new PersistenciaArchivos(configuracion);
+        this.contadorId = new AtomicInteger(1);
+        this.contadorIdAsistente = new AtomicInteger(1);
+        for (int i = 0; i < bloqueosPorEvento.length; i++) {
+            bloqueosPorEvento[i] = new ReentrantLock();
+        }
         
         try {
             cargarDatos();
@@ -32,92 +92,52 @@ public class GestorEventos {
     
     public Evento crearEvento(String nombre, LocalDate fecha, String ubicacion, String descripcion) 
             throws EventoException {
-        
-        // Validaciones adicionales de negocio
-        if (fecha.isBefore(LocalDate.now())) {
-            throw new EventoException("La fecha del evento no puede ser anterior a hoy");
-        }
-        
-        // Verificar si ya existe un evento con el mismo nombre en la misma fecha
-        boolean existeEvento = eventos.stream()
-            .anyMatch(e -> e.getNombre().equalsIgnoreCase(nombre) && e.getFecha().equals(fecha));
-            
-        if (existeEvento) {
-            throw new EventoException("Ya existe un evento con el mismo nombre en esa fecha");
-        }
-        
-        try {
-            Evento nuevoEvento = new Evento(contadorId++, nombre, fecha, ubicacion, descripcion);
-            eventos.add(nuevoEvento);
-            guardarDatos();
-            return nuevoEvento;
-        } catch (Exception e) {
-            throw new EventoException("Error al crear evento: " + e.getMessage(), e);
-        }
+        return ejecutar(tx -> tx.crearEvento(nombre, fecha, ubicacion, descripcion), "Error al crear evento");
     }
     
     public void modificarEvento(int id, String nombre, LocalDate fecha, String ubicacion, String descripcion) 
             throws EventoException {
-        
-        Optional<Evento> eventoOpt = buscarEventoPorId(id);
-        if (!eventoOpt.isPresent()) {
-            throw new EventoException("No se encontró el evento con ID: " + id);
-        }
-        
-        Evento evento = eventoOpt.get();
-        
-        // Si es un evento pasado, no permitir modificaciones
-        if (evento.esPasado()) {
-            throw new EventoException("No se puede modificar un evento que ya pasó");
-        }
-        
-        try {
-            evento.setNombre(nombre);
-            evento.setFecha(fecha);
-            evento.setUbicacion(ubicacion);
-            evento.setDescripcion(descripcion);
-            guardarDatos();
-        } catch (Exception e) {
-            throw new EventoException("Error al modificar evento: " + e.getMessage(), e);
-        }
+        ejecutar(tx -> {
+            tx.modificarEvento(id, nombre, fecha, ubicacion, descripcion);
+            return null;
+        }, "Error al modificar evento");
     }
     
     public void eliminarEvento(int id) throws EventoException {
-        Optional<Evento> eventoOpt = buscarEventoPorId(id);
-        if (!eventoOpt.isPresent()) {
-            throw new EventoException("No se encontró el evento con ID: " + id);
-        }
-        
-        Evento evento = eventoOpt.get();
-        eventos.remove(evento);
-        
-        try {
-            guardarDatos();
-        } catch (PersistenciaException e) {
-            // Rollback: volver a agregar el evento
-            eventos.add(evento);
-            throw new EventoException("Error al eliminar evento: " + e.getMessage(), e);
-        }
+        ejecutar(tx -> {
+            tx.eliminarEvento(id);
+            return null;
+        }, "Error al eliminar evento");
+    }
+    
+    /**
+     * Aplica varios cambios como una unidad: cada operación se valida contra el estado que dejan
+     * las anteriores, y si alguna falla no se aplica ninguna. Los cambios se publican juntos y se
+     * persisten una sola vez (en modo diario, como un único lote de registros).
+     * @param trabajo Operaciones a aplicar sobre la transacción
+     * @throws EventoException si alguna operación es inválida o no se pudo guardar el conjunto
+     */
+    public void transaccion(UnidadDeTrabajo trabajo) throws EventoException {
+        ejecutar(tx -> {
+            trabajo.ejecutar(tx);
+            return null;
+        }, "Error al guardar la transacción");
     }
     
     public Optional<Evento> buscarEventoPorId(int id) {
-        return eventos.stream()
-            .filter(e -> e.getId() == id)
-            .findFirst();
+        return estado.buscarEvento(id);
     }
     
     public List<Evento> listarEventosFuturos() {
-        return eventos.stream()
-            .filter(Evento::esFuturo)
-            .sorted(Comparator.comparing(Evento::getFecha))
-            .collect(Collectors.toList());
+        return listar(estado.recorrerPorFechaDesde(fechaActual.hoy(), true, false));
     }
     
+    /**
+     * Obtiene los eventos pasados, del más reciente al más antiguo
+     * @return Lista de eventos pasados; los de un mismo día, por ID
+     */
     public List<Evento> listarEventosPasados() {
-        return eventos.stream()
-            .filter(Evento::esPasado)
-            .sorted(Comparator.comparing(Evento::getFecha).reversed())
-            .collect(Collectors.toList());
+        return listar(estado.recorrerPorFechaDesde(fechaActual.hoy(), false, true));
     }
     
     /**
@@ -125,9 +145,84 @@ public class GestorEventos {
      * @return Lista de todos los eventos ordenados por fecha
      */
     public List<Evento> listarTodosLosEventos() {
-        return eventos.stream()
-            .sorted(Comparator.comparing(Evento::getFecha))
-            .collect(Collectors.toList());
+        return listar(estado.recorrerPorFecha(false));
+    }
+    
+    /**
+     * Obtiene los eventos de un rango de fechas
+     * @param desde Primera fecha del rango, inclusive
+     * @param hasta Última fecha del rango, inclusive
+     * @return Eventos del rango ordenados por fecha y, dentro de cada día, por ID
+     */
+    public List<Evento> listarEventosEntre(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null) {
+            throw new IllegalArgumentException("Las fechas del rango no pueden ser nulas");
+        }
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la final");
+        }
+        
+        List<Evento> resultado = new ArrayList<>();
+        Iterator<Evento> recorrido = estado.recorrerPorFechaDesde(desde, true, false);
+        while (recorrido.hasNext()) {
+            Evento evento = recorrido.next();
+            if (evento.getFecha().isAfter(hasta)) {
+                break;
+            }
+            resultado.add(evento);
+        }
+        return resultado;
+    }
+    
+    /**
+     * Obtiene una página de eventos. La consulta continúa desde la posición guardada en el cursor
+     * directamente sobre el índice por fecha, sin recorrer las páginas anteriores.
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera página
+     * @param limite Cantidad máxima de eventos de la página, mayor a 0
+     * @param filtro Eventos a incluir
+     * @param orden Orden por fecha; los eventos de un mismo día van por ID
+     * @return Página con los eventos y el cursor de la siguiente, si hay más
+     * @throws IllegalArgumentException si el cursor es inválido o pertenece a otra consulta
+     */
+    public Pagina<Evento> paginarEventos(String cursor, int limite, FiltroEventos filtro, OrdenEventos orden) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite debe ser mayor a 0");
+        }
+        if (filtro == null || orden == null) {
+            throw new IllegalArgumentException("El filtro y el orden no pueden ser nulos");
+        }
+        
+        EstadoEventos actual = estado;
+        LocalDate hoy = fechaActual.hoy();
+        boolean descendente = orden == OrdenEventos.FECHA_DESCENDENTE;
+        CursorEventos desde = cursor == null ? null : CursorEventos.decodificar(cursor, filtro, orden);
+        
+        Iterator<Evento> recorrido;
+        // Si el filtro excluye el comienzo del recorrido, se empieza directamente en hoy
+        boolean empiezaFueraDelFiltro = (filtro == FiltroEventos.FUTUROS && !descendente)
+            || (filtro == FiltroEventos.PASADOS && descendente);
+        if (empiezaFueraDelFiltro && (desde == null || !cumpleFiltro(filtro, desde.fecha, hoy))) {
+            recorrido = actual.recorrerPorFechaDesde(hoy, !descendente, descendente);
+        } else if (desde != null) {
+            recorrido = actual.recorrerPorFechaDespuesDe(desde.fecha, desde.id, descendente);
+        } else {
+            recorrido = actual.recorrerPorFecha(descendente);
+        }
+        
+        List<Evento> elementos = new ArrayList<>(Math.min(limite, actual.getCantidadEventos()));
+        while (recorrido.hasNext()) {
+            Evento evento = recorrido.next();
+            if (!cumpleFiltro(filtro, evento.getFecha(), hoy)) {
+                break;
+            }
+            if (elementos.size() == limite) {
+                Evento ultimo = elementos.get(limite - 1);
+                return new Pagina<>(elementos, 
+                    new CursorEventos(filtro, orden, ultimo.getFecha(), ultimo.getId()).codificar());
+            }
+            elementos.add(evento);
+        }
+        return new Pagina<>(elementos, null);
     }
     
     /**
@@ -139,22 +234,7 @@ public class GestorEventos {
      * @throws EventoException si hay error en la validación
      */
     public Asistente crearAsistente(String nombre, String email, String telefono) throws EventoException {
-        // Verificar si ya existe un asistente con el mismo email
-        boolean existeAsistente = asistentes.stream()
-            .anyMatch(a -> a.getEmail().equalsIgnoreCase(email));
-            
-        if (existeAsistente) {
-            throw new EventoException("Ya existe un asistente con ese email");
-        }
-        
-        try {
-            Asistente nuevoAsistente = new Asistente(contadorIdAsistente++, nombre, email, telefono);
-            asistentes.add(nuevoAsistente);
-            guardarDatos();
-            return nuevoAsistente;
-        } catch (Exception e) {
-            throw new EventoException("Error al crear asistente: " + e.getMessage(), e);
-        }
+        return ejecutar(tx -> tx.crearAsistente(nombre, email, telefono), "Error al crear asistente");
     }
     
     /**
@@ -163,46 +243,125 @@ public class GestorEventos {
      * @return Optional con el asistente si existe
      */
     public Optional<Asistente> buscarAsistentePorId(int id) {
-        return asistentes.stream()
-            .filter(a -> a.getId() == id)
-            .findFirst();
+        return estado.buscarAsistente(id);
+    }
+    
+    /**
+     * Busca un asistente por email, sin distinguir mayúsculas ni espacios en los extremos
+     * @param email Email del asistente
+     * @return Optional con el asistente si existe
+     */
+    public Optional<Asistente> buscarAsistentePorEmail(String email) {
+        return estado.buscarAsistentePorEmail(email);
     }
     
     /**
      * Obtiene lista de todos los asistentes
-     * @return Lista de asistentes
+     * @return Lista de asistentes ordenados por ID
      */
     public List<Asistente> listarAsistentes() {
-        return new ArrayList<>(asistentes);
+        return estado.listarAsistentesPorId();
+    }
+    
+    /**
+     * Busca eventos por palabras de su nombre, ubicación o descripción, sin distinguir mayúsculas
+     * ni acentos, usando el índice de texto en lugar de recorrer los eventos. El índice se arma
+     * con la primera búsqueda, para no demorar la carga, y desde entonces se actualiza con cada cambio.
+     * @param consulta Términos que deben estar todos; {@code OR} separa alternativas
+     * @return Eventos de mayor a menor relevancia; vacía si la consulta no tiene términos
+     */
+    public List<Evento> buscarEventos(String consulta) {
+        EstadoEventos actual = estado;
+        if (!actual.tieneIndiceTexto()) {
+            // Se arma con el bloqueo para que los cambios siguientes partan de un estado que ya lo tiene
+            bloqueoEscritura.lock();
+            try {
+                estado = estado.conIndiceTexto();
+                actual = estado;
+            } finally {
+                bloqueoEscritura.unlock();
+            }
+        }
+        return actual.buscarEventos(consulta);
     }
     
     /**
-     * Agrega un asistente existente a un evento
+     * Obtiene los eventos en que está inscripto un asistente, sin recorrer todos los eventos
+     * @param idAsistente ID del asistente
+     * @return Eventos ordenados por fecha y, dentro de cada día, por ID; vacía si no tiene inscripciones
+     */
+    public List<Evento> listarEventosDeAsistente(int idAsistente) {
+        return estado.listarEventosDeAsistente(idAsistente);
+    }
+    
+    /**
+     * Fecha que separa los eventos futuros de los pasados. Se lee del reloj del gestor una vez
+     * por día, a medianoche, y no en cada consulta.
+     * @return Fecha actual según el reloj del gestor
+     */
+    public LocalDate getHoy() {
+        return fechaActual.hoy();
+    }
+    
+    /**
+     * Vuelve a leer la fecha del reloj sin esperar a la medianoche, por ejemplo luego de
+     * adelantar un reloj de prueba
+     * @return Fecha actual según el reloj del gestor
+     */
+    public LocalDate actualizarFecha() {
+        return fechaActual.actualizar();
+    }
+    
+    /**
+     * Obtiene el estado publicado más reciente. Es inmutable: todas las consultas hechas
+     * sobre él ven los datos de un mismo momento, aunque mientras tanto se hagan cambios.
+     * @return Estado actual de eventos y asistentes
+     */
+    public EstadoEventos getEstado() {
+        return estado;
+    }
+    
+    /**
+     * Agrega un asistente existente a un evento. Si el evento llegó a su capacidad, el asistente
+     * queda al final de la lista de espera. En modo diario las inscripciones en eventos distintos
+     * se hacen en paralelo.
      * @param idEvento ID del evento
      * @param idAsistente ID del asistente
-     * @throws EventoException si no existe el evento o asistente
+     * @return Si el asistente quedó inscripto o en espera
+     * @throws EventoException si no existe el evento o asistente, o ya estaba registrado
      */
-    public void agregarAsistenteAEvento(int idEvento, int idAsistente) throws EventoException {
-        Optional<Evento> eventoOpt = buscarEventoPorId(idEvento);
-        if (!eventoOpt.isPresent()) {
-            throw new EventoException("No se encontró el evento");
-        }
-        
-        Optional<Asistente> asistenteOpt = buscarAsistentePorId(idAsistente);
-        if (!asistenteOpt.isPresent()) {
-            throw new EventoException("No se encontró el asistente");
-        }
-        
-        Evento evento = eventoOpt.get();
-        Asistente asistente = asistenteOpt.get();
-        
-        evento.agregarAsistente(asistente);
-        
-        try {
-            guardarDatos();
-        } catch (PersistenciaException e) {
-            throw new EventoException("Error al agregar asistente al evento: " + e.getMessage(), e);
-        }
+    public ResultadoInscripcion agregarAsistenteAEvento(int idEvento, int idAsistente) throws EventoException {
+        return ejecutarEnEvento(idEvento, tx -> tx.agregarAsistenteAEvento(idEvento, idAsistente),
+            "Error al agregar asistente al evento");
+    }
+    
+    /**
+     * Quita un asistente de un evento o de su lista de espera. Si libera un lugar, pasa al evento
+     * el primero de la lista de espera.
+     * @param idEvento ID del evento
+     * @param idAsistente ID del asistente
+     * @throws EventoException si no existe el evento o el asistente no está registrado en él
+     */
+    public void removerAsistenteDeEvento(int idEvento, int idAsistente) throws EventoException {
+        ejecutarEnEvento(idEvento, tx -> {
+            tx.removerAsistenteDeEvento(idEvento, idAsistente);
+            return null;
+        }, "Error al quitar asistente del evento");
+    }
+    
+    /**
+     * Cambia la cantidad máxima de asistentes de un evento. Si aumenta, pasan al evento los
+     * primeros de la lista de espera que entren; si queda por debajo de los inscriptos no se
+     * quita a nadie, solo se deja de inscribir.
+     * @param idEvento ID del evento
+     * @param capacidad Cantidad máxima de asistentes; 0 para no tener límite
+     * @throws EventoException si no existe el evento, ya pasó o la capacidad es negativa
+     */
+    public void definirCapacidad(int idEvento, int capacidad) throws EventoException {
+        ejecutarEnEvento(idEvento, tx -> {
+            tx.definirCapacidad(idEvento, capacidad);
+            return null;
+        }, "Error al cambiar la capacidad del evento");
     }
     
     /**
@@ -210,23 +369,32 @@ public class GestorEventos {
      * @throws PersistenciaException si hay error en la carga
      */
     public void cargarDatos() throws PersistenciaException {
+        bloqueoEscritura.lock();
         try {
-            asistentes = persistencia.cargarAsistentes();
-            eventos = persistencia.cargarEventos();
+            DatosCargados datos = persistencia.cargarDatos();
+            List<Asistente> asistentes = datos.getAsistentes();
+            List<Evento> eventos = datos.getEventos();
+            estado = EstadoEventos.desde(eventos, asistentes);
+            
+            // Lo que cambió el diario todavía no está en los archivos de datos
+            eventosModificados.clear();
+            asistentesModificados.clear();
+            eventosModificados.addAll(datos.getEventosModificados());
+            asistentesModificados.addAll(datos.getAsistentesModificados());
             
             // Actualizar contadores
             if (!eventos.isEmpty()) {
-                contadorId = eventos.stream()
+                contadorId.set(eventos.stream()
                     .mapToInt(Evento::getId)
                     .max()
-                    .orElse(0) + 1;
+                    .orElse(0) + 1);
             }
             
             if (!asistentes.isEmpty()) {
-                contadorIdAsistente = asistentes.stream()
+                contadorIdAsistente.set(asistentes.stream()
                     .mapToInt(Asistente::getId)
                     .max()
-                    .orElse(0) + 1;
+                    .orElse(0) + 1);
             }
             
             System.out.println("Datos cargados: " + eventos.size() + " eventos, " + asistentes.size() + " asistentes");
@@ -234,20 +402,374 @@ public class GestorEventos {
         } catch (PersistenciaException e) {
             System.err.println("Error al cargar datos: " + e.getMessage());
             throw e;
+        } finally {
+            bloqueoEscritura.unlock();
         }
     }
     
     /**
-     * Guarda los datos en archivos
+     * Guarda los datos en archivos. Solo se reescriben los archivos que tienen cambios
+     * desde el último guardado, y se reemplazan juntos de forma atómica.
+     * @return Cantidad de bytes escritos
      * @throws PersistenciaException si hay error en el guardado
      */
-    public void guardarDatos() throws PersistenciaException {
+    public long guardarDatos() throws PersistenciaException {
+        bloqueoEscritura.lock();
         try {
-            persistencia.guardarEventos(eventos);
-            persistencia.guardarAsistentes(asistentes);
+            EstadoEventos actual = estado;
+            long bytes = persistencia.guardarDatos(
+                eventosModificados.isEmpty() ? null : actual.listarEventosPorId(),
+                asistentesModificados.isEmpty() ? null : actual.listarAsistentesPorId());
+            // Los archivos ya reflejan todos los cambios registrados: el diario pasó a uno nuevo
+            eventosModificados.clear();
+            asistentesModificados.clear();
+            bytesEscritos.addAndGet(bytes);
+            return bytes;
         } catch (PersistenciaException e) {
             System.err.println("Error al guardar datos: " + e.getMessage());
             throw e;
+        } finally {
+            bloqueoEscritura.unlock();
+        }
+    }
+    
+    /**
+     * Espera a que los cambios que quedaron en memoria por la escritura diferida
+     * se escriban en el diario
+     * @throws PersistenciaException si falló la escritura de algún lote
+     */
+    public void flush() throws PersistenciaException {
+        bloqueoEscritura.lock();
+        try {
+            persistencia.flush();
+        } finally {
+            bloqueoEscritura.unlock();
+        }
+    }
+    
+    /**
+     * Escribe los cambios pendientes y detiene la escritura diferida. El gestor
+     * no debe usarse luego de cerrarlo.
+     * @throws PersistenciaException si no se pudieron escribir los cambios pendientes
+     */
+    public void cerrar() throws PersistenciaException {
+        bloqueoEscritura.lock();
+        try {
+            fechaActual.cerrar();
+            persistencia.cerrar();
+        } finally {
+            bloqueoEscritura.unlock();
+        }
+    }
+    
+    /**
+     * @return true si hay cambios que todavía no se escribieron en los archivos de datos
+     */
+    public boolean hayCambiosSinGuardar() {
+        bloqueoEscritura.lock();
+        try {
+            return !eventosModificados.isEmpty() || !asistentesModificados.isEmpty();
+        } finally {
+            bloqueoEscritura.unlock();
+        }
+    }
+    
+    /**
+     * @return Total de bytes escritos en archivos de datos y diario desde que se creó el gestor
+     */
+    public long getBytesEscritos() {
+        return bytesEscritos.get();
+    }
+    
+    private static boolean cumpleFiltro(FiltroEventos filtro, LocalDate fecha, LocalDate hoy) {
+        switch (filtro) {
+            case FUTUROS:
+                return !fecha.isBefore(hoy);
+            case PASADOS:
+                return fecha.isBefore(hoy);
+            default:
+                return true;
+        }
+    }
+    
+    private static List<Evento> listar(Iterator<Evento> recorrido) {
+        List<Evento> resultado = new ArrayList<>();
+        recorrido.forEachRemaining(resultado::add);
+        return resultado;
+    }
+    
+    /**
+     * Ejecuta una operación sobre una transacción nueva con el bloqueo de escritura y, si
+     * hubo cambios, los confirma. Si la operación falla no se publica nada.
+     * @param operacion Operación a aplicar
+     * @param mensajeError Prefijo del mensaje si no se pudieron guardar los cambios
+     */
+    private <T> T ejecutar(Operacion<T> operacion, String mensajeError) throws EventoException {
+        return conBloqueoEscritura(() -> {
+            Transaccion tx = new Transaccion(estado, fechaActual.hoy(), contadorId.get(), contadorIdAsistente.get(),
+                persistencia.isDiarioActivo() ? persistencia.nuevoLote() : null);
+            T resultado;
+            try {
+                resultado = operacion.aplicar(tx);
+            } finally {
+                tx.terminar();
+            }
+            if (tx.hayCambios()) {
+                confirmar(tx, mensajeError);
+            }
+            return resultado;
+        });
+    }
+    
+    /**
+     * Ejecuta una operación que solo cambia un evento. En modo diario no toma el bloqueo
+     * exclusivo sino el compartido y el del grupo del evento: los cambios de un mismo evento van
+     * de a uno, y los de eventos de otros grupos corren en paralelo y se publican sobre el estado
+     * que vayan dejando los demás. Sin diario cada cambio reescribe los archivos completos, así
+     * que se ejecuta como cualquier otro.
+     * @param idEvento ID del único evento que cambia la operación
+     * @param operacion Operación a aplicar
+     * @param mensajeError Prefijo del mensaje si no se pudieron guardar los cambios
+     */
+    private <T> T ejecutarEnEvento(int idEvento, Operacion<T> operacion, String mensajeError)
+            throws EventoException {
+        if (!persistencia.isDiarioActivo()) {
+            return ejecutar(operacion, mensajeError);
+        }
+        
+        T resultado;
+        ReentrantLock bloqueoEvento = bloqueosPorEvento[idEvento & (GRUPOS_DE_EVENTOS - 1)];
+        bloqueoInscripciones.lock();
+        bloqueoEvento.lock();
+        try {
+            EstadoEventos base = estado;
+            Transaccion tx = new Transaccion(base, fechaActual.hoy(), contadorId.get(), contadorIdAsistente.get(),
+                persistencia.nuevoLote());
+            try {
+                resultado = operacion.aplicar(tx);
+            } finally {
+                tx.terminar();
+            }
+            if (tx.hayCambios()) {
+                confirmarEnEvento(idEvento, base, tx, mensajeError);
+            }
+        } finally {
+            bloqueoEvento.unlock();
+            bloqueoInscripciones.unlock();
+        }
+        
+        // Compactar toma el bloqueo exclusivo, que no se puede pedir teniendo el compartido
+        compactarSiHaceFalta();
+        esperarConfirmacion();
+        return resultado;
+    }
+    
+    /**
+     * Publica el evento que dejó la transacción y lo registra en el diario. Si no se pudo
+     * registrar se vuelve a publicar la versión anterior del evento, sin deshacer lo que hayan
+     * publicado mientras tanto otros hilos.
+     */
+    private void confirmarEnEvento(int idEvento, EstadoEventos base, Transaccion tx, String mensajeError)
+            throws EventoException {
+        Evento anterior = base.buscarEvento(idEvento).get();
+        Evento evento = tx.getEstado().buscarEvento(idEvento).get();
+        publicarEvento(base, tx.getEstado(), evento);
+        boolean nuevoModificado = eventosModificados.add(idEvento);
+        try {
+            bytesEscritos.addAndGet(persistencia.registrarLote(tx.getLote()));
+        } catch (PersistenciaException e) {
+            publicarEvento(null, null, anterior);
+            if (nuevoModificado) {
+                eventosModificados.remove(idEvento);
+            }
+            throw new EventoException(mensajeError + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Publica una versión de un evento. Si el estado vigente sigue siendo la base de la que
+     * partió el cambio se publica el estado preparado; si otro hilo publicó cambios de otros
+     * eventos mientras tanto, el evento se vuelve a aplicar sobre el estado que dejaron.
+     * @param base Estado sobre el que se preparó el cambio, o null para aplicarlo siempre de nuevo
+     * @param preparado Estado con el cambio aplicado sobre la base
+     * @param evento Versión del evento a publicar
+     */
+    private void publicarEvento(EstadoEventos base, EstadoEventos preparado, Evento evento) {
+        EstadoEventos actual;
+        EstadoEventos siguiente;
+        do {
+            actual = estado;
+            siguiente = actual == base ? preparado : actual.conEvento(evento);
+        } while (!ESTADO.compareAndSet(this, actual, siguiente));
+    }
+    
+    /**
+     * Publica el estado de la transacción y lo persiste. Si no se pudo registrar se vuelve
+     * al estado anterior, para no dejar en memoria cambios que no se guardaron.
+     * @param tx Transacción terminada con cambios
+     * @param mensajeError Prefijo del mensaje de la excepción
+     * @throws EventoException si no se pudieron guardar los cambios
+     */
+    private void confirmar(Transaccion tx, String mensajeError) throws EventoException {
+        EstadoEventos anterior = estado;
+        int anteriorIdEvento = contadorId.get();
+        int anteriorIdAsistente = contadorIdAsistente.get();
+        List<Integer> eventosNuevos = new ArrayList<>();
+        List<Integer> asistentesNuevos = new ArrayList<>();
+        for (Integer id : tx.getEventosModificados()) {
+            if (eventosModificados.add(id)) {
+                eventosNuevos.add(id);
+            }
+        }
+        for (Integer id : tx.getAsistentesModificados()) {
+            if (asistentesModificados.add(id)) {
+                asistentesNuevos.add(id);
+            }
+        }
+        
+        estado = tx.getEstado();
+        contadorId.set(tx.getSiguienteIdEvento());
+        contadorIdAsistente.set(tx.getSiguienteIdAsistente());
+        try {
+            persistirCambio(() -> persistencia.registrarLote(tx.getLote()));
+        } catch (PersistenciaException e) {
+            estado = anterior;
+            contadorId.set(anteriorIdEvento);
+            contadorIdAsistente.set(anteriorIdAsistente);
+            eventosModificados.removeAll(eventosNuevos);
+            asistentesModificados.removeAll(asistentesNuevos);
+            throw new EventoException(mensajeError + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Persiste un cambio puntual. En modo diario solo agrega el registro del cambio
+     * y compacta cuando el diario crece demasiado; si no, reescribe los archivos completos.
+     * @param registro Escritura del registro del cambio en el diario
+     * @throws PersistenciaException si no se pudo registrar el cambio
+     */
+    private void persistirCambio(RegistroCambio registro) throws PersistenciaException {
+        if (!persistencia.isDiarioActivo()) {
+            guardarDatos();
+            return;
+        }
+        
+        bytesEscritos.addAndGet(registro.registrar());
+        compactarSiHaceFalta();
+    }
+    
+    /**
+     * Reescribe los archivos completos si el diario creció demasiado
+     */
+    private void compactarSiHaceFalta() {
+        if (!persistencia.requiereCompactacion()) {
+            return;
+        }
+        bloqueoEscritura.lock();
+        try {
+            // Otro hilo pudo haber compactado mientras se esperaba el bloqueo
+            if (persistencia.requiereCompactacion()) {
+                guardarDatos();
+            }
+        } catch (PersistenciaException e) {
+            // El cambio ya quedó en el diario: se conserva y la compactación se reintenta con el próximo
+            System.err.println("Advertencia: no se pudo compactar el diario: " + e.getMessage());
+        } finally {
+            bloqueoEscritura.unlock();
+        }
+    }
+    
+    /**
+     * Ejecuta un cambio con el bloqueo de escritura y, ya liberado el bloqueo, espera la
+     * confirmación de la escritura diferida si así se configuró. Esperar sin el bloqueo
+     * permite que los cambios de otros hilos entren en el mismo lote.
+     */
+    private <T> T conBloqueoEscritura(Cambio<T> cambio) throws EventoException {
+        T resultado;
+        bloqueoEscritura.lock();
+        try {
+            resultado = cambio.aplicar();
+        } finally {
+            bloqueoEscritura.unlock();
+        }
+        
+        esperarConfirmacion();
+        return resultado;
+    }
+    
+    /**
+     * Si el lote del cambio no se pudo escribir, el cambio ya está publicado y no se deshace:
+     * sus registros se reintentan con el lote siguiente y la excepción solo avisa que todavía
+     * no está en disco
+     */
+    private void esperarConfirmacion() throws EventoException {
+        try {
+            persistencia.esperarEscritura();
+        } catch (PersistenciaException e) {
+            throw new EventoException("El cambio se aplicó pero no se confirmó su escritura, se reintentará: "
+                + e.getMessage(), e);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface Cambio<T> {
+        T aplicar() throws EventoException;
+    }
+    
+    @FunctionalInterface
+    private interface Operacion<T> {
+        T aplicar(Transaccion tx) throws EventoException;
+    }
+    
+    @FunctionalInterface
+    private interface RegistroCambio {
+        long registrar() throws PersistenciaException;
+    }
+    
+    /**
+     * Posición de una consulta paginada: último evento devuelto y la consulta a la que pertenece.
+     * Se entrega al cliente codificada en Base64 para que no dependa de su contenido.
+     */
+    private static final class CursorEventos {
+        private static final String VERSION = "1";
+        
+        private final FiltroEventos filtro;
+        private final OrdenEventos orden;
+        private final LocalDate fecha;
+        private final int id;
+        
+        CursorEventos(FiltroEventos filtro, OrdenEventos orden, LocalDate fecha, int id) {
+            this.filtro = filtro;
+            this.orden = orden;
+            this.fecha = fecha;
+            this.id = id;
+        }
+        
+        String codificar() {
+            String texto = String.join(":", VERSION, filtro.name(), orden.name(), 
+                String.valueOf(fecha.toEpochDay()), String.valueOf(id));
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        static CursorEventos decodificar(String cursor, FiltroEventos filtro, OrdenEventos orden) {
+            CursorEventos leido = null;
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+                if (partes.length == 5 && partes[0].equals(VERSION)) {
+                    leido = new CursorEventos(FiltroEventos.valueOf(partes[1]), OrdenEventos.valueOf(partes[2]),
+                        LocalDate.ofEpochDay(Long.parseLong(partes[3])), Integer.parseInt(partes[4]));
+                }
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new IllegalArgumentException("Cursor inválido", e);
+            }
+            if (leido == null) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            if (leido.filtro != filtro || leido.orden != orden) {
+                throw new IllegalArgumentException("El cursor pertenece a otra consulta");
+            }
+            return leido;
         }
     }
 } 
\ No newline at end of file
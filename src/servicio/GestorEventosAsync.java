@@ -0,0 +1,193 @@
+package servicio;
+
+import excepciones.EventoException;
+import excepciones.PersistenciaException;
+import modelo.Asistente;
+import modelo.Evento;
+import modelo.ResultadoInscripcion;
+import util.Ejecutores;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fachada asincrónica de {@link GestorEventos}: cada método ejecuta la operación del gestor,
+ * incluida su escritura en disco, en un ejecutor aparte y devuelve enseguida un
+ * {@link CompletableFuture} con el resultado. Si la operación falla, el resultado se completa
+ * con la misma excepción que lanzaría el gestor ({@link EventoException} o
+ * {@link PersistenciaException}).
+ * <p>
+ * Las operaciones pedidas sin esperar el resultado de otras pueden ejecutarse en cualquier orden:
+ * para que una se aplique después de otra hay que encadenarlas, por ejemplo con
+ * {@code thenCompose}. Por defecto cada operación corre en su propio hilo virtual; en versiones de
+ * Java sin hilos virtuales, en un pool de hilos con un tope (ver {@link Ejecutores#unHiloPorTarea}).
+ */
+public class GestorEventosAsync {
+
+    private final GestorEventos gestor;
+    private final Executor ejecutor;
+    private final ExecutorService ejecutorPropio; // El que se creó acá y hay que cerrar; null si es externo
+
+    /**
+     * Crea la fachada con el ejecutor por defecto: hilos virtuales si están disponibles
+     */
+    public GestorEventosAsync(GestorEventos gestor) {
+        this.gestor = gestor;
+        this.ejecutorPropio = Ejecutores.unHiloPorTarea("gestor-async");
+        this.ejecutor = ejecutorPropio;
+    }
+
+    /**
+     * @param gestor Gestor sobre el que se ejecutan las operaciones
+     * @param ejecutor Ejecutor de las operaciones; quien lo pasa es responsable de cerrarlo
+     */
+    public GestorEventosAsync(GestorEventos gestor, Executor ejecutor) {
+        if (ejecutor == null) {
+            throw new IllegalArgumentException("El ejecutor no puede ser nulo");
+        }
+        this.gestor = gestor;
+        this.ejecutor = ejecutor;
+        this.ejecutorPropio = null;
+    }
+
+    public CompletableFuture<Evento> crearEvento(String nombre, LocalDate fecha, String ubicacion,
+                                                 String descripcion) {
+        return ejecutar(() -> gestor.crearEvento(nombre, fecha, ubicacion, descripcion));
+    }
+
+    public CompletableFuture<Void> modificarEvento(int id, String nombre, LocalDate fecha, String ubicacion,
+                                                   String descripcion) {
+        return ejecutar(() -> {
+            gestor.modificarEvento(id, nombre, fecha, ubicacion, descripcion);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> eliminarEvento(int id) {
+        return ejecutar(() -> {
+            gestor.eliminarEvento(id);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Asistente> crearAsistente(String nombre, String email, String telefono) {
+        return ejecutar(() -> gestor.crearAsistente(nombre, email, telefono));
+    }
+
+    /**
+     * @return Si el asistente quedó inscripto o en la lista de espera del evento
+     */
+    public CompletableFuture<ResultadoInscripcion> agregarAsistenteAEvento(int idEvento, int idAsistente) {
+        return ejecutar(() -> gestor.agregarAsistenteAEvento(idEvento, idAsistente));
+    }
+
+    public CompletableFuture<Void> removerAsistenteDeEvento(int idEvento, int idAsistente) {
+        return ejecutar(() -> {
+            gestor.removerAsistenteDeEvento(idEvento, idAsistente);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> definirCapacidad(int idEvento, int capacidad) {
+        return ejecutar(() -> {
+            gestor.definirCapacidad(idEvento, capacidad);
+            return null;
+        });
+    }
+
+    /**
+     * @see GestorEventos#transaccion(UnidadDeTrabajo)
+     */
+    public CompletableFuture<Void> transaccion(UnidadDeTrabajo trabajo) {
+        return ejecutar(() -> {
+            gestor.transaccion(trabajo);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Optional<Evento>> buscarEventoPorId(int id) {
+        return ejecutar(() -> gestor.buscarEventoPorId(id));
+    }
+
+    public CompletableFuture<List<Evento>> listarEventosFuturos() {
+        return ejecutar(gestor::listarEventosFuturos);
+    }
+
+    public CompletableFuture<List<Evento>> listarEventosPasados() {
+        return ejecutar(gestor::listarEventosPasados);
+    }
+
+    public CompletableFuture<List<Evento>> listarTodosLosEventos() {
+        return ejecutar(gestor::listarTodosLosEventos);
+    }
+
+    /**
+     * @see GestorEventos#buscarEventos(String)
+     */
+    public CompletableFuture<List<Evento>> buscarEventos(String consulta) {
+        return ejecutar(() -> gestor.buscarEventos(consulta));
+    }
+
+    public CompletableFuture<List<Evento>> listarEventosDeAsistente(int idAsistente) {
+        return ejecutar(() -> gestor.listarEventosDeAsistente(idAsistente));
+    }
+
+    /**
+     * @return Cantidad de bytes escritos
+     */
+    public CompletableFuture<Long> guardarDatos() {
+        return ejecutar(gestor::guardarDatos);
+    }
+
+    public CompletableFuture<Void> flush() {
+        return ejecutar(() -> {
+            gestor.flush();
+            return null;
+        });
+    }
+
+    /**
+     * @return Gestor de la fachada, para las consultas que no necesitan esperar
+     */
+    public GestorEventos getGestor() {
+        return gestor;
+    }
+
+    /**
+     * Espera a que terminen las operaciones pedidas y libera el ejecutor por defecto; un
+     * ejecutor recibido en el constructor no se cierra. No cierra el gestor.
+     * @throws InterruptedException si se interrumpió la espera
+     */
+    public void cerrar() throws InterruptedException {
+        if (ejecutorPropio != null) {
+            ejecutorPropio.shutdown();
+            ejecutorPropio.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> CompletableFuture<T> ejecutar(Operacion<T> operacion) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        try {
+            ejecutor.execute(() -> {
+                try {
+                    resultado.complete(operacion.ejecutar());
+                } catch (Exception e) {
+                    resultado.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            resultado.completeExceptionally(e);
+        }
+        return resultado;
+    }
+
+    @FunctionalInterface
+    private interface Operacion<T> {
+        T ejecutar() throws Exception;
+    }
+}
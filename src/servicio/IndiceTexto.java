@@ -0,0 +1,376 @@
+package servicio;
+
+import modelo.Evento;
+import util.ConjuntoEnterosPersistente;
+import util.MapaEnteros;
+import util.MapaEnterosPersistente;
+import util.MapaPersistente;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Índice invertido inmutable sobre el nombre, la ubicación y la descripción de los eventos: por
+ * cada campo, de cada término los IDs de los eventos que lo contienen. Los términos se comparan
+ * sin distinguir mayúsculas ni acentos, y se omiten las palabras vacías más comunes del español.
+ * <p>
+ * Una consulta es una lista de términos que deben estar todos en el evento, en cualquiera de los
+ * campos; {@code OR} (o {@code |}) separa alternativas: {@code "rock palermo OR jazz"} busca los
+ * eventos con rock y palermo, o con jazz. Los resultados se ordenan por puntaje: cada término de
+ * la consulta que contiene el evento suma más cuanto menos frecuente es, y más si está en el
+ * nombre que en la ubicación, y en la ubicación que en la descripción.
+ */
+final class IndiceTexto {
+
+    private static final int NOMBRE = 0;
+    private static final int UBICACION = 1;
+    private static final int DESCRIPCION = 2;
+    private static final double[] PESOS = {3, 2, 1};
+
+    private static final char SEPARADOR = 0;
+    private static final char IGNORADO = '\uFFFF';
+    // Plegado de los caracteres latinos: minúscula sin acentos, o separador si no es letra ni dígito
+    private static final char[] PLEGADO = new char[0x250];
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of("a", "al", "con", "de", "del", "e", "el", "en",
+        "la", "las", "lo", "los", "o", "para", "por", "se", "u", "un", "una", "unas", "unos", "y");
+
+    static {
+        for (char c = 0; c < PLEGADO.length; c++) {
+            PLEGADO[c] = plegar(c);
+        }
+    }
+
+    static final IndiceTexto VACIO = new IndiceTexto(nuevosCampos());
+
+    // Por campo (NOMBRE, UBICACION, DESCRIPCION), de cada término los IDs de sus eventos
+    private final MapaPersistente<String, ConjuntoEnterosPersistente>[] porCampo;
+
+    private IndiceTexto(MapaPersistente<String, ConjuntoEnterosPersistente>[] porCampo) {
+        this.porCampo = porCampo;
+    }
+
+    /**
+     * @return Índice con los términos del evento en lugar de los del evento anterior con su mismo
+     * ID (null si es nuevo); este mismo si los textos no cambiaron
+     */
+    IndiceTexto reemplazar(Evento anterior, Evento evento) {
+        MapaPersistente<String, ConjuntoEnterosPersistente>[] nuevo = null;
+        for (int campo = NOMBRE; campo <= DESCRIPCION; campo++) {
+            String textoAnterior = anterior == null ? null : texto(anterior, campo);
+            String texto = texto(evento, campo);
+            if (Objects.equals(textoAnterior, texto)) {
+                continue;
+            }
+
+            Set<String> terminosAnteriores = terminos(textoAnterior);
+            Set<String> terminos = terminos(texto);
+            MapaPersistente<String, ConjuntoEnterosPersistente> indice = porCampo[campo];
+            for (String termino : terminosAnteriores) {
+                if (!terminos.contains(termino)) {
+                    indice = quitarId(indice, termino, evento.getId());
+                }
+            }
+            for (String termino : terminos) {
+                if (!terminosAnteriores.contains(termino)) {
+                    indice = ponerId(indice, termino, evento.getId());
+                }
+            }
+            if (nuevo == null) {
+                nuevo = porCampo.clone();
+            }
+            nuevo[campo] = indice;
+        }
+        return nuevo == null ? this : new IndiceTexto(nuevo);
+    }
+
+    /**
+     * @return Índice sin los términos del evento
+     */
+    IndiceTexto quitar(Evento evento) {
+        MapaPersistente<String, ConjuntoEnterosPersistente>[] nuevo = porCampo.clone();
+        for (int campo = NOMBRE; campo <= DESCRIPCION; campo++) {
+            for (String termino : terminos(texto(evento, campo))) {
+                nuevo[campo] = quitarId(nuevo[campo], termino, evento.getId());
+            }
+        }
+        return new IndiceTexto(nuevo);
+    }
+
+    /**
+     * Busca los eventos que cumplen la consulta
+     * @param eventos Eventos del estado por ID, para resolver los resultados
+     * @return Eventos de mayor a menor puntaje; con el mismo puntaje, por fecha y por ID
+     */
+    List<Evento> buscar(String consulta, MapaEnterosPersistente<Evento> eventos) {
+        List<List<String>> alternativas = interpretar(consulta);
+        Set<String> terminos = new LinkedHashSet<>();
+        alternativas.forEach(terminos::addAll);
+        if (terminos.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Eventos de cada término por campo, y peso del término según su frecuencia
+        Map<String, ConjuntoEnterosPersistente[]> ocurrencias = new HashMap<>();
+        Map<String, Double> pesos = new HashMap<>();
+        for (String termino : terminos) {
+            ConjuntoEnterosPersistente[] delTermino = new ConjuntoEnterosPersistente[PESOS.length];
+            int frecuencia = 0;
+            for (int campo = NOMBRE; campo <= DESCRIPCION; campo++) {
+                ConjuntoEnterosPersistente ids = porCampo[campo].obtener(termino);
+                delTermino[campo] = ids == null ? ConjuntoEnterosPersistente.vacio() : ids;
+                frecuencia += delTermino[campo].tamanio();
+            }
+            ocurrencias.put(termino, delTermino);
+            pesos.put(termino, Math.log(1 + (double) eventos.tamanio() / (1 + frecuencia)));
+        }
+
+        MapaEnteros<Resultado> resultados = new MapaEnteros<>();
+        for (List<String> alternativa : alternativas) {
+            if (alternativa.isEmpty()) {
+                continue;
+            }
+            // Se recorren los eventos del término menos frecuente y se verifican los demás
+            String guia = alternativa.stream()
+                .min(Comparator.comparingInt(termino -> frecuencia(ocurrencias.get(termino))))
+                .get();
+            ConjuntoEnterosPersistente[] delGuia = ocurrencias.get(guia);
+            for (int campo = NOMBRE; campo <= DESCRIPCION; campo++) {
+                int campoActual = campo;
+                delGuia[campo].paraCada(id -> {
+                    if (resultados.contiene(id) || contieneAntesDe(delGuia, campoActual, id)) {
+                        return;
+                    }
+                    for (String termino : alternativa) {
+                        if (!contiene(ocurrencias.get(termino), id)) {
+                            return;
+                        }
+                    }
+                    double puntaje = 0;
+                    for (String termino : terminos) {
+                        ConjuntoEnterosPersistente[] delTermino = ocurrencias.get(termino);
+                        for (int c = NOMBRE; c <= DESCRIPCION; c++) {
+                            if (delTermino[c].contiene(id)) {
+                                puntaje += pesos.get(termino) * PESOS[c];
+                            }
+                        }
+                    }
+                    resultados.poner(id, new Resultado(eventos.obtener(id), puntaje));
+                });
+            }
+        }
+
+        List<Resultado> ordenados = new ArrayList<>(resultados.tamanio());
+        resultados.paraCadaValor(ordenados::add);
+        ordenados.sort(Comparator.comparingDouble((Resultado resultado) -> -resultado.puntaje)
+            .thenComparing(resultado -> resultado.evento.getFecha())
+            .thenComparingInt(resultado -> resultado.evento.getId()));
+        List<Evento> lista = new ArrayList<>(ordenados.size());
+        ordenados.forEach(resultado -> lista.add(resultado.evento));
+        return lista;
+    }
+
+    /**
+     * Separa los términos de un texto: secuencias de letras y dígitos, en minúsculas y sin
+     * acentos, salvo las palabras vacías
+     */
+    static void tokenizar(String texto, Consumer<String> destino) {
+        if (texto == null) {
+            return;
+        }
+        StringBuilder termino = new StringBuilder();
+        for (int i = 0; i <= texto.length(); i++) {
+            char c = i < texto.length() ? plegado(texto.charAt(i)) : SEPARADOR;
+            if (c == IGNORADO) {
+                continue;
+            }
+            if (c != SEPARADOR) {
+                termino.append(c);
+            } else if (termino.length() > 0) {
+                String palabra = termino.toString();
+                if (!PALABRAS_VACIAS.contains(palabra)) {
+                    destino.accept(palabra);
+                }
+                termino.setLength(0);
+            }
+        }
+    }
+
+    private static Set<String> terminos(String texto) {
+        Set<String> terminos = new LinkedHashSet<>();
+        tokenizar(texto, terminos::add);
+        return terminos;
+    }
+
+    /**
+     * @return Términos de cada alternativa de la consulta
+     */
+    private static List<List<String>> interpretar(String consulta) {
+        List<List<String>> alternativas = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        alternativas.add(actual);
+        if (consulta == null) {
+            return alternativas;
+        }
+        for (String palabra : consulta.trim().split("\\s+")) {
+            if (palabra.equals("OR") || palabra.equals("|")) {
+                actual = new ArrayList<>();
+                alternativas.add(actual);
+            } else {
+                tokenizar(palabra, actual::add);
+            }
+        }
+        return alternativas;
+    }
+
+    private static char plegado(char c) {
+        return c < PLEGADO.length ? PLEGADO[c] : plegar(c);
+    }
+
+    private static char plegar(char c) {
+        if (Character.getType(c) == Character.NON_SPACING_MARK) {
+            return IGNORADO; // Acento suelto de un texto ya descompuesto
+        }
+        char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+        return Character.isLetterOrDigit(base) ? Character.toLowerCase(base) : SEPARADOR;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static MapaPersistente<String, ConjuntoEnterosPersistente>[] nuevosCampos() {
+        MapaPersistente<String, ConjuntoEnterosPersistente>[] campos = new MapaPersistente[PESOS.length];
+        Arrays.fill(campos, MapaPersistente.vacio());
+        return campos;
+    }
+
+    private static String texto(Evento evento, int campo) {
+        switch (campo) {
+            case NOMBRE:
+                return evento.getNombre();
+            case UBICACION:
+                return evento.getUbicacion();
+            default:
+                return evento.getDescripcion();
+        }
+    }
+
+    private static int frecuencia(ConjuntoEnterosPersistente[] delTermino) {
+        int frecuencia = 0;
+        for (ConjuntoEnterosPersistente ids : delTermino) {
+            frecuencia += ids.tamanio();
+        }
+        return frecuencia;
+    }
+
+    private static boolean contiene(ConjuntoEnterosPersistente[] delTermino, int id) {
+        for (ConjuntoEnterosPersistente ids : delTermino) {
+            if (ids.contiene(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contieneAntesDe(ConjuntoEnterosPersistente[] delTermino, int campo, int id) {
+        for (int c = NOMBRE; c < campo; c++) {
+            if (delTermino[c].contiene(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MapaPersistente<String, ConjuntoEnterosPersistente> ponerId(
+            MapaPersistente<String, ConjuntoEnterosPersistente> indice, String termino, int id) {
+        ConjuntoEnterosPersistente ids = indice.obtener(termino);
+        return indice.poner(termino, (ids == null ? ConjuntoEnterosPersistente.vacio() : ids).con(id));
+    }
+
+    private static MapaPersistente<String, ConjuntoEnterosPersistente> quitarId(
+            MapaPersistente<String, ConjuntoEnterosPersistente> indice, String termino, int id) {
+        ConjuntoEnterosPersistente ids = indice.obtener(termino);
+        if (ids == null) {
+            return indice;
+        }
+        ids = ids.sin(id);
+        return ids.estaVacio() ? indice.quitar(termino) : indice.poner(termino, ids);
+    }
+
+    private static final class Resultado {
+        final Evento evento;
+        final double puntaje;
+
+        Resultado(Evento evento, double puntaje) {
+            this.evento = evento;
+            this.puntaje = puntaje;
+        }
+    }
+
+    /**
+     * Arma el índice de una sola vez a partir de muchos eventos
+     */
+    static final class Constructor {
+        // Por campo, de cada término los IDs de sus eventos en el orden en que se agregaron
+        private final List<Map<String, Ocurrencias>> porCampo = new ArrayList<>();
+
+        Constructor() {
+            for (int campo = NOMBRE; campo <= DESCRIPCION; campo++) {
+                porCampo.add(new HashMap<>());
+            }
+        }
+
+        void agregar(Evento evento) {
+            for (int campo = NOMBRE; campo <= DESCRIPCION; campo++) {
+                Map<String, Ocurrencias> delCampo = porCampo.get(campo);
+                tokenizar(texto(evento, campo),
+                    termino -> delCampo.computeIfAbsent(termino, t -> new Ocurrencias()).agregar(evento.getId()));
+            }
+        }
+
+        IndiceTexto construir() {
+            MapaPersistente<String, ConjuntoEnterosPersistente>[] indices = nuevosCampos();
+            for (int campo = NOMBRE; campo <= DESCRIPCION; campo++) {
+                Map<String, ConjuntoEnterosPersistente> delCampo = new HashMap<>(porCampo.get(campo).size() * 4 / 3 + 1);
+                porCampo.get(campo).forEach((termino, ocurrencias) -> delCampo.put(termino, ocurrencias.construir()));
+                indices[campo] = MapaPersistente.desde(delCampo);
+            }
+            return new IndiceTexto(indices);
+        }
+    }
+
+    /**
+     * IDs de los eventos de un término a medida que se cargan; puede tener repetidos
+     */
+    private static final class Ocurrencias {
+        private int[] ids = new int[2];
+        private int cantidad;
+
+        void agregar(int id) {
+            if (cantidad > 0 && ids[cantidad - 1] == id) {
+                return; // El término se repite en el mismo texto
+            }
+            if (cantidad == ids.length) {
+                ids = Arrays.copyOf(ids, cantidad * 2);
+            }
+            ids[cantidad++] = id;
+        }
+
+        ConjuntoEnterosPersistente construir() {
+            Arrays.sort(ids, 0, cantidad);
+            int distintos = 0;
+            for (int i = 0; i < cantidad; i++) {
+                if (distintos == 0 || ids[distintos - 1] != ids[i]) {
+                    ids[distintos++] = ids[i];
+                }
+            }
+            return ConjuntoEnterosPersistente.desdeOrdenados(ids, distintos);
+        }
+    }
+}
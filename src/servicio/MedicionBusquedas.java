@@ -0,0 +1,121 @@
+package servicio;
+
+import modelo.Asistente;
+import modelo.Evento;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara la búsqueda por ID en los índices del estado, que es la que usa el gestor, con el
+ * recorrido lineal de una lista que se hacía antes. Los datos se arman en memoria, sin pasar
+ * por los archivos, y los IDs buscados son aleatorios con una semilla fija.
+ */
+public class MedicionBusquedas {
+
+    private static final int BUSQUEDAS_LINEALES = 200;
+    private static final int BUSQUEDAS_EN_INDICE = 2_000_000;
+    private static final long SEMILLA = 42;
+
+    private final int cantidad;
+
+    /**
+     * @param cantidad Cantidad de eventos y de asistentes, mayor a 0
+     */
+    public MedicionBusquedas(int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
+        }
+        this.cantidad = cantidad;
+    }
+
+    /**
+     * Arma los datos y mide las búsquedas, después de una ronda de calentamiento
+     * @return Tiempo promedio por búsqueda de cada forma
+     */
+    public Resultado ejecutar() {
+        List<Evento> eventos = new ArrayList<>(cantidad);
+        List<Asistente> asistentes = new ArrayList<>(cantidad);
+        LocalDate inicio = LocalDate.of(2030, 1, 1);
+        for (int id = 1; id <= cantidad; id++) {
+            eventos.add(new Evento(id, "Evento " + id, inicio.plusDays(id % 3650), "Sala", "Descripción"));
+            asistentes.add(new Asistente(id, "Asistente " + id, "asistente" + id + "@mail.com", "1155550000"));
+        }
+        EstadoEventos estado = EstadoEventos.desde(eventos, asistentes);
+
+        long[] consumidos = new long[1]; // Acumula los IDs encontrados para que no se descarten las búsquedas
+        medirLineal(eventos, asistentes, BUSQUEDAS_LINEALES / 10, consumidos);
+        medirEnIndice(estado, BUSQUEDAS_EN_INDICE / 10, consumidos);
+        long lineal = medirLineal(eventos, asistentes, BUSQUEDAS_LINEALES, consumidos);
+        long enIndice = medirEnIndice(estado, BUSQUEDAS_EN_INDICE, consumidos);
+        if (consumidos[0] == 0) {
+            throw new IllegalStateException("No se encontró ningún ID");
+        }
+        return new Resultado(cantidad, lineal, enIndice);
+    }
+
+    private long medirLineal(List<Evento> eventos, List<Asistente> asistentes, int busquedas, long[] consumidos) {
+        Random aleatorio = new Random(SEMILLA);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < busquedas; i++) {
+            int idEvento = 1 + aleatorio.nextInt(cantidad);
+            int idAsistente = 1 + aleatorio.nextInt(cantidad);
+            consumidos[0] += eventos.stream().filter(e -> e.getId() == idEvento).findFirst()
+                .map(Evento::getId).orElse(0);
+            consumidos[0] += asistentes.stream().filter(a -> a.getId() == idAsistente).findFirst()
+                .map(Asistente::getId).orElse(0);
+        }
+        return (System.nanoTime() - inicio) / busquedas;
+    }
+
+    private long medirEnIndice(EstadoEventos estado, int busquedas, long[] consumidos) {
+        Random aleatorio = new Random(SEMILLA);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < busquedas; i++) {
+            consumidos[0] += estado.buscarEvento(1 + aleatorio.nextInt(cantidad)).map(Evento::getId).orElse(0);
+            consumidos[0] += estado.buscarAsistente(1 + aleatorio.nextInt(cantidad)).map(Asistente::getId).orElse(0);
+        }
+        return (System.nanoTime() - inicio) / busquedas;
+    }
+
+    /**
+     * Tiempo promedio de buscar un evento y un asistente por ID
+     */
+    public static final class Resultado {
+        private final int cantidad;
+        private final long linealNanos;
+        private final long enIndiceNanos;
+
+        Resultado(int cantidad, long linealNanos, long enIndiceNanos) {
+            this.cantidad = cantidad;
+            this.linealNanos = linealNanos;
+            this.enIndiceNanos = enIndiceNanos;
+        }
+
+        public int getCantidad() {
+            return cantidad;
+        }
+
+        /**
+         * @return Nanosegundos por par de búsquedas recorriendo las listas
+         */
+        public long getLinealNanos() {
+            return linealNanos;
+        }
+
+        /**
+         * @return Nanosegundos por par de búsquedas en los índices por ID
+         */
+        public long getEnIndiceNanos() {
+            return enIndiceNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d eventos y %,d asistentes, buscar un evento y un asistente por ID:%n"
+                    + "Recorrido lineal: %,d ns, índice: %,d ns (%.0f veces más rápido)",
+                cantidad, cantidad, linealNanos, enIndiceNanos, (double) linealNanos / Math.max(1, enIndiceNanos));
+        }
+    }
+}
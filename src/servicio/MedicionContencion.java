@@ -0,0 +1,189 @@
+package servicio;
+
+import excepciones.EventoException;
+import excepciones.PersistenciaException;
+import persistencia.ConfiguracionPersistencia;
+import persistencia.PoliticaFsync;
+import util.Archivos;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Mide cuántas inscripciones por segundo hace el gestor en modo diario a medida que aumentan los
+ * hilos que inscriben a la vez: 1, 2, 4 y así hasta el máximo. Con cada cantidad de hilos se
+ * prueban dos casos: cada hilo inscribe en su propio evento, así que toman bloqueos de grupos
+ * distintos, o todos inscriben en el mismo evento y se turnan en el bloqueo de su grupo.
+ * Si las inscripciones en eventos distintos escalan, el ritmo del primer caso crece con los hilos
+ * hasta la cantidad de procesadores; el segundo caso sirve de referencia sin paralelismo.
+ * <p>
+ * No se fuerza la escritura a disco, para medir los bloqueos y el trabajo en memoria y no el del
+ * dispositivo. Cada caso usa un gestor nuevo en su propio subdirectorio de un directorio temporal,
+ * que se borra al terminar.
+ */
+public class MedicionContencion {
+
+    private final int maximoHilos;
+    private final int inscripcionesPorHilo;
+
+    /**
+     * @param maximoHilos Mayor cantidad de hilos que se prueba, mayor a 0
+     * @param inscripcionesPorHilo Inscripciones que hace cada hilo en cada caso, mayor a 0
+     */
+    public MedicionContencion(int maximoHilos, int inscripcionesPorHilo) {
+        if (maximoHilos <= 0 || inscripcionesPorHilo <= 0) {
+            throw new IllegalArgumentException("Los hilos y las inscripciones deben ser mayores a 0");
+        }
+        this.maximoHilos = maximoHilos;
+        this.inscripcionesPorHilo = inscripcionesPorHilo;
+    }
+
+    /**
+     * Prueba cada cantidad de hilos, después de una ronda de calentamiento de cada caso con el máximo
+     * @return Un resultado por cantidad de hilos, de menor a mayor
+     * @throws IOException si no se pudo crear o borrar un directorio
+     * @throws PersistenciaException si falló la persistencia
+     * @throws EventoException si el gestor rechazó alguna operación
+     * @throws InterruptedException si se interrumpió la medición
+     */
+    public List<Resultado> ejecutar() throws IOException, PersistenciaException, EventoException,
+            InterruptedException {
+        Path directorio = Files.createTempDirectory("medicion-contencion");
+        try {
+            medir(directorio.resolve("calentamiento-propios"), maximoHilos, false);
+            medir(directorio.resolve("calentamiento-compartido"), maximoHilos, true);
+            List<Resultado> resultados = new ArrayList<>();
+            for (int hilos = 1; ; hilos = Math.min(hilos * 2, maximoHilos)) {
+                long propios = medir(directorio.resolve(hilos + "-propios"), hilos, false);
+                long compartido = medir(directorio.resolve(hilos + "-compartido"), hilos, true);
+                resultados.add(new Resultado(hilos, hilos * inscripcionesPorHilo, propios, compartido));
+                if (hilos == maximoHilos) {
+                    return resultados;
+                }
+            }
+        } finally {
+            Archivos.borrarDirectorio(directorio);
+        }
+    }
+
+    /**
+     * Prepara un gestor con los eventos y asistentes necesarios y mide las inscripciones
+     * @param compartido Si todos los hilos inscriben en el mismo evento
+     * @return Duración de las inscripciones en nanosegundos, desde la largada hasta que termina el último hilo
+     */
+    private long medir(Path subdirectorio, int hilos, boolean compartido) throws IOException,
+            PersistenciaException, EventoException, InterruptedException {
+        Files.createDirectory(subdirectorio);
+        ConfiguracionPersistencia configuracion = new ConfiguracionPersistencia();
+        configuracion.setDiarioActivo(true);
+        configuracion.setPoliticaFsync(PoliticaFsync.NUNCA);
+        configuracion.setDirectorio(subdirectorio);
+        GestorEventos gestor = new GestorEventos(configuracion);
+        try {
+            // Los IDs de los eventos son consecutivos, así que cada uno cae en un grupo de bloqueo distinto
+            int[] idsEventos = new int[compartido ? 1 : hilos];
+            int[][] idsAsistentes = new int[hilos][inscripcionesPorHilo];
+            gestor.transaccion(tx -> {
+                for (int i = 0; i < idsEventos.length; i++) {
+                    idsEventos[i] = tx.crearEvento("Evento " + i, gestor.getHoy().plusDays(1), "Sala",
+                        "Contención").getId();
+                }
+                for (int h = 0; h < hilos; h++) {
+                    for (int i = 0; i < inscripcionesPorHilo; i++) {
+                        String nombre = "asistente" + h + "-" + i;
+                        idsAsistentes[h][i] = tx.crearAsistente(nombre, nombre + "@mail.com", "1155550000").getId();
+                    }
+                }
+            });
+
+            AtomicReference<EventoException> error = new AtomicReference<>();
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Thread> trabajadores = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                int idEvento = idsEventos[compartido ? 0 : h];
+                int[] propios = idsAsistentes[h];
+                Thread trabajador = new Thread(() -> {
+                    try {
+                        largada.await();
+                        for (int idAsistente : propios) {
+                            gestor.agregarAsistenteAEvento(idEvento, idAsistente);
+                        }
+                    } catch (EventoException e) {
+                        error.compareAndSet(null, e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "contencion-" + h);
+                trabajador.start();
+                trabajadores.add(trabajador);
+            }
+
+            long inicio = System.nanoTime();
+            largada.countDown();
+            for (Thread trabajador : trabajadores) {
+                trabajador.join();
+            }
+            long duracionNanos = System.nanoTime() - inicio;
+
+            if (error.get() != null) {
+                throw error.get();
+            }
+            int inscriptos = 0;
+            for (int idEvento : idsEventos) {
+                inscriptos += gestor.buscarEventoPorId(idEvento).get().getCantidadAsistentes();
+            }
+            if (inscriptos != hilos * inscripcionesPorHilo) {
+                throw new IllegalStateException("Se esperaban " + hilos * inscripcionesPorHilo
+                    + " inscripciones y quedaron " + inscriptos);
+            }
+            return duracionNanos;
+        } finally {
+            gestor.cerrar();
+        }
+    }
+
+    /**
+     * Ritmo de inscripciones con una cantidad de hilos
+     */
+    public static final class Resultado {
+        private final int hilos;
+        private final int inscripciones;
+        private final long propiosNanos;
+        private final long compartidoNanos;
+
+        Resultado(int hilos, int inscripciones, long propiosNanos, long compartidoNanos) {
+            this.hilos = hilos;
+            this.inscripciones = inscripciones;
+            this.propiosNanos = propiosNanos;
+            this.compartidoNanos = compartidoNanos;
+        }
+
+        public int getHilos() {
+            return hilos;
+        }
+
+        /**
+         * @return Inscripciones por segundo con cada hilo en su propio evento
+         */
+        public double getPorSegundoEnEventosPropios() {
+            return inscripciones / (propiosNanos / 1_000_000_000.0);
+        }
+
+        /**
+         * @return Inscripciones por segundo con todos los hilos en el mismo evento
+         */
+        public double getPorSegundoEnEventoCompartido() {
+            return inscripciones / (compartidoNanos / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%2d hilos: %,9.0f inscripciones/s en eventos propios, %,9.0f/s en un mismo evento",
+                hilos, getPorSegundoEnEventosPropios(), getPorSegundoEnEventoCompartido());
+        }
+    }
+}
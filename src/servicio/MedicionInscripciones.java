@@ -0,0 +1,148 @@
+package servicio;
+
+import excepciones.EventoException;
+import excepciones.PersistenciaException;
+import modelo.Evento;
+import persistencia.ConfiguracionPersistencia;
+import persistencia.PoliticaFsync;
+import util.Archivos;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Mide las inscripciones en un solo evento a través del gestor, en modo diario, a medida que el
+ * evento se llena. Si cada inscripción copiara a los asistentes del evento, las últimas tardarían
+ * mucho más que las primeras; por eso se informa el tiempo de la primera y la última décima parte.
+ * La capacidad es la mitad de las inscripciones, así que la otra mitad pasa por la lista de espera.
+ * No se fuerza la escritura a disco, para medir el trabajo en memoria y no el del dispositivo.
+ * Los datos se guardan en un directorio temporal que se borra al terminar.
+ */
+public class MedicionInscripciones {
+
+    private static final int TRAMOS = 10;
+
+    private final int cantidad;
+
+    /**
+     * @param cantidad Cantidad de inscripciones, al menos {@value #TRAMOS}
+     */
+    public MedicionInscripciones(int cantidad) {
+        if (cantidad < TRAMOS) {
+            throw new IllegalArgumentException("La cantidad debe ser al menos " + TRAMOS);
+        }
+        this.cantidad = cantidad;
+    }
+
+    /**
+     * Crea el evento y los asistentes, y mide las inscripciones
+     * @return Tiempos de las inscripciones
+     * @throws IOException si no se pudo crear o borrar el directorio temporal
+     * @throws PersistenciaException si falló la persistencia
+     * @throws EventoException si el gestor rechazó alguna operación
+     */
+    public Resultado ejecutar() throws IOException, PersistenciaException, EventoException {
+        Path directorio = Files.createTempDirectory("medicion-inscripciones");
+        try {
+            ConfiguracionPersistencia configuracion = new ConfiguracionPersistencia();
+            configuracion.setDiarioActivo(true);
+            configuracion.setPoliticaFsync(PoliticaFsync.NUNCA);
+            configuracion.setDirectorio(directorio);
+            GestorEventos gestor = new GestorEventos(configuracion);
+            try {
+                return medir(gestor);
+            } finally {
+                gestor.cerrar();
+            }
+        } finally {
+            Archivos.borrarDirectorio(directorio);
+        }
+    }
+
+    private Resultado medir(GestorEventos gestor) throws EventoException {
+        Evento evento = gestor.crearEvento("Medición", gestor.getHoy().plusDays(1), "Sala", "Inscripciones");
+        int idEvento = evento.getId();
+        int capacidad = cantidad / 2;
+        gestor.definirCapacidad(idEvento, capacidad);
+        int[] idsAsistentes = new int[cantidad];
+        gestor.transaccion(tx -> {
+            for (int i = 0; i < cantidad; i++) {
+                idsAsistentes[i] = tx.crearAsistente("Asistente " + i, "asistente" + i + "@mail.com", "1155550000")
+                    .getId();
+            }
+        });
+
+        long[] tramos = new long[TRAMOS];
+        int porTramo = cantidad / TRAMOS;
+        long inicio = System.nanoTime();
+        long inicioTramo = inicio;
+        for (int i = 0; i < cantidad; i++) {
+            gestor.agregarAsistenteAEvento(idEvento, idsAsistentes[i]);
+            if ((i + 1) % porTramo == 0 && (i + 1) / porTramo <= TRAMOS) {
+                long ahora = System.nanoTime();
+                tramos[(i + 1) / porTramo - 1] = (ahora - inicioTramo) / porTramo;
+                inicioTramo = ahora;
+            }
+        }
+        long duracionNanos = System.nanoTime() - inicio;
+
+        Evento lleno = gestor.buscarEventoPorId(idEvento).get();
+        if (lleno.getCantidadAsistentes() != capacidad || lleno.getListaEspera().size() != cantidad - capacidad
+                || gestor.listarEventosDeAsistente(idsAsistentes[capacidad - 1]).size() != 1
+                || !gestor.listarEventosDeAsistente(idsAsistentes[capacidad]).isEmpty()) {
+            throw new IllegalStateException("El evento no quedó con las inscripciones esperadas: " + lleno);
+        }
+        return new Resultado(cantidad, duracionNanos, tramos[0], tramos[TRAMOS - 1]);
+    }
+
+    /**
+     * Tiempo total y por inscripción al principio y al final
+     */
+    public static final class Resultado {
+        private final int inscripciones;
+        private final long duracionNanos;
+        private final long primerTramoNanos;
+        private final long ultimoTramoNanos;
+
+        Resultado(int inscripciones, long duracionNanos, long primerTramoNanos, long ultimoTramoNanos) {
+            this.inscripciones = inscripciones;
+            this.duracionNanos = duracionNanos;
+            this.primerTramoNanos = primerTramoNanos;
+            this.ultimoTramoNanos = ultimoTramoNanos;
+        }
+
+        public int getInscripciones() {
+            return inscripciones;
+        }
+
+        public double getDuracionMs() {
+            return duracionNanos / 1_000_000.0;
+        }
+
+        public double getInscripcionesPorSegundo() {
+            return inscripciones / (duracionNanos / 1_000_000_000.0);
+        }
+
+        /**
+         * @return Microsegundos por inscripción en la primera décima parte
+         */
+        public double getPrimerTramoMicros() {
+            return primerTramoNanos / 1_000.0;
+        }
+
+        /**
+         * @return Microsegundos por inscripción en la última décima parte, con el evento casi lleno
+         */
+        public double getUltimoTramoMicros() {
+            return ultimoTramoNanos / 1_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d inscripciones en un evento: %.0f ms (%.0f por segundo)%n"
+                    + "Por inscripción: %.1f µs en la primera décima parte, %.1f µs en la última",
+                inscripciones, getDuracionMs(), getInscripcionesPorSegundo(),
+                getPrimerTramoMicros(), getUltimoTramoMicros());
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package servicio;
+
+import excepciones.EventoException;
+import modelo.Asistente;
+import modelo.Evento;
+import modelo.ResultadoInscripcion;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Aplica los cambios de un gestor desde un único hilo escritor. Los cambios se encolan en un
+ * buffer acotado y se devuelve enseguida un {@link CompletableFuture} con su resultado; el hilo
+ * toma todos los que estén esperando y los aplica en orden de llegada dentro de una misma
+ * transacción, de modo que el lote se persiste una sola vez (en modo diario, como un único
+ * bloque de registros). Con el buffer lleno, quien encola espera a que se libere lugar.
+ * <p>
+ * Cada cambio se valida contra lo que dejaron los anteriores del lote, y si es inválido solo
+ * falla su resultado, con la {@link EventoException} correspondiente: las operaciones de
+ * {@link Transaccion} no dejan cambios cuando fallan. Si no se puede guardar el lote, fallan
+ * todos los de ese lote y no se aplica ninguno.
+ * <p>
+ * Los resultados no se completan desde el hilo escritor sino desde otro, en el orden en que se
+ * aplicaron: una continuación que encola otro cambio puede esperar lugar en el buffer sin trabar
+ * al escritor. Las continuaciones pesadas conviene encadenarlas con las variantes
+ * {@code ...Async} para no demorar la entrega de los resultados siguientes.
+ * Las consultas se siguen haciendo directamente sobre el gestor.
+ */
+public class MotorCambios {
+
+    public static final int CAPACIDAD_POR_DEFECTO = 1024;
+
+    private final GestorEventos gestor;
+    private final BlockingQueue<Cambio<?>> cola;
+    private final int maximoLote;
+    private final Thread escritor;
+    private final ExecutorService entregas; // Completa los resultados de cada lote
+    private final AtomicLong lotes = new AtomicLong();
+    private final AtomicLong cambios = new AtomicLong();
+
+    // Encolar toma el bloqueo compartido; cerrar, el exclusivo: así ningún cambio entra
+    // a la cola después de la marca de fin
+    private final ReentrantReadWriteLock bloqueoCierre = new ReentrantReadWriteLock();
+    private boolean cerrado;
+
+    public MotorCambios(GestorEventos gestor) {
+        this(gestor, CAPACIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * @param gestor Gestor sobre el que se aplican los cambios. Para que el hilo escritor no
+     *               compita por el bloqueo, los demás cambios también deberían pasar por el motor
+     * @param capacidad Cantidad máxima de cambios esperando en el buffer; también es el tamaño
+     *                  máximo de cada lote
+     */
+    public MotorCambios(GestorEventos gestor, int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser mayor a 0");
+        }
+        this.gestor = gestor;
+        this.cola = new ArrayBlockingQueue<>(capacidad + 1); // Lugar para la marca de fin
+        this.maximoLote = capacidad;
+        this.entregas = Executors.newSingleThreadExecutor(tarea -> {
+            Thread t = new Thread(tarea, "motor-cambios-resultados");
+            t.setDaemon(true);
+            return t;
+        });
+        this.escritor = new Thread(this::aplicarLotes, "motor-cambios");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    public CompletableFuture<Evento> crearEvento(String nombre, LocalDate fecha, String ubicacion,
+                                                 String descripcion) {
+        return encolar(tx -> tx.crearEvento(nombre, fecha, ubicacion, descripcion));
+    }
+
+    /**
+     * Crea el evento y le define la capacidad como un único cambio: si la capacidad es inválida
+     * no se crea el evento
+     * @return Evento creado, ya con su capacidad
+     */
+    public CompletableFuture<Evento> crearEvento(String nombre, LocalDate fecha, String ubicacion,
+                                                 String descripcion, int capacidad) {
+        return encolar(tx -> {
+            // Validada antes de crear el evento, porque el lote no deshace lo que un cambio hizo antes de fallar
+            if (capacidad < 0) {
+                throw new EventoException("La capacidad no puede ser negativa");
+            }
+            Evento creado = tx.crearEvento(nombre, fecha, ubicacion, descripcion);
+            tx.definirCapacidad(creado.getId(), capacidad);
+            return tx.buscarEventoPorId(creado.getId()).get();
+        });
+    }
+
+    public CompletableFuture<Void> modificarEvento(int id, String nombre, LocalDate fecha, String ubicacion,
+                                                   String descripcion) {
+        return encolar(tx -> {
+            tx.modificarEvento(id, nombre, fecha, ubicacion, descripcion);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> eliminarEvento(int id) {
+        return encolar(tx -> {
+            tx.eliminarEvento(id);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Asistente> crearAsistente(String nombre, String email, String telefono) {
+        return encolar(tx -> tx.crearAsistente(nombre, email, telefono));
+    }
+
+    /**
+     * @return Si el asistente quedó inscripto o en la lista de espera del evento
+     */
+    public CompletableFuture<ResultadoInscripcion> agregarAsistenteAEvento(int idEvento, int idAsistente) {
+        return encolar(tx -> tx.agregarAsistenteAEvento(idEvento, idAsistente));
+    }
+
+    public CompletableFuture<Void> removerAsistenteDeEvento(int idEvento, int idAsistente) {
+        return encolar(tx -> {
+            tx.removerAsistenteDeEvento(idEvento, idAsistente);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> definirCapacidad(int idEvento, int capacidad) {
+        return encolar(tx -> {
+            tx.definirCapacidad(idEvento, capacidad);
+            return null;
+        });
+    }
+
+    /**
+     * Deja de aceptar cambios y espera a que se apliquen los que ya estaban encolados y se
+     * entreguen sus resultados. No cierra el gestor.
+     * @throws InterruptedException si se interrumpió la espera
+     */
+    public void cerrar() throws InterruptedException {
+        bloqueoCierre.writeLock().lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            cola.put(Cambio.FIN);
+        } finally {
+            bloqueoCierre.writeLock().unlock();
+        }
+        escritor.join();
+        entregas.shutdown();
+        entregas.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return Cantidad de cambios que esperan en el buffer
+     */
+    public int getPendientes() {
+        return cola.size();
+    }
+
+    /**
+     * @return Cantidad de lotes que aplicó el hilo escritor, se hayan podido guardar o no
+     */
+    public long getLotes() {
+        return lotes.get();
+    }
+
+    /**
+     * @return Cantidad de cambios que llegaron a aplicarse en algún lote, válidos o no
+     */
+    public long getCambios() {
+        return cambios.get();
+    }
+
+    private <T> CompletableFuture<T> encolar(Operacion<T> operacion) {
+        Cambio<T> cambio = new Cambio<>(operacion);
+        bloqueoCierre.readLock().lock();
+        try {
+            if (cerrado) {
+                cambio.resultado.completeExceptionally(new IllegalStateException("El motor de cambios está cerrado"));
+            } else {
+                cola.put(cambio);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cambio.resultado.completeExceptionally(e);
+        } finally {
+            bloqueoCierre.readLock().unlock();
+        }
+        return cambio.resultado;
+    }
+
+    private void aplicarLotes() {
+        List<Cambio<?>> lote = new ArrayList<>(maximoLote);
+        boolean fin = false;
+        while (!fin) {
+            try {
+                lote.add(cola.take());
+            } catch (InterruptedException e) {
+                continue; // Solo se termina con la marca de fin, para no perder cambios encolados
+            }
+            cola.drainTo(lote, maximoLote - 1);
+            if (lote.get(lote.size() - 1) == Cambio.FIN) {
+                lote.remove(lote.size() - 1);
+                fin = true;
+            }
+            if (!lote.isEmpty()) {
+                aplicar(lote);
+                lote = new ArrayList<>(maximoLote); // El anterior queda para la entrega
+            }
+        }
+    }
+
+    /**
+     * Aplica el lote en una transacción y, una vez confirmada, deja la entrega de los resultados
+     * al hilo de entregas
+     */
+    private void aplicar(List<Cambio<?>> lote) {
+        Throwable errorLote = null;
+        try {
+            gestor.transaccion(tx -> {
+                for (Cambio<?> cambio : lote) {
+                    cambio.aplicar(tx);
+                }
+            });
+        } catch (EventoException | RuntimeException e) {
+            errorLote = e;
+        }
+        lotes.incrementAndGet();
+        cambios.addAndGet(lote.size());
+        Throwable error = errorLote;
+        entregas.execute(() -> {
+            for (Cambio<?> cambio : lote) {
+                if (error != null) {
+                    cambio.fallar(error);
+                } else {
+                    cambio.completar();
+                }
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Operacion<T> {
+        T aplicar(Transaccion tx) throws EventoException;
+    }
+
+    /**
+     * Cambio encolado junto con su resultado. Mientras se aplica el lote guarda el valor o el
+     * error, que recién se entregan cuando se sabe si el lote se pudo guardar.
+     */
+    private static final class Cambio<T> {
+        static final Cambio<Void> FIN = new Cambio<>(tx -> null);
+
+        final Operacion<T> operacion;
+        final CompletableFuture<T> resultado = new CompletableFuture<>();
+        private T valor;
+        private Throwable error;
+
+        Cambio(Operacion<T> operacion) {
+            this.operacion = operacion;
+        }
+
+        void aplicar(Transaccion tx) {
+            try {
+                valor = operacion.aplicar(tx);
+            } catch (EventoException | RuntimeException e) {
+                error = e;
+            }
+        }
+
+        /**
+         * Completa con el error del lote, salvo que el cambio ya hubiera fallado por sí mismo
+         */
+        void fallar(Throwable errorLote) {
+            resultado.completeExceptionally(error != null ? error : errorLote);
+        }
+
+        void completar() {
+            if (error != null) {
+                resultado.completeExceptionally(error);
+            } else {
+                resultado.complete(valor);
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package servicio;
+
+/**
+ * Orden de una consulta paginada de eventos. Los eventos de un mismo día van siempre por ID.
+ */
+public enum OrdenEventos {
+    FECHA_ASCENDENTE,
+    FECHA_DESCENDENTE
+}
@@ -0,0 +1,32 @@
+package servicio;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de resultados de una consulta paginada, junto con el cursor para pedir la siguiente
+ */
+public class Pagina<T> {
+    private final List<T> elementos;
+    private final String siguienteCursor;
+
+    public Pagina(List<T> elementos, String siguienteCursor) {
+        this.elementos = Collections.unmodifiableList(elementos);
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    /**
+     * @return Cursor opaco para pedir la página siguiente, o null si esta es la última
+     */
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    public boolean hayMas() {
+        return siguienteCursor != null;
+    }
+}
@@ -0,0 +1,328 @@
+package servicio;
+
+import excepciones.EventoException;
+import excepciones.PersistenciaException;
+import modelo.Asistente;
+import modelo.Evento;
+import persistencia.ConfiguracionPersistencia;
+import util.Archivos;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Varios hilos comparten un gestor en modo diario y mezclan altas de eventos y asistentes,
+ * inscripciones, bajas de inscripciones y cambios de capacidad sobre los mismos eventos. Cada hilo
+ * inscribe solo a los asistentes que creó y anota qué inscripciones deberían quedar, así que al
+ * terminar se sabe exactamente qué tiene que haber en cada evento. Se verifica el estado antes de
+ * recargar, después de recargar desde el diario y después de compactar y recargar desde los
+ * archivos: que no falten ni sobren inscripciones, que no se repitan IDs, que la lista de espera
+ * respete la capacidad y que el índice de eventos por asistente coincida con los eventos.
+ * Los datos se guardan en un directorio temporal que se borra al terminar.
+ */
+public class PruebaEstres {
+
+    private static final int EVENTOS_INICIALES = 16;
+    private static final int MAXIMO_PROBLEMAS_INFORMADOS = 20;
+
+    private final int hilos;
+    private final int operacionesPorHilo;
+
+    private final Set<Integer> idsEventos = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> idsAsistentes = ConcurrentHashMap.newKeySet();
+    private final List<Integer> eventosDisponibles = new CopyOnWriteArrayList<>();
+    private final List<String> problemas = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger cantidadProblemas = new AtomicInteger();
+
+    /**
+     * @param hilos Cantidad de hilos que usan el gestor a la vez, mayor a 0
+     * @param operacionesPorHilo Operaciones que hace cada hilo, mayor a 0
+     */
+    public PruebaEstres(int hilos, int operacionesPorHilo) {
+        if (hilos <= 0 || operacionesPorHilo <= 0) {
+            throw new IllegalArgumentException("Los hilos y las operaciones deben ser mayores a 0");
+        }
+        this.hilos = hilos;
+        this.operacionesPorHilo = operacionesPorHilo;
+    }
+
+    /**
+     * Ejecuta la prueba y las verificaciones
+     * @return Ritmo alcanzado y problemas encontrados
+     * @throws IOException si no se pudo crear o borrar el directorio temporal
+     * @throws PersistenciaException si falló el guardado o la recarga
+     * @throws InterruptedException si se interrumpió la prueba
+     */
+    public Resultado ejecutar() throws IOException, PersistenciaException, InterruptedException {
+        Path directorio = Files.createTempDirectory("prueba-estres");
+        try {
+            ConfiguracionPersistencia configuracion = new ConfiguracionPersistencia();
+            configuracion.setDiarioActivo(true);
+            configuracion.setDirectorio(directorio);
+            return ejecutar(configuracion);
+        } finally {
+            Archivos.borrarDirectorio(directorio);
+        }
+    }
+
+    private Resultado ejecutar(ConfiguracionPersistencia configuracion)
+            throws PersistenciaException, InterruptedException {
+        GestorEventos gestor = new GestorEventos(configuracion);
+        for (int i = 0; i < EVENTOS_INICIALES; i++) {
+            crearEvento(gestor, "Inicial " + i);
+        }
+
+        List<Set<Long>> inscripcionesPorHilo = new ArrayList<>();
+        List<Thread> trabajadores = new ArrayList<>();
+        CountDownLatch largada = new CountDownLatch(1);
+        for (int h = 0; h < hilos; h++) {
+            Set<Long> inscripciones = new HashSet<>();
+            inscripcionesPorHilo.add(inscripciones);
+            int numero = h;
+            Thread trabajador = new Thread(() -> {
+                try {
+                    largada.await();
+                    trabajar(gestor, numero, inscripciones);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "estres-" + h);
+            trabajador.start();
+            trabajadores.add(trabajador);
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Thread trabajador : trabajadores) {
+            trabajador.join();
+        }
+        long duracionNanos = System.nanoTime() - inicio;
+
+        // Lo que anotaron los hilos se lee después del join, que los ordena con este hilo
+        Map<Integer, Set<Integer>> esperado = new HashMap<>();
+        for (Set<Long> inscripciones : inscripcionesPorHilo) {
+            for (long par : inscripciones) {
+                esperado.computeIfAbsent((int) (par >>> 32), id -> new HashSet<>()).add((int) par);
+            }
+        }
+
+        Map<Integer, String> antes = verificar(gestor, esperado, "antes de recargar");
+        gestor.cerrar();
+
+        GestorEventos recargado = new GestorEventos(configuracion);
+        compararTrasRecarga(antes, verificar(recargado, esperado, "al recargar desde el diario"));
+        recargado.guardarDatos();
+        recargado.cerrar();
+
+        GestorEventos compactado = new GestorEventos(configuracion);
+        compararTrasRecarga(antes, verificar(compactado, esperado, "al recargar tras compactar"));
+        compactado.cerrar();
+
+        return new Resultado(hilos * operacionesPorHilo, duracionNanos, cantidadProblemas.get(),
+            new ArrayList<>(problemas));
+    }
+
+    private void trabajar(GestorEventos gestor, int numero, Set<Long> inscripciones) {
+        Random aleatorio = new Random(numero);
+        List<Integer> propios = new ArrayList<>();
+        List<Long> pares = new ArrayList<>(); // Las mismas inscripciones, para elegir una al azar
+        for (int i = 0; i < operacionesPorHilo; i++) {
+            int operacion = aleatorio.nextInt(100);
+            int idEvento = eventosDisponibles.get(aleatorio.nextInt(eventosDisponibles.size()));
+            try {
+                if (operacion < 2) {
+                    crearEvento(gestor, "Hilo " + numero + " evento " + i);
+                } else if (operacion < 10 || propios.isEmpty()) {
+                    Asistente asistente = gestor.crearAsistente("Hilo " + numero + " asistente " + i,
+                        "h" + numero + "a" + i + "@estres.com", "1155550000");
+                    registrarId(idsAsistentes, asistente.getId(), "asistente");
+                    propios.add(asistente.getId());
+                } else if (operacion < 15) {
+                    // Solo un tercio de los eventos tiene capacidad, para que también haya listas de espera
+                    if (idEvento % 3 == 0) {
+                        gestor.definirCapacidad(idEvento, 1 + aleatorio.nextInt(8));
+                    }
+                } else if (operacion < 60 || pares.isEmpty()) {
+                    int idAsistente = propios.get(aleatorio.nextInt(propios.size()));
+                    long par = (long) idEvento << 32 | idAsistente;
+                    if (inscripciones.add(par)) {
+                        gestor.agregarAsistenteAEvento(idEvento, idAsistente);
+                        pares.add(par);
+                    }
+                } else {
+                    int posicion = aleatorio.nextInt(pares.size());
+                    long par = pares.get(posicion);
+                    pares.set(posicion, pares.get(pares.size() - 1));
+                    pares.remove(pares.size() - 1);
+                    inscripciones.remove(par);
+                    gestor.removerAsistenteDeEvento((int) (par >>> 32), (int) par);
+                }
+            } catch (EventoException e) {
+                informar("Operación rechazada en el hilo " + numero + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void crearEvento(GestorEventos gestor, String nombre) {
+        try {
+            Evento evento = gestor.crearEvento(nombre, LocalDate.now().plusDays(30), "Sala", "Prueba de estrés");
+            registrarId(idsEventos, evento.getId(), "evento");
+            eventosDisponibles.add(evento.getId());
+        } catch (EventoException e) {
+            informar("No se pudo crear el evento " + nombre + ": " + e.getMessage());
+        }
+    }
+
+    private void registrarId(Set<Integer> ids, int id, String tipo) {
+        if (!ids.add(id)) {
+            informar("ID de " + tipo + " repetido: " + id);
+        }
+    }
+
+    /**
+     * @return Descripción de cada evento por ID, para comparar el estado tras recargar
+     */
+    private Map<Integer, String> verificar(GestorEventos gestor, Map<Integer, Set<Integer>> esperado, String momento) {
+        EstadoEventos estado = gestor.getEstado();
+        Map<Integer, String> descripciones = new TreeMap<>();
+        Map<Integer, Set<Integer>> eventosPorAsistente = new HashMap<>();
+
+        if (estado.getCantidadEventos() != idsEventos.size()) {
+            informar(momento + ": hay " + estado.getCantidadEventos() + " eventos y se crearon " + idsEventos.size());
+        }
+        if (estado.getCantidadAsistentes() != idsAsistentes.size()) {
+            informar(momento + ": hay " + estado.getCantidadAsistentes() + " asistentes y se crearon "
+                + idsAsistentes.size());
+        }
+        for (int id : idsAsistentes) {
+            if (!estado.buscarAsistente(id).isPresent()) {
+                informar(momento + ": falta el asistente " + id);
+            }
+        }
+
+        for (int id : idsEventos) {
+            Evento evento = estado.buscarEvento(id).orElse(null);
+            if (evento == null) {
+                informar(momento + ": falta el evento " + id);
+                continue;
+            }
+            List<Integer> inscriptos = ids(evento.getAsistentes());
+            List<Integer> enEspera = ids(evento.getListaEspera());
+            Set<Integer> registrados = new HashSet<>(inscriptos);
+            for (int idAsistente : enEspera) {
+                if (!registrados.add(idAsistente)) {
+                    informar(momento + ": el asistente " + idAsistente + " está inscripto y en espera en el evento " + id);
+                }
+            }
+            Set<Integer> deberian = esperado.getOrDefault(id, Collections.emptySet());
+            if (!registrados.equals(deberian)) {
+                Set<Integer> faltan = new HashSet<>(deberian);
+                faltan.removeAll(registrados);
+                Set<Integer> sobran = new HashSet<>(registrados);
+                sobran.removeAll(deberian);
+                informar(momento + ": en el evento " + id + " faltan " + faltan + " y sobran " + sobran);
+            }
+            if (!enEspera.isEmpty() && (evento.getCapacidad() == 0 || inscriptos.size() < evento.getCapacidad())) {
+                informar(momento + ": el evento " + id + " tiene lista de espera con lugar libre ("
+                    + inscriptos.size() + " de " + evento.getCapacidad() + ")");
+            }
+            for (int idAsistente : inscriptos) {
+                eventosPorAsistente.computeIfAbsent(idAsistente, a -> new HashSet<>()).add(id);
+            }
+            descripciones.put(id, "capacidad " + evento.getCapacidad() + ", inscriptos " + inscriptos
+                + ", en espera " + enEspera);
+        }
+
+        for (int idAsistente : idsAsistentes) {
+            Set<Integer> indexados = estado.listarEventosDeAsistente(idAsistente).stream()
+                .map(Evento::getId).collect(Collectors.toSet());
+            Set<Integer> inscripto = eventosPorAsistente.getOrDefault(idAsistente, Collections.emptySet());
+            if (!indexados.equals(inscripto)) {
+                informar(momento + ": el índice da al asistente " + idAsistente + " en " + indexados
+                    + " pero está inscripto en " + inscripto);
+            }
+        }
+        return descripciones;
+    }
+
+    private void compararTrasRecarga(Map<Integer, String> antes, Map<Integer, String> despues) {
+        for (Map.Entry<Integer, String> entrada : antes.entrySet()) {
+            String recargado = despues.get(entrada.getKey());
+            if (recargado != null && !recargado.equals(entrada.getValue())) {
+                informar("El evento " + entrada.getKey() + " cambió al recargar: " + entrada.getValue()
+                    + " -> " + recargado);
+            }
+        }
+    }
+
+    private static List<Integer> ids(List<Asistente> asistentes) {
+        return asistentes.stream().map(Asistente::getId).collect(Collectors.toList());
+    }
+
+    private void informar(String problema) {
+        if (cantidadProblemas.incrementAndGet() <= MAXIMO_PROBLEMAS_INFORMADOS) {
+            problemas.add(problema);
+        }
+    }
+
+    /**
+     * Resultado de una prueba de estrés
+     */
+    public static final class Resultado {
+        private final int operaciones;
+        private final long duracionNanos;
+        private final int cantidadProblemas;
+        private final List<String> problemas; // Solo los primeros
+
+        Resultado(int operaciones, long duracionNanos, int cantidadProblemas, List<String> problemas) {
+            this.operaciones = operaciones;
+            this.duracionNanos = duracionNanos;
+            this.cantidadProblemas = cantidadProblemas;
+            this.problemas = problemas;
+        }
+
+        public int getOperaciones() {
+            return operaciones;
+        }
+
+        public double getOperacionesPorSegundo() {
+            return operaciones / (duracionNanos / 1_000_000_000.0);
+        }
+
+        /**
+         * @return true si no se encontró ninguna inconsistencia ni se rechazó ninguna operación
+         */
+        public boolean esConsistente() {
+            return cantidadProblemas == 0;
+        }
+
+        public List<String> getProblemas() {
+            return Collections.unmodifiableList(problemas);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format("Operaciones: %d (%.1f/s), problemas: %d",
+                operaciones, getOperacionesPorSegundo(), cantidadProblemas));
+            for (String problema : problemas) {
+                sb.append(System.lineSeparator()).append("  ").append(problema);
+            }
+            return sb.toString();
+        }
+    }
+}
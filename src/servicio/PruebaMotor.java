@@ -0,0 +1,288 @@
+package servicio;
+
+import excepciones.EventoException;
+import excepciones.PersistenciaException;
+import modelo.Asistente;
+import modelo.Evento;
+import persistencia.ConfiguracionPersistencia;
+import util.Archivos;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Varios hilos encolan cambios en un {@link MotorCambios} sin esperar cada resultado, como las
+ * peticiones simultáneas del servidor HTTP. Cada hilo da de alta asistentes y los inscribe en
+ * un evento, y entre medio encola cambios que se sabe que son inválidos: un alta con el email
+ * de un asistente que el mismo hilo encoló antes y una inscripción en un evento que no existe.
+ * <p>
+ * Se verifica que cada cambio inválido falle con su {@link EventoException} sin afectar a los
+ * demás cambios de su lote, que los válidos queden aplicados antes y después de recargar desde
+ * el diario, y que el motor haya juntado cambios en lotes: en modo diario cada lote se escribe
+ * como una sola transacción. Los datos se guardan en un directorio temporal que se borra al terminar.
+ */
+public class PruebaMotor {
+
+    private static final int EVENTOS = 8;
+    private static final int ID_INEXISTENTE = -1;
+    private static final int MAXIMO_PROBLEMAS_INFORMADOS = 20;
+
+    private final int hilos;
+    private final int altasPorHilo;
+
+    private final List<String> problemas = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger cantidadProblemas = new AtomicInteger();
+
+    /**
+     * @param hilos Cantidad de hilos que encolan cambios a la vez, mayor a 0
+     * @param altasPorHilo Asistentes que da de alta e inscribe cada hilo, mayor a 0
+     */
+    public PruebaMotor(int hilos, int altasPorHilo) {
+        if (hilos <= 0 || altasPorHilo <= 0) {
+            throw new IllegalArgumentException("Los hilos y las altas deben ser mayores a 0");
+        }
+        this.hilos = hilos;
+        this.altasPorHilo = altasPorHilo;
+    }
+
+    /**
+     * Ejecuta la prueba y las verificaciones
+     * @return Lotes formados, rechazos y problemas encontrados
+     * @throws IOException si no se pudo crear o borrar el directorio temporal
+     * @throws PersistenciaException si falló el guardado o la recarga
+     * @throws EventoException si no se pudieron crear los eventos iniciales
+     * @throws InterruptedException si se interrumpió la prueba
+     */
+    public Resultado ejecutar() throws IOException, PersistenciaException, EventoException, InterruptedException {
+        Path directorio = Files.createTempDirectory("prueba-motor");
+        try {
+            ConfiguracionPersistencia configuracion = new ConfiguracionPersistencia();
+            configuracion.setDiarioActivo(true);
+            configuracion.setDirectorio(directorio);
+            return ejecutar(configuracion);
+        } finally {
+            Archivos.borrarDirectorio(directorio);
+        }
+    }
+
+    private Resultado ejecutar(ConfiguracionPersistencia configuracion)
+            throws PersistenciaException, EventoException, InterruptedException {
+        GestorEventos gestor = new GestorEventos(configuracion);
+        int[] idsEventos = new int[EVENTOS];
+        gestor.transaccion(tx -> {
+            for (int i = 0; i < EVENTOS; i++) {
+                idsEventos[i] = tx.crearEvento("Evento " + i, LocalDate.now().plusDays(30), "Sala",
+                    "Prueba del motor").getId();
+            }
+        });
+
+        MotorCambios motor = new MotorCambios(gestor);
+        List<List<Cambio>> cambiosPorHilo = new ArrayList<>();
+        List<Thread> trabajadores = new ArrayList<>();
+        CountDownLatch largada = new CountDownLatch(1);
+        for (int h = 0; h < hilos; h++) {
+            List<Cambio> cambios = new ArrayList<>();
+            cambiosPorHilo.add(cambios);
+            int numero = h;
+            Thread trabajador = new Thread(() -> {
+                try {
+                    largada.await();
+                    encolar(motor, numero, idsEventos, cambios);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "motor-" + h);
+            trabajador.start();
+            trabajadores.add(trabajador);
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Thread trabajador : trabajadores) {
+            trabajador.join();
+        }
+        int rechazados = 0;
+        for (List<Cambio> cambios : cambiosPorHilo) {
+            for (Cambio cambio : cambios) {
+                if (!verificarResultado(cambio)) {
+                    rechazados++;
+                }
+            }
+        }
+        long duracionNanos = System.nanoTime() - inicio;
+        motor.cerrar();
+
+        if (motor.getCambios() > 1 && motor.getLotes() == motor.getCambios()) {
+            informar("El motor aplicó cada uno de los " + motor.getCambios() + " cambios en su propio lote");
+        }
+        verificarEstado(gestor, idsEventos, "antes de recargar");
+        gestor.cerrar();
+        GestorEventos recargado = new GestorEventos(configuracion);
+        verificarEstado(recargado, idsEventos, "al recargar desde el diario");
+        recargado.cerrar();
+
+        return new Resultado(motor.getCambios(), motor.getLotes(), rechazados, duracionNanos,
+            cantidadProblemas.get(), new ArrayList<>(problemas));
+    }
+
+    /**
+     * Encola las altas con sus inscripciones y, cada dos altas, uno de los cambios inválidos
+     */
+    private void encolar(MotorCambios motor, int numero, int[] idsEventos, List<Cambio> cambios) {
+        for (int i = 0; i < altasPorHilo; i++) {
+            String email = "h" + numero + "a" + i + "@motor.com";
+            int idEvento = idsEventos[(numero + i) % idsEventos.length];
+            CompletableFuture<Asistente> alta = motor.crearAsistente("Hilo " + numero + " asistente " + i,
+                email, "1155550000");
+            cambios.add(new Cambio("alta de " + email, alta, true));
+            // La inscripción se encola cuando se conoce el ID, desde el hilo que entrega los resultados
+            cambios.add(new Cambio("inscripción de " + email,
+                alta.thenCompose(asistente -> motor.agregarAsistenteAEvento(idEvento, asistente.getId())), true));
+
+            if (i % 4 == 0) {
+                cambios.add(new Cambio("alta repetida de " + email,
+                    motor.crearAsistente("Repetido", email, "1155550000"), false));
+            } else if (i % 4 == 2) {
+                cambios.add(new Cambio("inscripción en un evento inexistente",
+                    motor.agregarAsistenteAEvento(ID_INEXISTENTE, ID_INEXISTENTE), false));
+            }
+        }
+    }
+
+    /**
+     * @return true si el cambio se aplicó
+     */
+    private boolean verificarResultado(Cambio cambio) throws InterruptedException {
+        try {
+            cambio.resultado.get();
+            if (!cambio.valido) {
+                informar("Se aplicó un cambio inválido: " + cambio.descripcion);
+            }
+            return true;
+        } catch (ExecutionException e) {
+            if (cambio.valido) {
+                informar("Falló un cambio válido (" + cambio.descripcion + "): " + e.getCause().getMessage());
+            } else if (!(e.getCause() instanceof EventoException)) {
+                informar("El cambio inválido " + cambio.descripcion + " falló con " + e.getCause());
+            }
+            return false;
+        }
+    }
+
+    private void verificarEstado(GestorEventos gestor, int[] idsEventos, String momento) {
+        int esperados = hilos * altasPorHilo;
+        int asistentes = gestor.getEstado().getCantidadAsistentes();
+        if (asistentes != esperados) {
+            informar(momento + ": hay " + asistentes + " asistentes y se dieron de alta " + esperados);
+        }
+        int inscripciones = 0;
+        for (int idEvento : idsEventos) {
+            Evento evento = gestor.buscarEventoPorId(idEvento).orElse(null);
+            if (evento == null) {
+                informar(momento + ": falta el evento " + idEvento);
+            } else {
+                inscripciones += evento.getCantidadAsistentes();
+            }
+        }
+        if (inscripciones != esperados) {
+            informar(momento + ": hay " + inscripciones + " inscripciones y se encolaron " + esperados);
+        }
+    }
+
+    private void informar(String problema) {
+        if (cantidadProblemas.incrementAndGet() <= MAXIMO_PROBLEMAS_INFORMADOS) {
+            problemas.add(problema);
+        }
+    }
+
+    /**
+     * Cambio encolado, con lo que se espera de él
+     */
+    private static final class Cambio {
+        final String descripcion;
+        final CompletableFuture<?> resultado;
+        final boolean valido;
+
+        Cambio(String descripcion, CompletableFuture<?> resultado, boolean valido) {
+            this.descripcion = descripcion;
+            this.resultado = resultado;
+            this.valido = valido;
+        }
+    }
+
+    /**
+     * Resultado de la prueba del motor de cambios
+     */
+    public static final class Resultado {
+        private final long cambios;
+        private final long lotes;
+        private final int rechazados;
+        private final long duracionNanos;
+        private final int cantidadProblemas;
+        private final List<String> problemas; // Solo los primeros
+
+        Resultado(long cambios, long lotes, int rechazados, long duracionNanos, int cantidadProblemas,
+                  List<String> problemas) {
+            this.cambios = cambios;
+            this.lotes = lotes;
+            this.rechazados = rechazados;
+            this.duracionNanos = duracionNanos;
+            this.cantidadProblemas = cantidadProblemas;
+            this.problemas = problemas;
+        }
+
+        public long getCambios() {
+            return cambios;
+        }
+
+        public long getLotes() {
+            return lotes;
+        }
+
+        /**
+         * @return Cambios que fallaron; sin problemas, son exactamente los inválidos
+         */
+        public int getRechazados() {
+            return rechazados;
+        }
+
+        public double getCambiosPorLote() {
+            return lotes == 0 ? 0 : (double) cambios / lotes;
+        }
+
+        public double getCambiosPorSegundo() {
+            return cambios / (duracionNanos / 1_000_000_000.0);
+        }
+
+        /**
+         * @return true si fallaron solo los cambios inválidos, los demás se conservaron al recargar
+         * y el motor agrupó cambios en lotes
+         */
+        public boolean esConsistente() {
+            return cantidadProblemas == 0;
+        }
+
+        public List<String> getProblemas() {
+            return Collections.unmodifiableList(problemas);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format(
+                "Cambios: %d en %d lotes (%.1f por lote, %.1f/s), rechazados: %d, problemas: %d",
+                cambios, lotes, getCambiosPorLote(), getCambiosPorSegundo(), rechazados, cantidadProblemas));
+            for (String problema : problemas) {
+                sb.append(System.lineSeparator()).append("  ").append(problema);
+            }
+            return sb.toString();
+        }
+    }
+}
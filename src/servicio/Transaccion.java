@@ -0,0 +1,265 @@
+package servicio;
+
+import excepciones.EventoException;
+import modelo.Asistente;
+import modelo.Evento;
+import modelo.ResultadoInscripcion;
+import persistencia.LoteDiario;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cambios sobre eventos y asistentes que se aplican como una unidad. Se obtiene con
+ * {@link GestorEventos#transaccion(UnidadDeTrabajo)}: cada operación se valida y se aplica sobre
+ * una versión propia del estado, que ya refleja las operaciones anteriores de la transacción.
+ * Nada se publica hasta que la transacción termina, y no se puede usar luego de terminada.
+ * Una operación que lanza {@link EventoException} no deja cambios, así que quien la captura
+ * puede seguir usando la transacción.
+ */
+public class Transaccion {
+    private EstadoEventos estado;
+    private final LocalDate hoy;
+    private int siguienteIdEvento;
+    private int siguienteIdAsistente;
+    private final LoteDiario lote; // Registros para el diario; null si no está activo
+    private final Set<Integer> eventosModificados = new HashSet<>();
+    private final Set<Integer> asistentesModificados = new HashSet<>();
+    private boolean terminada;
+
+    Transaccion(EstadoEventos estado, LocalDate hoy, int siguienteIdEvento, int siguienteIdAsistente,
+                LoteDiario lote) {
+        this.estado = estado;
+        this.hoy = hoy;
+        this.siguienteIdEvento = siguienteIdEvento;
+        this.siguienteIdAsistente = siguienteIdAsistente;
+        this.lote = lote;
+    }
+
+    public Evento crearEvento(String nombre, LocalDate fecha, String ubicacion, String descripcion)
+            throws EventoException {
+        verificarActiva();
+        // Validaciones adicionales de negocio
+        if (fecha != null && fecha.isBefore(hoy)) {
+            throw new EventoException("La fecha del evento no puede ser anterior a hoy");
+        }
+
+        // Verificar si ya existe un evento con el mismo nombre en la misma fecha
+        if (fecha != null && estado.buscarEventoPorNombreFecha(nombre, fecha) != null) {
+            throw new EventoException("Ya existe un evento con el mismo nombre en esa fecha");
+        }
+
+        Evento nuevoEvento;
+        try {
+            nuevoEvento = new Evento(siguienteIdEvento, nombre, fecha, ubicacion, descripcion);
+            estado = estado.conEvento(nuevoEvento);
+        } catch (IllegalArgumentException e) {
+            throw new EventoException("Error al crear evento: " + e.getMessage(), e);
+        }
+        siguienteIdEvento++;
+        eventosModificados.add(nuevoEvento.getId());
+        if (lote != null) {
+            lote.registrarEvento(nuevoEvento);
+        }
+        return nuevoEvento;
+    }
+
+    public void modificarEvento(int id, String nombre, LocalDate fecha, String ubicacion, String descripcion)
+            throws EventoException {
+        verificarActiva();
+        Optional<Evento> eventoOpt = estado.buscarEvento(id);
+        if (!eventoOpt.isPresent()) {
+            throw new EventoException("No se encontró el evento con ID: " + id);
+        }
+
+        Evento evento = eventoOpt.get();
+
+        // Si es un evento pasado, no permitir modificaciones
+        if (evento.esPasado(hoy)) {
+            throw new EventoException("No se puede modificar un evento que ya pasó");
+        }
+
+        Evento existente = fecha != null ? estado.buscarEventoPorNombreFecha(nombre, fecha) : null;
+        if (existente != null && existente.getId() != id) {
+            throw new EventoException("Ya existe un evento con el mismo nombre en esa fecha");
+        }
+
+        Evento modificado;
+        try {
+            modificado = evento.conDatos(nombre, fecha, ubicacion, descripcion);
+            estado = estado.conEvento(modificado);
+        } catch (IllegalArgumentException e) {
+            throw new EventoException("Error al modificar evento: " + e.getMessage(), e);
+        }
+        eventosModificados.add(id);
+        if (lote != null) {
+            lote.registrarEvento(modificado);
+        }
+    }
+
+    public void eliminarEvento(int id) throws EventoException {
+        verificarActiva();
+        if (!estado.buscarEvento(id).isPresent()) {
+            throw new EventoException("No se encontró el evento con ID: " + id);
+        }
+
+        estado = estado.sinEvento(id);
+        eventosModificados.add(id);
+        if (lote != null) {
+            lote.registrarBajaEvento(id);
+        }
+    }
+
+    public Asistente crearAsistente(String nombre, String email, String telefono) throws EventoException {
+        verificarActiva();
+        // Verificar si ya existe un asistente con el mismo email
+        if (estado.buscarAsistentePorEmail(email).isPresent()) {
+            throw new EventoException("Ya existe un asistente con ese email");
+        }
+
+        Asistente nuevoAsistente;
+        try {
+            nuevoAsistente = new Asistente(siguienteIdAsistente, nombre, email, telefono);
+        } catch (IllegalArgumentException e) {
+            throw new EventoException("Error al crear asistente: " + e.getMessage(), e);
+        }
+        siguienteIdAsistente++;
+        estado = estado.conAsistente(nuevoAsistente);
+        asistentesModificados.add(nuevoAsistente.getId());
+        if (lote != null) {
+            lote.registrarAsistente(nuevoAsistente);
+        }
+        return nuevoAsistente;
+    }
+
+    /**
+     * Inscribe al asistente en el evento o, si el evento está completo, lo deja en la lista de espera
+     * @return Si quedó inscripto o en espera
+     */
+    public ResultadoInscripcion agregarAsistenteAEvento(int idEvento, int idAsistente) throws EventoException {
+        verificarActiva();
+        Optional<Evento> eventoOpt = estado.buscarEvento(idEvento);
+        if (!eventoOpt.isPresent()) {
+            throw new EventoException("No se encontró el evento");
+        }
+
+        Optional<Asistente> asistenteOpt = estado.buscarAsistente(idAsistente);
+        if (!asistenteOpt.isPresent()) {
+            throw new EventoException("No se encontró el asistente");
+        }
+
+        Evento evento = eventoOpt.get().inscribir(asistenteOpt.get());
+        estado = estado.conEvento(evento);
+        eventosModificados.add(idEvento);
+        if (lote != null) {
+            lote.registrarInscripcion(idEvento, idAsistente);
+        }
+        return evento.tieneAsistente(idAsistente) ? ResultadoInscripcion.INSCRIPTO : ResultadoInscripcion.EN_ESPERA;
+    }
+
+    /**
+     * Quita al asistente del evento o de su lista de espera. El lugar que deja lo ocupa el primero
+     * de la lista de espera.
+     */
+    public void removerAsistenteDeEvento(int idEvento, int idAsistente) throws EventoException {
+        verificarActiva();
+        Optional<Evento> eventoOpt = estado.buscarEvento(idEvento);
+        if (!eventoOpt.isPresent()) {
+            throw new EventoException("No se encontró el evento");
+        }
+
+        estado = estado.conEvento(eventoOpt.get().desinscribir(idAsistente));
+        eventosModificados.add(idEvento);
+        if (lote != null) {
+            lote.registrarDesinscripcion(idEvento, idAsistente);
+        }
+    }
+
+    /**
+     * Cambia la capacidad del evento. Si aumenta, pasan al evento los primeros de la lista de
+     * espera que entren; si queda por debajo de los inscriptos no se quita a nadie.
+     * @param capacidad Cantidad máxima de asistentes; 0 para no tener límite
+     */
+    public void definirCapacidad(int idEvento, int capacidad) throws EventoException {
+        verificarActiva();
+        Optional<Evento> eventoOpt = estado.buscarEvento(idEvento);
+        if (!eventoOpt.isPresent()) {
+            throw new EventoException("No se encontró el evento con ID: " + idEvento);
+        }
+        if (capacidad < 0) {
+            throw new EventoException("La capacidad no puede ser negativa");
+        }
+        if (eventoOpt.get().esPasado(hoy)) {
+            throw new EventoException("No se puede modificar un evento que ya pasó");
+        }
+
+        estado = estado.conEvento(eventoOpt.get().cambiarCapacidad(capacidad));
+        eventosModificados.add(idEvento);
+        if (lote != null) {
+            lote.registrarCapacidad(idEvento, capacidad);
+        }
+    }
+
+    /**
+     * Busca un evento, con los cambios hechos hasta ahora en la transacción
+     */
+    public Optional<Evento> buscarEventoPorId(int id) {
+        verificarActiva();
+        return estado.buscarEvento(id);
+    }
+
+    /**
+     * Busca un asistente, con los cambios hechos hasta ahora en la transacción
+     */
+    public Optional<Asistente> buscarAsistentePorId(int id) {
+        verificarActiva();
+        return estado.buscarAsistente(id);
+    }
+
+    /**
+     * Busca un asistente por email, con los cambios hechos hasta ahora en la transacción
+     */
+    public Optional<Asistente> buscarAsistentePorEmail(String email) {
+        verificarActiva();
+        return estado.buscarAsistentePorEmail(email);
+    }
+
+    void terminar() {
+        terminada = true;
+    }
+
+    boolean hayCambios() {
+        return !eventosModificados.isEmpty() || !asistentesModificados.isEmpty();
+    }
+
+    EstadoEventos getEstado() {
+        return estado;
+    }
+
+    int getSiguienteIdEvento() {
+        return siguienteIdEvento;
+    }
+
+    int getSiguienteIdAsistente() {
+        return siguienteIdAsistente;
+    }
+
+    Set<Integer> getEventosModificados() {
+        return eventosModificados;
+    }
+
+    Set<Integer> getAsistentesModificados() {
+        return asistentesModificados;
+    }
+
+    LoteDiario getLote() {
+        return lote;
+    }
+
+    private void verificarActiva() {
+        if (terminada) {
+            throw new IllegalStateException("La transacción ya terminó");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package servicio;
+
+import excepciones.EventoException;
+
+/**
+ * Operaciones que se aplican juntas dentro de una transacción del gestor
+ */
+@FunctionalInterface
+public interface UnidadDeTrabajo {
+    void ejecutar(Transaccion tx) throws EventoException;
+}
@@ -0,0 +1,164 @@
+package servidor;
+
+import util.Ejecutores;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Genera peticiones GET a una URL a un ritmo fijo y mide su latencia. Las peticiones se envían
+ * en el momento que les toca aunque las anteriores no hayan respondido, y la latencia se cuenta
+ * desde ese momento: si el servidor se atrasa, la demora se ve en los percentiles en lugar de
+ * bajar el ritmo. El cliente reutiliza las conexiones HTTP/1.1 abiertas entre peticiones.
+ */
+public class GeneradorCarga {
+
+    private static final Duration ESPERA_FINAL = Duration.ofSeconds(30);
+
+    private final URI destino;
+    private final int peticionesPorSegundo;
+    private final int segundos;
+
+    /**
+     * @param destino URL a la que se envían las peticiones
+     * @param peticionesPorSegundo Ritmo de envío, mayor a 0
+     * @param segundos Duración de la prueba, mayor a 0
+     */
+    public GeneradorCarga(URI destino, int peticionesPorSegundo, int segundos) {
+        if (peticionesPorSegundo <= 0 || segundos <= 0) {
+            throw new IllegalArgumentException("El ritmo y la duración deben ser mayores a 0");
+        }
+        this.destino = destino;
+        this.peticionesPorSegundo = peticionesPorSegundo;
+        this.segundos = segundos;
+    }
+
+    /**
+     * Envía todas las peticiones y espera sus respuestas
+     * @return Latencias y errores de la prueba
+     * @throws InterruptedException si se interrumpió la prueba
+     */
+    public Resultado ejecutar() throws InterruptedException {
+        int total = Math.multiplyExact(peticionesPorSegundo, segundos);
+        long intervaloNanos = TimeUnit.SECONDS.toNanos(1) / peticionesPorSegundo;
+        long[] latencias = new long[total];
+        AtomicInteger respondidas = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+        CompletableFuture<?>[] pendientes = new CompletableFuture<?>[total];
+
+        ExecutorService ejecutor = Ejecutores.unHiloPorTarea("carga");
+        HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(ejecutor)
+            .build();
+        HttpRequest peticion = HttpRequest.newBuilder(destino).GET().build();
+
+        try {
+            long inicio = System.nanoTime();
+            for (int i = 0; i < total; i++) {
+                long programada = inicio + i * intervaloNanos;
+                long espera;
+                while ((espera = programada - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(espera);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+                pendientes[i] = cliente.sendAsync(peticion, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((respuesta, error) -> {
+                        long latencia = System.nanoTime() - programada;
+                        if (error != null || respuesta.statusCode() >= 400) {
+                            errores.incrementAndGet();
+                        } else {
+                            latencias[respondidas.getAndIncrement()] = latencia;
+                        }
+                    });
+            }
+            long finEnvio = System.nanoTime();
+
+            try {
+                CompletableFuture.allOf(pendientes).exceptionally(e -> null)
+                    .get(ESPERA_FINAL.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                // Las que no respondieron a tiempo se cuentan como errores
+            }
+            int sinRespuesta = 0;
+            for (CompletableFuture<?> pendiente : pendientes) {
+                if (!pendiente.isDone()) {
+                    sinRespuesta++;
+                }
+            }
+            // Se copia para no leer posiciones que una respuesta tardía todavía podría escribir
+            long[] medidas = Arrays.copyOf(latencias, Math.min(respondidas.get(), total));
+            return new Resultado(total, errores.get() + sinRespuesta, medidas, finEnvio - inicio);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Resultado de una prueba de carga
+     */
+    public static final class Resultado {
+        private final int enviadas;
+        private final int errores;
+        private final long[] latencias; // Nanosegundos, ordenadas, solo de las respuestas exitosas
+        private final long duracionNanos;
+
+        Resultado(int enviadas, int errores, long[] latencias, long duracionNanos) {
+            Arrays.sort(latencias);
+            this.enviadas = enviadas;
+            this.errores = errores;
+            this.latencias = latencias;
+            this.duracionNanos = duracionNanos;
+        }
+
+        public int getEnviadas() {
+            return enviadas;
+        }
+
+        /**
+         * @return Peticiones que fallaron, respondieron con un estado 4xx o 5xx, o no respondieron
+         */
+        public int getErrores() {
+            return errores;
+        }
+
+        /**
+         * @param percentil Entre 0 y 100
+         * @return Latencia del percentil en milisegundos, o 0 si no hubo respuestas exitosas
+         */
+        public double getLatenciaMs(double percentil) {
+            if (latencias.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(percentil / 100 * latencias.length) - 1;
+            return latencias[Math.max(0, Math.min(indice, latencias.length - 1))] / 1_000_000.0;
+        }
+
+        /**
+         * @return Ritmo con que efectivamente se enviaron las peticiones
+         */
+        public double getPeticionesPorSegundo() {
+            return enviadas / (duracionNanos / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Peticiones: %d (%.1f/s), errores: %d%n"
+                    + "Latencia p50: %.2f ms, p99: %.2f ms, máxima: %.2f ms",
+                enviadas, getPeticionesPorSegundo(), errores,
+                getLatenciaMs(50), getLatenciaMs(99), getLatenciaMs(100));
+        }
+    }
+}
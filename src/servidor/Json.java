@@ -0,0 +1,287 @@
+package servidor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura y escritura de JSON para la API, sin dependencias externas. La lectura arma
+ * {@code Map}, {@code List}, {@code String}, {@code Long}, {@code Double}, {@code Boolean} o null;
+ * la escritura se hace con {@link Objeto} y {@link #arreglo(List)}.
+ */
+final class Json {
+
+    private final String texto;
+    private int posicion;
+
+    private Json(String texto) {
+        this.texto = texto;
+    }
+
+    /**
+     * @param texto Documento JSON cuyo valor principal es un objeto
+     * @return Campos del objeto en el orden en que aparecen
+     * @throws IllegalArgumentException si el texto no es JSON válido o no es un objeto
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> leerObjeto(String texto) {
+        Json lector = new Json(texto);
+        Object valor = lector.leerValor();
+        lector.saltearEspacios();
+        if (lector.posicion < texto.length()) {
+            throw lector.error("Contenido después del final del documento");
+        }
+        if (!(valor instanceof Map)) {
+            throw new IllegalArgumentException("Se esperaba un objeto JSON");
+        }
+        return (Map<String, Object>) valor;
+    }
+
+    /**
+     * @return Texto entre comillas con los caracteres especiales escapados
+     */
+    static String texto(String valor) {
+        if (valor == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(valor.length() + 2).append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * @param elementos Valores ya escritos como JSON
+     * @return Arreglo JSON con los elementos
+     */
+    static String arreglo(List<String> elementos) {
+        return "[" + String.join(",", elementos) + "]";
+    }
+
+    /**
+     * Objeto JSON que se arma campo por campo
+     */
+    static final class Objeto {
+        private final StringBuilder sb = new StringBuilder("{");
+
+        Objeto texto(String nombre, String valor) {
+            return crudo(nombre, Json.texto(valor));
+        }
+
+        Objeto numero(String nombre, long valor) {
+            return crudo(nombre, String.valueOf(valor));
+        }
+
+        /**
+         * @param valor Valor ya escrito como JSON
+         */
+        Objeto crudo(String nombre, String valor) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(Json.texto(nombre)).append(':').append(valor);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString() + "}";
+        }
+    }
+
+    private Object leerValor() {
+        saltearEspacios();
+        if (posicion >= texto.length()) {
+            throw error("Fin inesperado del documento");
+        }
+        char c = texto.charAt(posicion);
+        switch (c) {
+            case '{':
+                return leerObjeto();
+            case '[':
+                return leerArreglo();
+            case '"':
+                return leerTexto();
+            case 't':
+                return leerLiteral("true", Boolean.TRUE);
+            case 'f':
+                return leerLiteral("false", Boolean.FALSE);
+            case 'n':
+                return leerLiteral("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return leerNumero();
+                }
+                throw error("Carácter inesperado '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> leerObjeto() {
+        Map<String, Object> campos = new LinkedHashMap<>();
+        posicion++; // {
+        saltearEspacios();
+        if (consumir('}')) {
+            return campos;
+        }
+        do {
+            saltearEspacios();
+            if (posicion >= texto.length() || texto.charAt(posicion) != '"') {
+                throw error("Se esperaba el nombre de un campo");
+            }
+            String nombre = leerTexto();
+            saltearEspacios();
+            if (!consumir(':')) {
+                throw error("Se esperaba ':'");
+            }
+            campos.put(nombre, leerValor());
+            saltearEspacios();
+        } while (consumir(','));
+        if (!consumir('}')) {
+            throw error("Se esperaba ',' o '}'");
+        }
+        return campos;
+    }
+
+    private List<Object> leerArreglo() {
+        List<Object> elementos = new ArrayList<>();
+        posicion++; // [
+        saltearEspacios();
+        if (consumir(']')) {
+            return elementos;
+        }
+        do {
+            elementos.add(leerValor());
+            saltearEspacios();
+        } while (consumir(','));
+        if (!consumir(']')) {
+            throw error("Se esperaba ',' o ']'");
+        }
+        return elementos;
+    }
+
+    private String leerTexto() {
+        posicion++; // "
+        StringBuilder sb = new StringBuilder();
+        while (posicion < texto.length()) {
+            char c = texto.charAt(posicion++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (posicion >= texto.length()) {
+                break;
+            }
+            char escape = texto.charAt(posicion++);
+            switch (escape) {
+                case '"':
+                case '\\':
+                case '/':
+                    sb.append(escape);
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    if (posicion + 4 > texto.length()) {
+                        throw error("Escape \\u incompleto");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(texto.substring(posicion, posicion + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Escape \\u inválido");
+                    }
+                    posicion += 4;
+                    break;
+                default:
+                    throw error("Escape inválido '\\" + escape + "'");
+            }
+        }
+        throw error("Texto sin cerrar");
+    }
+
+    private Object leerNumero() {
+        int inicio = posicion;
+        boolean entero = true;
+        while (posicion < texto.length()) {
+            char c = texto.charAt(posicion);
+            if (c == '.' || c == 'e' || c == 'E') {
+                entero = false;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            posicion++;
+        }
+        String numero = texto.substring(inicio, posicion);
+        try {
+            return entero ? (Object) Long.parseLong(numero) : (Object) Double.parseDouble(numero);
+        } catch (NumberFormatException e) {
+            throw error("Número inválido '" + numero + "'");
+        }
+    }
+
+    private Object leerLiteral(String literal, Object valor) {
+        if (!texto.startsWith(literal, posicion)) {
+            throw error("Valor inválido");
+        }
+        posicion += literal.length();
+        return valor;
+    }
+
+    private boolean consumir(char esperado) {
+        if (posicion < texto.length() && texto.charAt(posicion) == esperado) {
+            posicion++;
+            return true;
+        }
+        return false;
+    }
+
+    private void saltearEspacios() {
+        while (posicion < texto.length() && Character.isWhitespace(texto.charAt(posicion))) {
+            posicion++;
+        }
+    }
+
+    private IllegalArgumentException error(String mensaje) {
+        return new IllegalArgumentException("JSON inválido en la posición " + posicion + ": " + mensaje);
+    }
+}
@@ -0,0 +1,526 @@
+package servidor;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import excepciones.EventoException;
+import modelo.Asistente;
+import modelo.Evento;
+import modelo.ResultadoInscripcion;
+import servicio.FiltroEventos;
+import servicio.GestorEventos;
+import servicio.MotorCambios;
+import servicio.OrdenEventos;
+import servicio.Pagina;
+import util.Ejecutores;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * API HTTP con JSON sobre las operaciones de un {@link GestorEventos}, con el servidor que trae
+ * el JDK. Cada petición se atiende en su propio hilo virtual (o en un pool de hilos, en versiones
+ * de Java sin hilos virtuales), así que una petición que espera la escritura en disco no demora
+ * a las demás. Las conexiones se mantienen abiertas entre peticiones.
+ * <p>
+ * Los cambios pasan por un {@link MotorCambios}: los de peticiones que llegan a la vez se aplican
+ * juntos en una transacción y se guardan con una sola escritura, y cada petición espera solo el
+ * resultado de su propio cambio. Las consultas van directo al gestor.
+ * <p>
+ * Rutas:
+ * <pre>
+ * GET    /eventos?filtro=&amp;orden=&amp;limite=&amp;cursor=   página de eventos
+ * POST   /eventos                                  crea un evento
+ * GET    /eventos/buscar?q=                        búsqueda de texto
+ * GET    /eventos/{id}                             evento con sus asistentes y lista de espera
+ * PUT    /eventos/{id}                             modifica un evento
+ * DELETE /eventos/{id}                             elimina un evento
+ * PUT    /eventos/{id}/capacidad                   cambia la capacidad
+ * POST   /eventos/{id}/asistentes                  inscribe a un asistente
+ * DELETE /eventos/{id}/asistentes/{idAsistente}    desinscribe a un asistente
+ * GET    /asistentes                               lista los asistentes
+ * POST   /asistentes                               crea un asistente
+ * GET    /asistentes/{id}                          asistente
+ * GET    /asistentes/{id}/eventos                  eventos del asistente
+ * </pre>
+ * Los errores se responden como {@code {"error": "..."}}: 400 para datos inválidos o una
+ * {@link EventoException}, 404 si no existe lo pedido, 405 si la ruta no admite el método, 413 si
+ * el cuerpo supera {@value #MAXIMO_CUERPO} bytes y 500 para cualquier otro error.
+ */
+public class ServidorHttp {
+
+    public static final int PUERTO_POR_DEFECTO = 8080;
+    private static final int LIMITE_POR_DEFECTO = 50;
+    private static final int LIMITE_MAXIMO = 1000;
+    /** Bytes que puede tener el cuerpo de una petición; los datos de un evento o un asistente ocupan mucho menos */
+    static final int MAXIMO_CUERPO = 64 * 1024;
+
+    private final GestorEventos gestor;
+    private final MotorCambios motor;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+
+    /**
+     * @param gestor Gestor cuyas operaciones se exponen
+     * @param puerto Puerto en el que escucha; 0 elige uno libre
+     * @throws IOException si no se pudo abrir el puerto
+     */
+    public ServidorHttp(GestorEventos gestor, int puerto) throws IOException {
+        this.gestor = gestor;
+        this.motor = new MotorCambios(gestor);
+        this.servidor = HttpServer.create(new InetSocketAddress(puerto), 0);
+        this.ejecutor = Ejecutores.unHiloPorTarea("http");
+        this.servidor.createContext("/", this::atender);
+        this.servidor.setExecutor(ejecutor);
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Deja de aceptar conexiones, espera a que terminen las peticiones en curso y a que se apliquen
+     * los cambios que encolaron. No cierra el gestor.
+     * @param demoraMaximaSegundos Tiempo máximo de espera de las peticiones en curso
+     */
+    public void detener(int demoraMaximaSegundos) {
+        servidor.stop(demoraMaximaSegundos);
+        ejecutor.shutdown();
+        try {
+            motor.cerrar();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return Puerto en el que escucha el servidor
+     */
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    private void atender(HttpExchange intercambio) throws IOException {
+        int estado;
+        String cuerpo;
+        try {
+            Respuesta respuesta = despachar(intercambio);
+            estado = respuesta.estado;
+            cuerpo = respuesta.cuerpo;
+        } catch (NoEncontrado e) {
+            estado = 404;
+            cuerpo = error(e.getMessage());
+        } catch (MetodoNoPermitido e) {
+            estado = 405;
+            cuerpo = error("Método no permitido: " + intercambio.getRequestMethod());
+        } catch (CuerpoDemasiadoGrande e) {
+            estado = 413;
+            cuerpo = error("El cuerpo de la petición supera los " + MAXIMO_CUERPO + " bytes");
+            // El resto del cuerpo queda sin leer, así que la conexión no se puede reutilizar
+            intercambio.getResponseHeaders().set("Connection", "close");
+        } catch (EventoException | IllegalArgumentException e) {
+            estado = 400;
+            cuerpo = error(e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Error al atender " + intercambio.getRequestURI() + ": " + e.getMessage());
+            estado = 500;
+            cuerpo = error("Error interno del servidor");
+        }
+        enviar(intercambio, estado, cuerpo);
+    }
+
+    private Respuesta despachar(HttpExchange intercambio) throws Exception {
+        String metodo = intercambio.getRequestMethod();
+        String[] ruta = segmentos(intercambio.getRequestURI().getRawPath());
+        Map<String, String> parametros = parametros(intercambio.getRequestURI().getRawQuery());
+        String cuerpo = leerCuerpo(intercambio);
+
+        if (ruta.length == 0) {
+            throw new NoEncontrado("Ruta inexistente");
+        }
+        switch (ruta[0]) {
+            case "eventos":
+                return despacharEventos(metodo, ruta, parametros, cuerpo);
+            case "asistentes":
+                return despacharAsistentes(metodo, ruta, cuerpo);
+            default:
+                throw new NoEncontrado("Ruta inexistente");
+        }
+    }
+
+    private Respuesta despacharEventos(String metodo, String[] ruta, Map<String, String> parametros,
+                                       String cuerpo) throws Exception {
+        if (ruta.length == 1) {
+            if (metodo.equals("GET")) {
+                return listarEventos(parametros);
+            }
+            exigirMetodo(metodo, "POST");
+            return crearEvento(Json.leerObjeto(cuerpo));
+        }
+        if (ruta.length == 2 && ruta[1].equals("buscar")) {
+            exigirMetodo(metodo, "GET");
+            List<String> eventos = new ArrayList<>();
+            for (Evento evento : gestor.buscarEventos(parametros.getOrDefault("q", ""))) {
+                eventos.add(resumen(evento));
+            }
+            return new Respuesta(200, new Json.Objeto().crudo("eventos", Json.arreglo(eventos)).toString());
+        }
+
+        int id = entero(ruta[1], "ID de evento");
+        if (ruta.length == 2) {
+            switch (metodo) {
+                case "GET":
+                    return new Respuesta(200, detalle(buscarEvento(id)));
+                case "PUT":
+                    Map<String, Object> datos = Json.leerObjeto(cuerpo);
+                    buscarEvento(id);
+                    esperar(motor.modificarEvento(id, texto(datos, "nombre"), fecha(datos),
+                        texto(datos, "ubicacion"), texto(datos, "descripcion")));
+                    return new Respuesta(200, detalle(buscarEvento(id)));
+                case "DELETE":
+                    buscarEvento(id);
+                    esperar(motor.eliminarEvento(id));
+                    return Respuesta.SIN_CONTENIDO;
+                default:
+                    throw new MetodoNoPermitido();
+            }
+        }
+        if (ruta.length == 3 && ruta[2].equals("capacidad")) {
+            exigirMetodo(metodo, "PUT");
+            int capacidad = entero(Json.leerObjeto(cuerpo), "capacidad");
+            buscarEvento(id);
+            esperar(motor.definirCapacidad(id, capacidad));
+            return new Respuesta(200, detalle(buscarEvento(id)));
+        }
+        if (ruta.length == 3 && ruta[2].equals("asistentes")) {
+            exigirMetodo(metodo, "POST");
+            int idAsistente = entero(Json.leerObjeto(cuerpo), "idAsistente");
+            buscarEvento(id);
+            buscarAsistente(idAsistente);
+            ResultadoInscripcion resultado = esperar(motor.agregarAsistenteAEvento(id, idAsistente));
+            return new Respuesta(200, new Json.Objeto().texto("resultado", resultado.name()).toString());
+        }
+        if (ruta.length == 4 && ruta[2].equals("asistentes")) {
+            exigirMetodo(metodo, "DELETE");
+            int idAsistente = entero(ruta[3], "ID de asistente");
+            buscarEvento(id);
+            esperar(motor.removerAsistenteDeEvento(id, idAsistente));
+            return Respuesta.SIN_CONTENIDO;
+        }
+        throw new NoEncontrado("Ruta inexistente");
+    }
+
+    private Respuesta despacharAsistentes(String metodo, String[] ruta, String cuerpo) throws Exception {
+        if (ruta.length == 1) {
+            if (metodo.equals("GET")) {
+                List<String> asistentes = new ArrayList<>();
+                for (Asistente asistente : gestor.listarAsistentes()) {
+                    asistentes.add(asistente(asistente));
+                }
+                return new Respuesta(200, new Json.Objeto().crudo("asistentes", Json.arreglo(asistentes)).toString());
+            }
+            exigirMetodo(metodo, "POST");
+            Map<String, Object> datos = Json.leerObjeto(cuerpo);
+            Asistente creado = esperar(motor.crearAsistente(texto(datos, "nombre"), texto(datos, "email"),
+                texto(datos, "telefono")));
+            return new Respuesta(201, asistente(creado));
+        }
+
+        int id = entero(ruta[1], "ID de asistente");
+        exigirMetodo(metodo, "GET");
+        Asistente asistente = buscarAsistente(id);
+        if (ruta.length == 2) {
+            return new Respuesta(200, asistente(asistente));
+        }
+        if (ruta.length == 3 && ruta[2].equals("eventos")) {
+            List<String> eventos = new ArrayList<>();
+            for (Evento evento : gestor.listarEventosDeAsistente(id)) {
+                eventos.add(resumen(evento));
+            }
+            return new Respuesta(200, new Json.Objeto().crudo("eventos", Json.arreglo(eventos)).toString());
+        }
+        throw new NoEncontrado("Ruta inexistente");
+    }
+
+    private Respuesta listarEventos(Map<String, String> parametros) {
+        FiltroEventos filtro = opcion(FiltroEventos.class, parametros.getOrDefault("filtro", "todos"), "filtro");
+        OrdenEventos orden = opcion(OrdenEventos.class, parametros.getOrDefault("orden", "fecha_ascendente"), "orden");
+        int limite = parametros.containsKey("limite")
+            ? entero(parametros.get("limite"), "límite") : LIMITE_POR_DEFECTO;
+        if (limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("El límite no puede superar " + LIMITE_MAXIMO);
+        }
+
+        Pagina<Evento> pagina = gestor.paginarEventos(parametros.get("cursor"), limite, filtro, orden);
+        List<String> eventos = new ArrayList<>(pagina.getElementos().size());
+        for (Evento evento : pagina.getElementos()) {
+            eventos.add(resumen(evento));
+        }
+        return new Respuesta(200, new Json.Objeto()
+            .crudo("eventos", Json.arreglo(eventos))
+            .texto("cursor", pagina.getSiguienteCursor())
+            .toString());
+    }
+
+    /**
+     * Crea el evento y, si viene la capacidad, la define en el mismo cambio
+     */
+    private Respuesta crearEvento(Map<String, Object> datos) throws EventoException, InterruptedException {
+        String nombre = texto(datos, "nombre");
+        LocalDate fecha = fecha(datos);
+        String ubicacion = texto(datos, "ubicacion");
+        String descripcion = texto(datos, "descripcion");
+
+        Evento creado = datos.get("capacidad") == null
+            ? esperar(motor.crearEvento(nombre, fecha, ubicacion, descripcion))
+            : esperar(motor.crearEvento(nombre, fecha, ubicacion, descripcion, entero(datos, "capacidad")));
+        return new Respuesta(201, detalle(creado));
+    }
+
+    /**
+     * Espera el resultado de un cambio encolado en el motor
+     * @throws EventoException si el cambio se rechazó o no se pudo guardar su lote
+     */
+    private static <T> T esperar(CompletableFuture<T> cambio) throws EventoException, InterruptedException {
+        try {
+            return cambio.get();
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof EventoException) {
+                throw (EventoException) causa;
+            }
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            throw new IllegalStateException(causa.getMessage(), causa);
+        }
+    }
+
+    private Evento buscarEvento(int id) {
+        return gestor.buscarEventoPorId(id)
+            .orElseThrow(() -> new NoEncontrado("No se encontró el evento con ID " + id));
+    }
+
+    private Asistente buscarAsistente(int id) {
+        return gestor.buscarAsistentePorId(id)
+            .orElseThrow(() -> new NoEncontrado("No se encontró el asistente con ID " + id));
+    }
+
+    private static Json.Objeto datosEvento(Evento evento) {
+        return new Json.Objeto()
+            .numero("id", evento.getId())
+            .texto("nombre", evento.getNombre())
+            .texto("fecha", evento.getFecha().toString())
+            .texto("ubicacion", evento.getUbicacion())
+            .texto("descripcion", evento.getDescripcion())
+            .numero("capacidad", evento.getCapacidad());
+    }
+
+    /**
+     * @return Evento con la cantidad de asistentes y de personas en espera
+     */
+    private static String resumen(Evento evento) {
+        return datosEvento(evento)
+            .numero("cantidadAsistentes", evento.getCantidadAsistentes())
+            .numero("cantidadEnEspera", evento.getListaEspera().size())
+            .toString();
+    }
+
+    /**
+     * @return Evento con los IDs de sus asistentes y de la lista de espera, en orden de llegada
+     */
+    private static String detalle(Evento evento) {
+        return datosEvento(evento)
+            .crudo("asistentes", ids(evento.getAsistentes()))
+            .crudo("listaEspera", ids(evento.getListaEspera()))
+            .toString();
+    }
+
+    private static String asistente(Asistente asistente) {
+        return new Json.Objeto()
+            .numero("id", asistente.getId())
+            .texto("nombre", asistente.getNombre())
+            .texto("email", asistente.getEmail())
+            .texto("telefono", asistente.getTelefono())
+            .toString();
+    }
+
+    private static String ids(List<Asistente> asistentes) {
+        List<String> ids = new ArrayList<>(asistentes.size());
+        for (Asistente asistente : asistentes) {
+            ids.add(String.valueOf(asistente.getId()));
+        }
+        return Json.arreglo(ids);
+    }
+
+    private static String error(String mensaje) {
+        return new Json.Objeto().texto("error", mensaje).toString();
+    }
+
+    private static void exigirMetodo(String metodo, String esperado) {
+        if (!metodo.equals(esperado)) {
+            throw new MetodoNoPermitido();
+        }
+    }
+
+    /**
+     * @return Valor de texto del campo, o null si no está
+     * @throws IllegalArgumentException si el campo no es un texto
+     */
+    private static String texto(Map<String, Object> datos, String campo) {
+        Object valor = datos.get(campo);
+        if (valor != null && !(valor instanceof String)) {
+            throw new IllegalArgumentException("El campo '" + campo + "' debe ser un texto");
+        }
+        return (String) valor;
+    }
+
+    /**
+     * @return Fecha del campo "fecha" en formato ISO (aaaa-mm-dd), o null si no está
+     */
+    private static LocalDate fecha(Map<String, Object> datos) {
+        String fecha = texto(datos, "fecha");
+        if (fecha == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(fecha);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha inválida, se espera aaaa-mm-dd: " + fecha);
+        }
+    }
+
+    /**
+     * @return Constante del enum con ese nombre, sin distinguir mayúsculas
+     */
+    private static <E extends Enum<E>> E opcion(Class<E> tipo, String valor, String parametro) {
+        try {
+            return Enum.valueOf(tipo, valor.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Valor inválido para " + parametro + ": " + valor);
+        }
+    }
+
+    private static int entero(Map<String, Object> datos, String campo) {
+        Object valor = datos.get(campo);
+        if (!(valor instanceof Long) || (Long) valor != ((Long) valor).intValue()) {
+            throw new IllegalArgumentException("El campo '" + campo + "' debe ser un número entero");
+        }
+        return ((Long) valor).intValue();
+    }
+
+    private static int entero(String texto, String descripcion) {
+        try {
+            return Integer.parseInt(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El " + descripcion + " debe ser un número entero: " + texto);
+        }
+    }
+
+    private static String[] segmentos(String ruta) {
+        List<String> segmentos = new ArrayList<>();
+        for (String segmento : ruta.split("/")) {
+            if (!segmento.isEmpty()) {
+                segmentos.add(URLDecoder.decode(segmento, StandardCharsets.UTF_8));
+            }
+        }
+        return segmentos.toArray(new String[0]);
+    }
+
+    private static Map<String, String> parametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String nombre = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(nombre, StandardCharsets.UTF_8),
+                URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    /**
+     * Lee el cuerpo completo: si queda algo sin leer, la conexión no se puede reutilizar. Nunca
+     * lee más de {@value #MAXIMO_CUERPO} bytes: si el Content-Length declarado ya los supera
+     * rechaza la petición sin leer nada, y si no lo declara (cuerpo por partes) deja de leer al
+     * pasarse.
+     * @throws CuerpoDemasiadoGrande si el cuerpo supera el máximo
+     */
+    private static String leerCuerpo(HttpExchange intercambio) throws IOException {
+        String largo = intercambio.getRequestHeaders().getFirst("Content-Length");
+        if (largo != null) {
+            try {
+                if (Long.parseLong(largo.trim()) > MAXIMO_CUERPO) {
+                    throw new CuerpoDemasiadoGrande();
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Content-Length inválido: " + largo);
+            }
+        }
+        try (InputStream in = intercambio.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAXIMO_CUERPO + 1);
+            if (bytes.length > MAXIMO_CUERPO) {
+                throw new CuerpoDemasiadoGrande();
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void enviar(HttpExchange intercambio, int estado, String cuerpo) throws IOException {
+        try {
+            if (cuerpo == null) {
+                intercambio.sendResponseHeaders(estado, -1);
+                return;
+            }
+            byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+            Headers encabezados = intercambio.getResponseHeaders();
+            encabezados.set("Content-Type", "application/json; charset=utf-8");
+            intercambio.sendResponseHeaders(estado, bytes.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(bytes);
+            }
+        } finally {
+            intercambio.close();
+        }
+    }
+
+    private static final class Respuesta {
+        static final Respuesta SIN_CONTENIDO = new Respuesta(204, null);
+
+        final int estado;
+        final String cuerpo; // null si la respuesta no tiene cuerpo
+
+        Respuesta(int estado, String cuerpo) {
+            this.estado = estado;
+            this.cuerpo = cuerpo;
+        }
+    }
+
+    private static final class NoEncontrado extends RuntimeException {
+        NoEncontrado(String mensaje) {
+            super(mensaje);
+        }
+    }
+
+    private static final class MetodoNoPermitido extends RuntimeException {
+    }
+
+    private static final class CuerpoDemasiadoGrande extends RuntimeException {
+    }
+}
@@ -0,0 +1,46 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Operaciones sobre archivos compartidas por la persistencia y las herramientas de medición
+ */
+public final class Archivos {
+
+    private Archivos() {
+    }
+
+    /**
+     * Borra el directorio con todo su contenido
+     * @param directorio Directorio a borrar
+     * @throws IOException si no se pudo borrar algún archivo
+     */
+    public static void borrarDirectorio(Path directorio) throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            // Los más profundos primero, para que cada directorio esté vacío al borrarlo
+            Iterator<Path> recorrido = archivos.sorted(Comparator.reverseOrder()).iterator();
+            while (recorrido.hasNext()) {
+                Files.delete(recorrido.next());
+            }
+        }
+    }
+
+    /**
+     * Lee el archivo completo a un buffer en el heap. No se mapea: el mapeo quedaría vigente hasta
+     * que lo libere el recolector de basura, y mientras tanto Windows no deja reemplazar el archivo,
+     * como hace el guardado siguiente.
+     * @throws IOException si no se pudo leer o no entra en un arreglo
+     */
+    public static ByteBuffer leerCompleto(Path archivo) throws IOException {
+        if (Files.size(archivo) > Integer.MAX_VALUE - 8) {
+            throw new IOException("El archivo " + archivo + " supera el tamaño máximo que se puede leer");
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(archivo));
+    }
+}
@@ -0,0 +1,139 @@
+package util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Conjunto persistente de enteros: cada modificación devuelve un conjunto nuevo y deja intacto
+ * el original. Los conjuntos chicos, que son la mayoría, se guardan como un arreglo ordenado que
+ * se copia en cada cambio; al superar {@link #MAXIMO_ARREGLO} elementos pasan a un
+ * {@link MapaEnterosPersistente}, que comparte con la versión anterior todo lo que no cambió.
+ */
+public final class ConjuntoEnterosPersistente {
+
+    static final int MAXIMO_ARREGLO = 64;
+
+    private static final ConjuntoEnterosPersistente VACIO = new ConjuntoEnterosPersistente(new int[0], null);
+
+    private final int[] elementos;                        // Ordenados; null si se usa el mapa
+    private final MapaEnterosPersistente<Boolean> mapa;   // Solo importan las claves
+
+    private ConjuntoEnterosPersistente(int[] elementos, MapaEnterosPersistente<Boolean> mapa) {
+        this.elementos = elementos;
+        this.mapa = mapa;
+    }
+
+    public static ConjuntoEnterosPersistente vacio() {
+        return VACIO;
+    }
+
+    /**
+     * Arma un conjunto de una sola vez
+     * @param valores Elementos ordenados de menor a mayor, sin repetidos; el arreglo no se modifica
+     * @param cantidad Cantidad de elementos de {@code valores} que se usan
+     */
+    public static ConjuntoEnterosPersistente desdeOrdenados(int[] valores, int cantidad) {
+        if (cantidad == 0) {
+            return VACIO;
+        }
+        if (cantidad <= MAXIMO_ARREGLO) {
+            return new ConjuntoEnterosPersistente(Arrays.copyOf(valores, cantidad), null);
+        }
+        MapaEnterosPersistente.Constructor<Boolean> constructor = new MapaEnterosPersistente.Constructor<>();
+        for (int i = 0; i < cantidad; i++) {
+            constructor.agregar(valores[i], Boolean.TRUE);
+        }
+        return new ConjuntoEnterosPersistente(null, constructor.construir());
+    }
+
+    public boolean contiene(int valor) {
+        return elementos != null ? Arrays.binarySearch(elementos, valor) >= 0 : mapa.contiene(valor);
+    }
+
+    /**
+     * @return Conjunto con el valor agregado; este mismo si ya estaba
+     */
+    public ConjuntoEnterosPersistente con(int valor) {
+        if (elementos == null) {
+            MapaEnterosPersistente<Boolean> nuevo = mapa.poner(valor, Boolean.TRUE);
+            return nuevo == mapa ? this : new ConjuntoEnterosPersistente(null, nuevo);
+        }
+
+        int posicion = Arrays.binarySearch(elementos, valor);
+        if (posicion >= 0) {
+            return this;
+        }
+        if (elementos.length == MAXIMO_ARREGLO) {
+            MapaEnterosPersistente.Constructor<Boolean> constructor = new MapaEnterosPersistente.Constructor<>();
+            for (int elemento : elementos) {
+                constructor.agregar(elemento, Boolean.TRUE);
+            }
+            return new ConjuntoEnterosPersistente(null, constructor.agregar(valor, Boolean.TRUE).construir());
+        }
+        posicion = -posicion - 1;
+        int[] nuevos = new int[elementos.length + 1];
+        System.arraycopy(elementos, 0, nuevos, 0, posicion);
+        nuevos[posicion] = valor;
+        System.arraycopy(elementos, posicion, nuevos, posicion + 1, elementos.length - posicion);
+        return new ConjuntoEnterosPersistente(nuevos, null);
+    }
+
+    /**
+     * @return Conjunto sin el valor; este mismo si no estaba
+     */
+    public ConjuntoEnterosPersistente sin(int valor) {
+        if (elementos == null) {
+            MapaEnterosPersistente<Boolean> nuevo = mapa.quitar(valor);
+            if (nuevo == mapa) {
+                return this;
+            }
+            // Vuelve al arreglo recién cuando queda bastante por debajo del máximo, para no alternar
+            if (nuevo.tamanio() > MAXIMO_ARREGLO / 2) {
+                return new ConjuntoEnterosPersistente(null, nuevo);
+            }
+            int[] restantes = new int[nuevo.tamanio()];
+            int i = 0;
+            for (MapaEnterosPersistente.Recorrido<Boolean> recorrido = nuevo.iterator(); recorrido.hasNext(); ) {
+                recorrido.next();
+                restantes[i++] = recorrido.getClave();
+            }
+            return new ConjuntoEnterosPersistente(restantes, null);
+        }
+
+        int posicion = Arrays.binarySearch(elementos, valor);
+        if (posicion < 0) {
+            return this;
+        }
+        if (elementos.length == 1) {
+            return VACIO;
+        }
+        int[] nuevos = new int[elementos.length - 1];
+        System.arraycopy(elementos, 0, nuevos, 0, posicion);
+        System.arraycopy(elementos, posicion + 1, nuevos, posicion, nuevos.length - posicion);
+        return new ConjuntoEnterosPersistente(nuevos, null);
+    }
+
+    public int tamanio() {
+        return elementos != null ? elementos.length : mapa.tamanio();
+    }
+
+    public boolean estaVacio() {
+        return tamanio() == 0;
+    }
+
+    /**
+     * Recorre los elementos de menor a mayor
+     */
+    public void paraCada(IntConsumer accion) {
+        if (elementos != null) {
+            for (int elemento : elementos) {
+                accion.accept(elemento);
+            }
+            return;
+        }
+        for (MapaEnterosPersistente.Recorrido<Boolean> recorrido = mapa.iterator(); recorrido.hasNext(); ) {
+            recorrido.next();
+            accion.accept(recorrido.getClave());
+        }
+    }
+}
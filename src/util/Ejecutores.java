@@ -0,0 +1,51 @@
+package util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecutores compartidos por los módulos que corren tareas en otros hilos
+ */
+public final class Ejecutores {
+
+    /**
+     * Hilos que puede tener a la vez el pool que reemplaza a los hilos virtuales. Cada uno reserva
+     * su pila, así que sin tope una ráfaga de tareas que esperan el disco o la red podría agotar la memoria.
+     */
+    private static final int MAXIMO_HILOS_DEL_POOL = 256;
+    private static final long SEGUNDOS_INACTIVO = 60;
+
+    private Ejecutores() {
+    }
+
+    /**
+     * Ejecutor con un hilo virtual por tarea. Se obtiene por reflexión para seguir compilando y
+     * funcionando con versiones de Java anteriores a los hilos virtuales: en ellas devuelve un
+     * pool de hilos daemon que crece según haga falta hasta {@value #MAXIMO_HILOS_DEL_POOL} hilos;
+     * las tareas que llegan con todos ocupados esperan en la cola, y los hilos que quedan
+     * inactivos {@value #SEGUNDOS_INACTIVO} segundos terminan.
+     * @param nombre Prefijo del nombre de los hilos del pool, si no hay hilos virtuales
+     */
+    public static ExecutorService unHiloPorTarea(String nombre) {
+        try {
+            Method virtuales = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtuales.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger numero = new AtomicInteger();
+            // Con una cola sin límite el pool solo crea hilos hasta el mínimo, así que el mínimo es el tope
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(MAXIMO_HILOS_DEL_POOL, MAXIMO_HILOS_DEL_POOL,
+                SEGUNDOS_INACTIVO, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), tarea -> {
+                    Thread t = new Thread(tarea, nombre + "-" + numero.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+}
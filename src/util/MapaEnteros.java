@@ -0,0 +1,167 @@
+package util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Mapa con claves int primitivas, sin encapsular las claves en objetos Integer.
+ * Usa direccionamiento abierto con sondeo lineal; una posición está libre cuando su valor es null,
+ * por lo que no admite valores nulos.
+ */
+public class MapaEnteros<V> {
+
+    private static final int CAPACIDAD_MINIMA = 16;
+
+    private int[] claves;
+    private Object[] valores;
+    private int tamanio;
+    private int umbral;
+
+    public MapaEnteros() {
+        this(CAPACIDAD_MINIMA);
+    }
+
+    /**
+     * @param capacidadEsperada Cantidad de elementos que se espera guardar sin redimensionar
+     */
+    public MapaEnteros(int capacidadEsperada) {
+        int capacidad = CAPACIDAD_MINIMA;
+        while (capacidad * 3 / 4 < capacidadEsperada) {
+            capacidad <<= 1;
+        }
+        inicializar(capacidad);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V obtener(int clave) {
+        int mascara = claves.length - 1;
+        for (int i = posicion(clave, mascara); valores[i] != null; i = (i + 1) & mascara) {
+            if (claves[i] == clave) {
+                return (V) valores[i];
+            }
+        }
+        return null;
+    }
+
+    public boolean contiene(int clave) {
+        return obtener(clave) != null;
+    }
+
+    /**
+     * Asocia el valor a la clave
+     * @return Valor anterior, o null si la clave no estaba
+     */
+    @SuppressWarnings("unchecked")
+    public V poner(int clave, V valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("El valor no puede ser nulo");
+        }
+        int mascara = claves.length - 1;
+        int i = posicion(clave, mascara);
+        for (; valores[i] != null; i = (i + 1) & mascara) {
+            if (claves[i] == clave) {
+                V anterior = (V) valores[i];
+                valores[i] = valor;
+                return anterior;
+            }
+        }
+        claves[i] = clave;
+        valores[i] = valor;
+        if (++tamanio > umbral) {
+            redimensionar(claves.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Quita la clave del mapa
+     * @return Valor que tenía asociado, o null si no estaba
+     */
+    @SuppressWarnings("unchecked")
+    public V quitar(int clave) {
+        int mascara = claves.length - 1;
+        int i = posicion(clave, mascara);
+        for (; valores[i] != null; i = (i + 1) & mascara) {
+            if (claves[i] == clave) {
+                V anterior = (V) valores[i];
+                desplazarHaciaAtras(i, mascara);
+                tamanio--;
+                return anterior;
+            }
+        }
+        return null;
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    public boolean estaVacio() {
+        return tamanio == 0;
+    }
+
+    public void limpiar() {
+        Arrays.fill(valores, null);
+        tamanio = 0;
+    }
+
+    /**
+     * Recorre los valores del mapa, sin un orden definido
+     */
+    @SuppressWarnings("unchecked")
+    public void paraCadaValor(Consumer<? super V> accion) {
+        for (Object valor : valores) {
+            if (valor != null) {
+                accion.accept((V) valor);
+            }
+        }
+    }
+
+    /**
+     * Al quitar un elemento se corren hacia atrás los que le siguen en la misma secuencia
+     * de sondeo, de modo que ninguna búsqueda se corte en un hueco
+     */
+    private void desplazarHaciaAtras(int libre, int mascara) {
+        int i = (libre + 1) & mascara;
+        while (valores[i] != null) {
+            int ideal = posicion(claves[i], mascara);
+            // El elemento puede ocupar el hueco si su posición ideal no está entre el hueco y él
+            if (((i - ideal) & mascara) >= ((i - libre) & mascara)) {
+                claves[libre] = claves[i];
+                valores[libre] = valores[i];
+                libre = i;
+            }
+            i = (i + 1) & mascara;
+        }
+        valores[libre] = null;
+    }
+
+    private void redimensionar(int capacidad) {
+        int[] clavesAnteriores = claves;
+        Object[] valoresAnteriores = valores;
+        inicializar(capacidad);
+        int mascara = capacidad - 1;
+        for (int j = 0; j < valoresAnteriores.length; j++) {
+            if (valoresAnteriores[j] != null) {
+                int i = posicion(clavesAnteriores[j], mascara);
+                while (valores[i] != null) {
+                    i = (i + 1) & mascara;
+                }
+                claves[i] = clavesAnteriores[j];
+                valores[i] = valoresAnteriores[j];
+            }
+        }
+    }
+
+    private void inicializar(int capacidad) {
+        claves = new int[capacidad];
+        valores = new Object[capacidad];
+        umbral = capacidad * 3 / 4;
+    }
+
+    private static int posicion(int clave, int mascara) {
+        // Dispersión multiplicativa: los IDs consecutivos quedan repartidos en la tabla
+        int h = clave * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mascara;
+    }
+}
@@ -0,0 +1,254 @@
+package util;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Mapa con claves int primitivas que conserva el orden en que se agregaron las claves.
+ * Las entradas se guardan en arreglos densos en orden de inserción, y una tabla de dispersión
+ * con direccionamiento abierto guarda la posición de cada clave en ellos: agregar, buscar y
+ * quitar son O(1). Quitar deja un hueco en los arreglos densos, que se compactan al crecer.
+ * No admite valores nulos.
+ */
+public class MapaEnterosOrdenado<V> implements Iterable<V> {
+
+    private static final int CAPACIDAD_MINIMA = 4;
+    private static final int[] SIN_CLAVES = new int[0];
+    private static final Object[] SIN_VALORES = new Object[0];
+    // Tabla sin entradas para los mapas vacíos; no se escribe porque el primer agregado la reemplaza
+    private static final int[] TABLA_VACIA = new int[1];
+
+    private int[] claves;      // En orden de inserción; las posiciones con valor null son huecos
+    private Object[] valores;
+    private int usadas;        // Posiciones ocupadas de los arreglos densos, incluidos los huecos
+    private int tamanio;
+    private int[] tabla;       // Posición de la clave en los arreglos densos más uno; 0 si está libre
+
+    public MapaEnterosOrdenado() {
+        claves = SIN_CLAVES;
+        valores = SIN_VALORES;
+        tabla = TABLA_VACIA;
+    }
+
+    /**
+     * Crea una copia independiente del mapa, con las mismas entradas en el mismo orden
+     */
+    public MapaEnterosOrdenado(MapaEnterosOrdenado<? extends V> otro) {
+        this();
+        if (otro.tamanio > 0) {
+            reorganizar(otro.claves, otro.valores, otro.usadas, otro.tamanio);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V obtener(int clave) {
+        int i = buscar(clave);
+        return i < 0 ? null : (V) valores[tabla[i] - 1];
+    }
+
+    public boolean contiene(int clave) {
+        return buscar(clave) >= 0;
+    }
+
+    /**
+     * Asocia el valor a la clave. Si la clave ya estaba conserva su lugar en el orden.
+     * @return Valor anterior, o null si la clave no estaba
+     */
+    @SuppressWarnings("unchecked")
+    public V poner(int clave, V valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("El valor no puede ser nulo");
+        }
+        int i = buscar(clave);
+        if (i >= 0) {
+            int posicion = tabla[i] - 1;
+            V anterior = (V) valores[posicion];
+            valores[posicion] = valor;
+            return anterior;
+        }
+
+        if (usadas == claves.length) {
+            reorganizar(claves, valores, usadas, tamanio + 1);
+        }
+        claves[usadas] = clave;
+        valores[usadas] = valor;
+        usadas++;
+        tamanio++;
+        int mascara = tabla.length - 1;
+        i = posicion(clave, mascara);
+        while (tabla[i] != 0) {
+            i = (i + 1) & mascara;
+        }
+        tabla[i] = usadas;
+        return null;
+    }
+
+    /**
+     * Quita la clave del mapa
+     * @return Valor que tenía asociado, o null si no estaba
+     */
+    @SuppressWarnings("unchecked")
+    public V quitar(int clave) {
+        int i = buscar(clave);
+        if (i < 0) {
+            return null;
+        }
+        int posicion = tabla[i] - 1;
+        V anterior = (V) valores[posicion];
+        valores[posicion] = null;
+        tamanio--;
+        desplazarHaciaAtras(i, tabla.length - 1);
+        // Los huecos del final se descartan enseguida
+        while (usadas > 0 && valores[usadas - 1] == null) {
+            usadas--;
+        }
+        return anterior;
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    public boolean estaVacio() {
+        return tamanio == 0;
+    }
+
+    /**
+     * Recorre los valores en el orden en que se agregaron sus claves
+     */
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterator<V>() {
+            private int siguiente = saltearHuecos(0);
+
+            @Override
+            public boolean hasNext() {
+                return siguiente < usadas;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                V valor = (V) valores[siguiente];
+                siguiente = saltearHuecos(siguiente + 1);
+                return valor;
+            }
+        };
+    }
+
+    /**
+     * Vista de solo lectura de los valores en orden de inserción, sin copiarlos. El acceso por
+     * posición es directo mientras no haya huecos; si se quitaron claves recorre hasta la posición.
+     */
+    public List<V> comoLista() {
+        return new AbstractList<V>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public V get(int indice) {
+                if (indice < 0 || indice >= tamanio) {
+                    throw new IndexOutOfBoundsException("Índice: " + indice + ", tamaño: " + tamanio);
+                }
+                if (usadas == tamanio) {
+                    return (V) valores[indice];
+                }
+                Iterator<V> recorrido = MapaEnterosOrdenado.this.iterator();
+                for (int i = 0; i < indice; i++) {
+                    recorrido.next();
+                }
+                return recorrido.next();
+            }
+
+            @Override
+            public int size() {
+                return tamanio;
+            }
+
+            @Override
+            public Iterator<V> iterator() {
+                return MapaEnterosOrdenado.this.iterator();
+            }
+        };
+    }
+
+    private int saltearHuecos(int desde) {
+        while (desde < usadas && valores[desde] == null) {
+            desde++;
+        }
+        return desde;
+    }
+
+    /**
+     * @return Posición de la clave en la tabla, o -1 si no está
+     */
+    private int buscar(int clave) {
+        int mascara = tabla.length - 1;
+        for (int i = posicion(clave, mascara); tabla[i] != 0; i = (i + 1) & mascara) {
+            if (claves[tabla[i] - 1] == clave) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Al quitar una clave de la tabla se corren hacia atrás las que le siguen en la misma
+     * secuencia de sondeo, de modo que ninguna búsqueda se corte en un hueco
+     */
+    private void desplazarHaciaAtras(int libre, int mascara) {
+        int i = (libre + 1) & mascara;
+        while (tabla[i] != 0) {
+            int ideal = posicion(claves[tabla[i] - 1], mascara);
+            // La clave puede ocupar el hueco si su posición ideal no está entre el hueco y ella
+            if (((i - ideal) & mascara) >= ((i - libre) & mascara)) {
+                tabla[libre] = tabla[i];
+                libre = i;
+            }
+            i = (i + 1) & mascara;
+        }
+        tabla[libre] = 0;
+    }
+
+    /**
+     * Copia las entradas sin huecos a arreglos nuevos con lugar para al menos la mitad más de
+     * las requeridas, y arma la tabla de nuevo. La tabla tiene el doble de posiciones que los
+     * arreglos densos, así que nunca supera la mitad de ocupación.
+     */
+    private void reorganizar(int[] clavesOrigen, Object[] valoresOrigen, int usadasOrigen, int requeridas) {
+        int capacidad = CAPACIDAD_MINIMA;
+        while (capacidad < requeridas + requeridas / 2) {
+            capacidad <<= 1;
+        }
+        int[] nuevasClaves = new int[capacidad];
+        Object[] nuevosValores = new Object[capacidad];
+        int[] nuevaTabla = new int[capacidad * 2];
+        int mascara = nuevaTabla.length - 1;
+        int n = 0;
+        for (int j = 0; j < usadasOrigen; j++) {
+            if (valoresOrigen[j] != null) {
+                nuevasClaves[n] = clavesOrigen[j];
+                nuevosValores[n] = valoresOrigen[j];
+                int i = posicion(clavesOrigen[j], mascara);
+                while (nuevaTabla[i] != 0) {
+                    i = (i + 1) & mascara;
+                }
+                nuevaTabla[i] = ++n;
+            }
+        }
+        claves = nuevasClaves;
+        valores = nuevosValores;
+        tabla = nuevaTabla;
+        usadas = n;
+        tamanio = n;
+    }
+
+    private static int posicion(int clave, int mascara) {
+        // Dispersión multiplicativa: los IDs consecutivos quedan repartidos en la tabla
+        int h = clave * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mascara;
+    }
+}
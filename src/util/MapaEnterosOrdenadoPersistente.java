@@ -0,0 +1,175 @@
+package util;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Mapa persistente con claves int que conserva el orden en que se agregaron las claves. Como
+ * {@link MapaEnterosPersistente}, cada modificación devuelve un mapa nuevo que comparte con el
+ * anterior todo lo que no cambió: agregar, buscar y quitar son O(log n) y no copian las entradas.
+ * <p>
+ * Cada entrada recibe un número de orden creciente al agregarse. Un mapa persistente la ubica
+ * por clave y otro por número de orden, que es el que se recorre. No admite valores nulos.
+ */
+public final class MapaEnterosOrdenadoPersistente<V> implements Iterable<V> {
+
+    private static final MapaEnterosOrdenadoPersistente<Object> VACIO =
+        new MapaEnterosOrdenadoPersistente<>(MapaEnterosPersistente.vacio(), MapaEnterosPersistente.vacio(), 0);
+
+    private final MapaEnterosPersistente<Entrada<V>> porClave;
+    private final MapaEnterosPersistente<Entrada<V>> porOrden;
+    private final int siguienteOrden; // Número de orden de la próxima clave que se agregue
+
+    private MapaEnterosOrdenadoPersistente(MapaEnterosPersistente<Entrada<V>> porClave,
+                                           MapaEnterosPersistente<Entrada<V>> porOrden, int siguienteOrden) {
+        this.porClave = porClave;
+        this.porOrden = porOrden;
+        this.siguienteOrden = siguienteOrden;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> MapaEnterosOrdenadoPersistente<V> vacio() {
+        return (MapaEnterosOrdenadoPersistente<V>) VACIO;
+    }
+
+    public V obtener(int clave) {
+        Entrada<V> entrada = porClave.obtener(clave);
+        return entrada == null ? null : entrada.valor;
+    }
+
+    public boolean contiene(int clave) {
+        return porClave.contiene(clave);
+    }
+
+    /**
+     * Asocia el valor a la clave. Si la clave ya estaba conserva su lugar en el orden.
+     * @return Mapa con el valor asociado a la clave; este mismo si ya lo estaba
+     */
+    public MapaEnterosOrdenadoPersistente<V> poner(int clave, V valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("El valor no puede ser nulo");
+        }
+        Entrada<V> existente = porClave.obtener(clave);
+        if (existente != null) {
+            if (existente.valor == valor) {
+                return this;
+            }
+            Entrada<V> entrada = new Entrada<>(clave, existente.orden, valor);
+            return new MapaEnterosOrdenadoPersistente<>(porClave.poner(clave, entrada),
+                porOrden.poner(entrada.orden, entrada), siguienteOrden);
+        }
+        if (siguienteOrden == Integer.MAX_VALUE) {
+            return renumerar().poner(clave, valor);
+        }
+        Entrada<V> entrada = new Entrada<>(clave, siguienteOrden, valor);
+        return new MapaEnterosOrdenadoPersistente<>(porClave.poner(clave, entrada),
+            porOrden.poner(entrada.orden, entrada), siguienteOrden + 1);
+    }
+
+    /**
+     * @return Mapa sin la clave; este mismo si no la tenía
+     */
+    public MapaEnterosOrdenadoPersistente<V> quitar(int clave) {
+        Entrada<V> existente = porClave.obtener(clave);
+        if (existente == null) {
+            return this;
+        }
+        if (porClave.tamanio() == 1) {
+            return vacio();
+        }
+        return new MapaEnterosOrdenadoPersistente<>(porClave.quitar(clave), porOrden.quitar(existente.orden),
+            siguienteOrden);
+    }
+
+    public int tamanio() {
+        return porClave.tamanio();
+    }
+
+    public boolean estaVacio() {
+        return porClave.estaVacio();
+    }
+
+    /**
+     * Recorre los valores en el orden en que se agregaron sus claves
+     */
+    @Override
+    public Iterator<V> iterator() {
+        Iterator<Entrada<V>> entradas = porOrden.iterator();
+        return new Iterator<V>() {
+            @Override
+            public boolean hasNext() {
+                return entradas.hasNext();
+            }
+
+            @Override
+            public V next() {
+                return entradas.next().valor;
+            }
+        };
+    }
+
+    /**
+     * Vista de solo lectura de los valores en orden de inserción, sin copiarlos. El acceso por
+     * posición es O(log n).
+     */
+    public List<V> comoLista() {
+        return new AbstractList<V>() {
+            @Override
+            public V get(int indice) {
+                return porOrden.enPosicion(indice).valor;
+            }
+
+            @Override
+            public int size() {
+                return porOrden.tamanio();
+            }
+
+            @Override
+            public Iterator<V> iterator() {
+                return MapaEnterosOrdenadoPersistente.this.iterator();
+            }
+        };
+    }
+
+    /**
+     * Informa las claves que están en uno solo de los dos mapas, sin recorrer lo que comparten:
+     * ver {@link MapaEnterosPersistente#diferenciasDeClaves}
+     * @param quitadas Recibe las claves que están en {@code antes} y no en {@code despues}
+     * @param agregadas Recibe las claves que están en {@code despues} y no en {@code antes}
+     */
+    public static void diferenciasDeClaves(MapaEnterosOrdenadoPersistente<?> antes,
+                                           MapaEnterosOrdenadoPersistente<?> despues,
+                                           IntConsumer quitadas, IntConsumer agregadas) {
+        MapaEnterosPersistente.diferenciasDeClaves(antes.porClave, despues.porClave, quitadas, agregadas);
+    }
+
+    /**
+     * Vuelve a numerar las entradas desde 0, conservando el orden, cuando se agotaron los números.
+     * Recorre todo el mapa, pero solo ocurre tras 2^31 claves agregadas a una misma serie de versiones.
+     */
+    private MapaEnterosOrdenadoPersistente<V> renumerar() {
+        MapaEnterosPersistente.Constructor<Entrada<V>> clavesNuevas = new MapaEnterosPersistente.Constructor<>();
+        MapaEnterosPersistente.Constructor<Entrada<V>> ordenesNuevos = new MapaEnterosPersistente.Constructor<>();
+        int orden = 0;
+        for (Entrada<V> entrada : porOrden) {
+            Entrada<V> renumerada = new Entrada<>(entrada.clave, orden++, entrada.valor);
+            clavesNuevas.agregar(renumerada.clave, renumerada);
+            ordenesNuevos.agregar(renumerada.orden, renumerada);
+        }
+        return new MapaEnterosOrdenadoPersistente<>(clavesNuevas.construir(), ordenesNuevos.construir(), orden);
+    }
+
+    private static final class Entrada<V> {
+        final int clave;
+        final int orden;
+        final V valor;
+
+        Entrada(int clave, int orden, V valor) {
+            this.clave = clave;
+            this.orden = orden;
+            this.valor = valor;
+        }
+    }
+}
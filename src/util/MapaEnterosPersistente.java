@@ -0,0 +1,486 @@
+package util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Mapa persistente con claves int: cada modificación devuelve un mapa nuevo y deja intacto el
+ * original, con el que comparte todos los nodos que no cambiaron. Como nunca se modifica, un
+ * mapa se puede leer desde cualquier hilo sin sincronización.
+ * <p>
+ * Es un trie de 7 niveles que toma 5 bits de la clave por nivel (2 en la raíz); cada nodo guarda
+ * solo los hijos presentes, indicados en un mapa de bits. Las claves se recorren en orden
+ * ascendente o descendente, también a partir de una clave dada. No admite valores nulos.
+ */
+public final class MapaEnterosPersistente<V> implements Iterable<V> {
+
+    private static final int BITS = 5;
+    private static final int MASCARA = (1 << BITS) - 1;
+    private static final int NIVELES = 7;
+    private static final int ULTIMO_NIVEL = NIVELES - 1;
+    private static final Object[] SIN_HIJOS = new Object[0];
+
+    private static final MapaEnterosPersistente<Object> VACIO = new MapaEnterosPersistente<>(null);
+
+    private final Nodo raiz;
+
+    private MapaEnterosPersistente(Nodo raiz) {
+        this.raiz = raiz;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> MapaEnterosPersistente<V> vacio() {
+        return (MapaEnterosPersistente<V>) VACIO;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V obtener(int clave) {
+        int u = sinSigno(clave);
+        Nodo nodo = raiz;
+        for (int nivel = 0; nodo != null; nivel++) {
+            int bit = 1 << ((u >>> desplazamiento(nivel)) & MASCARA);
+            if ((nodo.mapa & bit) == 0) {
+                return null;
+            }
+            Object hijo = nodo.hijos[Integer.bitCount(nodo.mapa & (bit - 1))];
+            if (nivel == ULTIMO_NIVEL) {
+                return (V) hijo;
+            }
+            nodo = (Nodo) hijo;
+        }
+        return null;
+    }
+
+    public boolean contiene(int clave) {
+        return obtener(clave) != null;
+    }
+
+    /**
+     * @return Mapa con el valor asociado a la clave; este mismo si ya lo estaba
+     */
+    public MapaEnterosPersistente<V> poner(int clave, V valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("El valor no puede ser nulo");
+        }
+        Nodo nuevaRaiz = poner(raiz, sinSigno(clave), 0, valor);
+        return nuevaRaiz == raiz ? this : new MapaEnterosPersistente<>(nuevaRaiz);
+    }
+
+    /**
+     * @return Mapa sin la clave; este mismo si no la tenía
+     */
+    public MapaEnterosPersistente<V> quitar(int clave) {
+        if (raiz == null) {
+            return this;
+        }
+        Nodo nuevaRaiz = quitar(raiz, sinSigno(clave), 0);
+        if (nuevaRaiz == raiz) {
+            return this;
+        }
+        return nuevaRaiz == null ? vacio() : new MapaEnterosPersistente<>(nuevaRaiz);
+    }
+
+    public int tamanio() {
+        return raiz == null ? 0 : raiz.tamanio;
+    }
+
+    public boolean estaVacio() {
+        return raiz == null;
+    }
+
+    /**
+     * Busca un valor por su posición en el orden de las claves, bajando por el subárbol que la
+     * contiene según la cantidad de valores de cada uno: O(log n), sin recorrer los anteriores
+     * @param indice Posición en orden ascendente de clave, de 0 a {@code tamanio() - 1}
+     * @throws IndexOutOfBoundsException si la posición no existe
+     */
+    @SuppressWarnings("unchecked")
+    public V enPosicion(int indice) {
+        if (indice < 0 || indice >= tamanio()) {
+            throw new IndexOutOfBoundsException("Índice: " + indice + ", tamaño: " + tamanio());
+        }
+        Nodo nodo = raiz;
+        for (int nivel = 0; nivel < ULTIMO_NIVEL; nivel++) {
+            for (Object hijo : nodo.hijos) {
+                Nodo subarbol = (Nodo) hijo;
+                if (indice < subarbol.tamanio) {
+                    nodo = subarbol;
+                    break;
+                }
+                indice -= subarbol.tamanio;
+            }
+        }
+        return (V) nodo.hijos[indice];
+    }
+
+    /**
+     * Informa las claves que están en uno solo de los dos mapas. Los subárboles que comparten no
+     * se recorren, así que entre un mapa y otro derivado de él con k cambios cuesta O(k log n).
+     * Las claves que están en ambos no se informan, aunque tengan valores distintos.
+     * @param quitadas Recibe las claves que están en {@code antes} y no en {@code despues}
+     * @param agregadas Recibe las claves que están en {@code despues} y no en {@code antes}
+     */
+    public static void diferenciasDeClaves(MapaEnterosPersistente<?> antes, MapaEnterosPersistente<?> despues,
+                                           IntConsumer quitadas, IntConsumer agregadas) {
+        diferencias(antes.raiz, despues.raiz, 0, 0, quitadas, agregadas);
+    }
+
+    /**
+     * Recorre los valores en orden ascendente de clave
+     */
+    @Override
+    public Recorrido<V> iterator() {
+        return recorrer(false);
+    }
+
+    /**
+     * Recorre todos los valores en el sentido indicado
+     */
+    public Recorrido<V> recorrer(boolean descendente) {
+        Recorrido<V> recorrido = new Recorrido<>(raiz, descendente);
+        recorrido.ubicarEnExtremo();
+        return recorrido;
+    }
+
+    /**
+     * Recorre los valores a partir de una clave: las mayores en orden ascendente, o las menores
+     * en orden descendente
+     * @param clave Clave de inicio, esté o no en el mapa
+     * @param incluida Si la clave de inicio se incluye en el recorrido
+     * @param descendente Sentido del recorrido
+     */
+    public Recorrido<V> recorrerDesde(int clave, boolean incluida, boolean descendente) {
+        Recorrido<V> recorrido = new Recorrido<>(raiz, descendente);
+        recorrido.ubicar(sinSigno(clave), incluida);
+        return recorrido;
+    }
+
+    private static Nodo poner(Nodo nodo, int u, int nivel, Object valor) {
+        int mapa = nodo == null ? 0 : nodo.mapa;
+        Object[] hijos = nodo == null ? SIN_HIJOS : nodo.hijos;
+        int bit = 1 << ((u >>> desplazamiento(nivel)) & MASCARA);
+        int i = Integer.bitCount(mapa & (bit - 1));
+        boolean presente = (mapa & bit) != 0;
+
+        Object hijo;
+        int agregados;
+        if (nivel == ULTIMO_NIVEL) {
+            if (presente && hijos[i] == valor) {
+                return nodo;
+            }
+            hijo = valor;
+            agregados = presente ? 0 : 1;
+        } else {
+            Nodo anterior = presente ? (Nodo) hijos[i] : null;
+            Nodo nuevo = poner(anterior, u, nivel + 1, valor);
+            if (nuevo == anterior) {
+                return nodo;
+            }
+            hijo = nuevo;
+            agregados = nuevo.tamanio - (anterior == null ? 0 : anterior.tamanio);
+        }
+
+        Object[] copia;
+        if (presente) {
+            copia = hijos.clone();
+            copia[i] = hijo;
+        } else {
+            copia = new Object[hijos.length + 1];
+            System.arraycopy(hijos, 0, copia, 0, i);
+            copia[i] = hijo;
+            System.arraycopy(hijos, i, copia, i + 1, hijos.length - i);
+        }
+        return new Nodo(mapa | bit, copia, (nodo == null ? 0 : nodo.tamanio) + agregados);
+    }
+
+    /**
+     * @return Nodo sin la clave, el mismo nodo si no la tenía, o null si quedó vacío
+     */
+    private static Nodo quitar(Nodo nodo, int u, int nivel) {
+        int bit = 1 << ((u >>> desplazamiento(nivel)) & MASCARA);
+        if ((nodo.mapa & bit) == 0) {
+            return nodo;
+        }
+        int i = Integer.bitCount(nodo.mapa & (bit - 1));
+
+        if (nivel < ULTIMO_NIVEL) {
+            Nodo anterior = (Nodo) nodo.hijos[i];
+            Nodo nuevo = quitar(anterior, u, nivel + 1);
+            if (nuevo == anterior) {
+                return nodo;
+            }
+            if (nuevo != null) {
+                Object[] copia = nodo.hijos.clone();
+                copia[i] = nuevo;
+                return new Nodo(nodo.mapa, copia, nodo.tamanio - 1);
+            }
+        }
+
+        // Se quita el hijo: la hoja con el valor o un subárbol que quedó vacío
+        if (nodo.hijos.length == 1) {
+            return null;
+        }
+        Object[] copia = new Object[nodo.hijos.length - 1];
+        System.arraycopy(nodo.hijos, 0, copia, 0, i);
+        System.arraycopy(nodo.hijos, i + 1, copia, i, copia.length - i);
+        return new Nodo(nodo.mapa & ~bit, copia, nodo.tamanio - 1);
+    }
+
+    /**
+     * Compara dos nodos del mismo nivel y prefijo; un nodo null es un subárbol vacío
+     */
+    private static void diferencias(Nodo antes, Nodo despues, int nivel, int prefijo,
+                                    IntConsumer quitadas, IntConsumer agregadas) {
+        if (antes == despues) {
+            return;
+        }
+        int mapaAntes = antes == null ? 0 : antes.mapa;
+        int mapaDespues = despues == null ? 0 : despues.mapa;
+        for (int pendientes = mapaAntes | mapaDespues; pendientes != 0; pendientes &= pendientes - 1) {
+            int posicion = Integer.numberOfTrailingZeros(pendientes);
+            int bit = 1 << posicion;
+            Object hijoAntes = (mapaAntes & bit) == 0 ? null
+                : antes.hijos[Integer.bitCount(mapaAntes & (bit - 1))];
+            Object hijoDespues = (mapaDespues & bit) == 0 ? null
+                : despues.hijos[Integer.bitCount(mapaDespues & (bit - 1))];
+            int u = prefijo | posicion << desplazamiento(nivel);
+            if (nivel < ULTIMO_NIVEL) {
+                diferencias((Nodo) hijoAntes, (Nodo) hijoDespues, nivel + 1, u, quitadas, agregadas);
+            } else if (hijoDespues == null) {
+                quitadas.accept(sinSigno(u));
+            } else if (hijoAntes == null) {
+                agregadas.accept(sinSigno(u));
+            }
+        }
+    }
+
+    /**
+     * Arma el nodo del nivel con las entradas [desde, hasta), ordenadas, sin claves repetidas
+     * y con los bits de los niveles anteriores en común
+     */
+    private static Nodo armar(long[] entradas, Object[] valores, int desde, int hasta, int nivel) {
+        int desplazamiento = desplazamiento(nivel);
+        int mapa = 0;
+        for (int i = desde; i < hasta; i++) {
+            mapa |= 1 << ((claveSinSigno(entradas[i]) >>> desplazamiento) & MASCARA);
+        }
+
+        Object[] hijos = new Object[Integer.bitCount(mapa)];
+        int h = 0;
+        for (int i = desde; i < hasta; ) {
+            int posicion = (claveSinSigno(entradas[i]) >>> desplazamiento) & MASCARA;
+            int j = i + 1;
+            while (j < hasta && ((claveSinSigno(entradas[j]) >>> desplazamiento) & MASCARA) == posicion) {
+                j++;
+            }
+            hijos[h++] = nivel == ULTIMO_NIVEL
+                ? valores[(int) entradas[i]]
+                : armar(entradas, valores, i, j, nivel + 1);
+            i = j;
+        }
+        return new Nodo(mapa, hijos, hasta - desde);
+    }
+
+    private static int claveSinSigno(long entrada) {
+        return sinSigno((int) (entrada >> 32));
+    }
+
+    private static int desplazamiento(int nivel) {
+        return (ULTIMO_NIVEL - nivel) * BITS;
+    }
+
+    /**
+     * Invierte el bit de signo para que el orden sin signo de los bits coincida con el de las claves
+     */
+    private static int sinSigno(int clave) {
+        return clave ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * Arma un mapa de una sola vez a partir de muchas entradas, sin crear las versiones
+     * intermedias que dejaría agregarlas de a una. Si una clave se repite queda el último valor.
+     */
+    public static final class Constructor<V> {
+        // Clave en los 32 bits altos y posición del valor en los bajos: al ordenar quedan por clave
+        // y, dentro de una misma clave, en el orden en que se agregaron
+        private long[] entradas = new long[16];
+        private Object[] valores = new Object[16];
+        private int cantidad;
+
+        public Constructor<V> agregar(int clave, V valor) {
+            if (valor == null) {
+                throw new IllegalArgumentException("El valor no puede ser nulo");
+            }
+            if (cantidad == entradas.length) {
+                entradas = Arrays.copyOf(entradas, cantidad * 2);
+                valores = Arrays.copyOf(valores, cantidad * 2);
+            }
+            entradas[cantidad] = ((long) clave << 32) | cantidad;
+            valores[cantidad] = valor;
+            cantidad++;
+            return this;
+        }
+
+        public MapaEnterosPersistente<V> construir() {
+            if (cantidad == 0) {
+                return vacio();
+            }
+            Arrays.parallelSort(entradas, 0, cantidad);
+
+            // De cada clave repetida queda la última entrada
+            int distintas = 0;
+            for (int i = 0; i < cantidad; i++) {
+                if (i + 1 == cantidad || (entradas[i] >> 32) != (entradas[i + 1] >> 32)) {
+                    entradas[distintas++] = entradas[i];
+                }
+            }
+            return new MapaEnterosPersistente<>(armar(entradas, valores, 0, distintas, 0));
+        }
+    }
+
+    private static final class Nodo {
+        final int mapa;        // Bit i encendido si está el hijo de la posición i
+        final Object[] hijos;  // Hijos presentes en orden; en el último nivel, los valores
+        final int tamanio;     // Cantidad de valores en el subárbol
+
+        Nodo(int mapa, Object[] hijos, int tamanio) {
+            this.mapa = mapa;
+            this.hijos = hijos;
+            this.tamanio = tamanio;
+        }
+    }
+
+    /**
+     * Recorrido ordenado de los valores que además informa la clave de cada uno
+     */
+    public static final class Recorrido<V> implements Iterator<V> {
+        private final Nodo raiz;
+        private final boolean descendente;
+        private final Nodo[] pila = new Nodo[NIVELES];
+        private final int[] posiciones = new int[NIVELES]; // Posición del hijo actual en cada nivel, de 0 a 31
+        private boolean pendiente;
+        private int clave;
+
+        private Recorrido(Nodo raiz, boolean descendente) {
+            this.raiz = raiz;
+            this.descendente = descendente;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pendiente;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (!pendiente) {
+                throw new NoSuchElementException();
+            }
+            int u = 0;
+            for (int nivel = 0; nivel < NIVELES; nivel++) {
+                u |= posiciones[nivel] << desplazamiento(nivel);
+            }
+            clave = sinSigno(u);
+            Object valor = hijoActual(ULTIMO_NIVEL);
+            avanzar(ULTIMO_NIVEL);
+            return (V) valor;
+        }
+
+        /**
+         * @return Clave del último valor devuelto por {@link #next()}
+         */
+        public int getClave() {
+            return clave;
+        }
+
+        private void ubicarEnExtremo() {
+            if (raiz != null) {
+                pila[0] = raiz;
+                posiciones[0] = buscar(raiz.mapa, descendente ? MASCARA : 0);
+                bajar(0);
+            }
+        }
+
+        private void ubicar(int u, boolean incluida) {
+            if (raiz == null) {
+                return;
+            }
+            pila[0] = raiz;
+            for (int nivel = 0; ; nivel++) {
+                int deseada = (u >>> desplazamiento(nivel)) & MASCARA;
+                int encontrada = buscar(pila[nivel].mapa, deseada);
+                if (encontrada < 0) {
+                    // Nada en este nodo desde la posición deseada: sigue por los niveles de arriba
+                    avanzar(nivel - 1);
+                    return;
+                }
+                posiciones[nivel] = encontrada;
+                if (encontrada != deseada) {
+                    // Todo el subárbol queda del lado buscado: se empieza por su extremo
+                    bajar(nivel);
+                    return;
+                }
+                if (nivel == ULTIMO_NIVEL) {
+                    if (incluida) {
+                        pendiente = true;
+                    } else {
+                        avanzar(nivel);
+                    }
+                    return;
+                }
+                pila[nivel + 1] = (Nodo) hijoActual(nivel);
+            }
+        }
+
+        /**
+         * Pasa al hijo siguiente del nivel indicado o, si no hay, de los niveles de arriba
+         */
+        private void avanzar(int nivel) {
+            int paso = descendente ? -1 : 1;
+            for (; nivel >= 0; nivel--) {
+                int siguiente = buscar(pila[nivel].mapa, posiciones[nivel] + paso);
+                if (siguiente >= 0) {
+                    posiciones[nivel] = siguiente;
+                    bajar(nivel);
+                    return;
+                }
+            }
+            pendiente = false;
+        }
+
+        /**
+         * Baja desde el hijo actual del nivel hasta la hoja del extremo por donde empieza el recorrido
+         */
+        private void bajar(int nivel) {
+            for (; nivel < ULTIMO_NIVEL; nivel++) {
+                Nodo hijo = (Nodo) hijoActual(nivel);
+                pila[nivel + 1] = hijo;
+                posiciones[nivel + 1] = buscar(hijo.mapa, descendente ? MASCARA : 0);
+            }
+            pendiente = true;
+        }
+
+        private Object hijoActual(int nivel) {
+            Nodo nodo = pila[nivel];
+            return nodo.hijos[Integer.bitCount(nodo.mapa & ((1 << posiciones[nivel]) - 1))];
+        }
+
+        /**
+         * @return Primera posición presente desde la indicada en el sentido del recorrido, o -1 si no hay
+         */
+        private int buscar(int mapa, int desde) {
+            if (desde < 0 || desde > MASCARA) {
+                return -1;
+            }
+            if (descendente) {
+                int restantes = mapa & (int) ((2L << desde) - 1);
+                return restantes == 0 ? -1 : MASCARA - Integer.numberOfLeadingZeros(restantes);
+            }
+            int restantes = mapa & (-1 << desde);
+            return restantes == 0 ? -1 : Integer.numberOfTrailingZeros(restantes);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Mapa persistente con claves de cualquier tipo: cada modificación devuelve un mapa nuevo y deja
+ * intacto el original. Las entradas se guardan en un {@link MapaEnterosPersistente} por el hash
+ * de la clave; las claves con el mismo hash comparten una posición. No admite claves ni valores nulos.
+ */
+public final class MapaPersistente<K, V> {
+
+    private static final MapaPersistente<Object, Object> VACIO =
+        new MapaPersistente<>(MapaEnterosPersistente.vacio(), 0);
+
+    // Cada posición guarda las entradas de ese hash como clave, valor, clave, valor...
+    private final MapaEnterosPersistente<Object[]> porHash;
+    private final int tamanio;
+
+    private MapaPersistente(MapaEnterosPersistente<Object[]> porHash, int tamanio) {
+        this.porHash = porHash;
+        this.tamanio = tamanio;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> MapaPersistente<K, V> vacio() {
+        return (MapaPersistente<K, V>) VACIO;
+    }
+
+    /**
+     * Arma un mapa persistente con las entradas del mapa indicado, de una sola vez
+     */
+    public static <K, V> MapaPersistente<K, V> desde(Map<K, V> entradas) {
+        // Se agrupan las entradas por hash antes de armar el mapa de posiciones
+        MapaEnteros<Object[]> grupos = new MapaEnteros<>(entradas.size());
+        for (Map.Entry<K, V> entrada : entradas.entrySet()) {
+            if (entrada.getValue() == null) {
+                throw new IllegalArgumentException("El valor no puede ser nulo");
+            }
+            int hash = entrada.getKey().hashCode();
+            Object[] grupo = grupos.obtener(hash);
+            Object[] nuevo = grupo == null ? new Object[2] : Arrays.copyOf(grupo, grupo.length + 2);
+            nuevo[nuevo.length - 2] = entrada.getKey();
+            nuevo[nuevo.length - 1] = entrada.getValue();
+            grupos.poner(hash, nuevo);
+        }
+
+        MapaEnterosPersistente.Constructor<Object[]> porHash = new MapaEnterosPersistente.Constructor<>();
+        grupos.paraCadaValor(grupo -> porHash.agregar(grupo[0].hashCode(), grupo));
+        return new MapaPersistente<>(porHash.construir(), entradas.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    public V obtener(K clave) {
+        Object[] entradas = porHash.obtener(clave.hashCode());
+        int i = entradas == null ? -1 : posicion(entradas, clave);
+        return i < 0 ? null : (V) entradas[i + 1];
+    }
+
+    public boolean contiene(K clave) {
+        return obtener(clave) != null;
+    }
+
+    /**
+     * @return Mapa con el valor asociado a la clave, reemplazando el que tuviera
+     */
+    public MapaPersistente<K, V> poner(K clave, V valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("El valor no puede ser nulo");
+        }
+        int hash = clave.hashCode();
+        Object[] entradas = porHash.obtener(hash);
+        if (entradas == null) {
+            return new MapaPersistente<>(porHash.poner(hash, new Object[] {clave, valor}), tamanio + 1);
+        }
+
+        int i = posicion(entradas, clave);
+        Object[] copia;
+        if (i >= 0) {
+            if (entradas[i + 1] == valor) {
+                return this;
+            }
+            copia = entradas.clone();
+            copia[i + 1] = valor;
+            return new MapaPersistente<>(porHash.poner(hash, copia), tamanio);
+        }
+        copia = new Object[entradas.length + 2];
+        System.arraycopy(entradas, 0, copia, 0, entradas.length);
+        copia[entradas.length] = clave;
+        copia[entradas.length + 1] = valor;
+        return new MapaPersistente<>(porHash.poner(hash, copia), tamanio + 1);
+    }
+
+    /**
+     * @return Mapa sin la clave; este mismo si no la tenía
+     */
+    public MapaPersistente<K, V> quitar(K clave) {
+        return quitar(clave, null);
+    }
+
+    /**
+     * Quita la clave solo si está asociada a un valor igual al indicado
+     * @return Mapa sin la clave; este mismo si no la tenía o tenía otro valor
+     */
+    public MapaPersistente<K, V> quitar(K clave, V valor) {
+        int hash = clave.hashCode();
+        Object[] entradas = porHash.obtener(hash);
+        int i = entradas == null ? -1 : posicion(entradas, clave);
+        if (i < 0 || (valor != null && !Objects.equals(entradas[i + 1], valor))) {
+            return this;
+        }
+        if (entradas.length == 2) {
+            return new MapaPersistente<>(porHash.quitar(hash), tamanio - 1);
+        }
+        Object[] copia = new Object[entradas.length - 2];
+        System.arraycopy(entradas, 0, copia, 0, i);
+        System.arraycopy(entradas, i + 2, copia, i, copia.length - i);
+        return new MapaPersistente<>(porHash.poner(hash, copia), tamanio - 1);
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    public boolean estaVacio() {
+        return tamanio == 0;
+    }
+
+    private static int posicion(Object[] entradas, Object clave) {
+        for (int i = 0; i < entradas.length; i += 2) {
+            if (entradas[i].equals(clave)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}